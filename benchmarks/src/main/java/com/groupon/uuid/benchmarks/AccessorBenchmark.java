@@ -0,0 +1,133 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDFields;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of field extraction, equality, hashing, comparison and conversion on an existing id, against the java.util.UUID
+ * equivalents where there is one. The compared ids are distinct objects with equal content, so equals() can't
+ * short-circuit on identity. The FromString cases read the timestamp of an id in text form by parsing it first and with
+ * UUIDFields.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessorBenchmark {
+    private UUID id;
+    private UUID copy;
+    private java.util.UUID javaId;
+    private java.util.UUID javaCopy;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        id = new UUID();
+        text = id.toString();
+        copy = new UUID(text);
+        javaId = id.toJavaUUID();
+        javaCopy = new java.util.UUID(javaId.getMostSignificantBits(), javaId.getLeastSignificantBits());
+    }
+
+    @Benchmark
+    public Date getTimestamp() {
+        return id.getTimestamp();
+    }
+
+    @Benchmark
+    public long timestampFromString() {
+        return new UUID(text).getTimestamp().getTime();
+    }
+
+    @Benchmark
+    public long timestampMillisFromString() {
+        return UUIDFields.timestampMillis(text, 0);
+    }
+
+    @Benchmark
+    public boolean localityEquals() {
+        return id.equals(copy);
+    }
+
+    @Benchmark
+    public int localityHashCode() {
+        return id.hashCode();
+    }
+
+    @Benchmark
+    public int localityCompareTo() {
+        return id.compareTo(copy);
+    }
+
+    @Benchmark
+    public int localityCompareByTimestamp() {
+        return UUID.TIMESTAMP_ORDER.compare(id, copy);
+    }
+
+    @Benchmark
+    public java.util.UUID toJavaUUID() {
+        return id.toJavaUUID();
+    }
+
+    @Benchmark
+    public boolean javaEquals() {
+        return javaId.equals(javaCopy);
+    }
+
+    @Benchmark
+    public int javaCompareTo() {
+        return javaId.compareTo(javaCopy);
+    }
+
+    @Benchmark
+    public int javaHashCode() {
+        return javaId.hashCode();
+    }
+}
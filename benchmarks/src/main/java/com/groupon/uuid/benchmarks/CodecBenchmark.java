@@ -0,0 +1,129 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per id of writing and reading runs of ids in binary form with UUIDCodec, against copying each UUID object's
+ * getBytes() into a buffer and against writing the 36-character strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    private static final int IDS = 1024;
+
+    private long[] ids;
+    private long[] read;
+    private UUID[] objects;
+    private ByteBuffer buffer;
+    private ByteArrayOutputStream bytes;
+    private DataOutputStream out;
+
+    @Setup
+    public void setUp() {
+        ids = new long[2 * IDS];
+        read = new long[2 * IDS];
+        UUID.generate(ids, 0, IDS);
+        objects = new UUID[IDS];
+        for (int i = 0; i < IDS; i++)
+            objects[i] = new UUID(ids[2 * i], ids[2 * i + 1]);
+        buffer = ByteBuffer.allocate(16 * IDS);
+        bytes = new ByteArrayOutputStream(40 * IDS);
+        out = new DataOutputStream(bytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public ByteBuffer codecBuffer() {
+        buffer.clear();
+        UUIDCodec.write(ids, 0, IDS, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public ByteBuffer getBytesBuffer() {
+        buffer.clear();
+        for (UUID id : objects)
+            buffer.put(id.getBytes());
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public long[] codecReadBuffer() {
+        buffer.clear();
+        UUIDCodec.read(buffer, read, 0, IDS);
+        return read;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int codecStream() throws IOException {
+        bytes.reset();
+        UUIDCodec.write(ids, 0, IDS, out);
+        return bytes.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int stringStream() throws IOException {
+        bytes.reset();
+        for (UUID id : objects)
+            out.writeBytes(id.toString());
+        return bytes.size();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDColumn;
+import com.groupon.uuid.UUIDFile;
+import com.groupon.uuid.UUIDHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per id of deduplicating a stream of ids generated by one process, with UUIDHashSet against a HashSet of UUID
+ * objects. Each invocation fills a fresh set, so the numbers include growing the table. Lookups and a full scan of
+ * the same ids in a UUIDColumn show the cost of reading them back from the compressed form, and lookups in a
+ * UUIDFile the cost of searching mapped pages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionBenchmark {
+    private static final int IDS = 100000;
+
+    private long[] ids;
+    private UUID[] objects;
+    private UUIDHashSet lookup;
+    private Set<UUID> javaLookup;
+    private UUIDColumn column;
+    private UUIDFile file;
+
+    @Setup
+    public void setUp() throws IOException {
+        ids = new long[2 * IDS];
+        UUID.generate(ids, 0, IDS);
+
+        objects = new UUID[IDS];
+        lookup = new UUIDHashSet(IDS);
+        javaLookup = new HashSet<UUID>(2 * IDS);
+        for (int i = 0; i < IDS; i++) {
+            objects[i] = new UUID(ids[2 * i], ids[2 * i + 1]);
+            lookup.add(objects[i]);
+            javaLookup.add(objects[i]);
+        }
+        column = UUIDColumn.of(ids, 0, IDS);
+
+        UUIDFile.Builder builder = new UUIDFile.Builder(File.createTempFile("uuids", ".ids"));
+        builder.add(ids, 0, IDS);
+        file = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.getFile().delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int uuidHashSetAdd() {
+        UUIDHashSet set = new UUIDHashSet();
+        return set.addAll(ids, 0, IDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int javaHashSetAdd() {
+        Set<UUID> set = new HashSet<UUID>();
+        for (int i = 0; i < IDS; i++)
+            set.add(new UUID(ids[2 * i], ids[2 * i + 1]));
+        return set.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int uuidHashSetContains() {
+        return lookup.containsAll(ids, 0, IDS, null, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int javaHashSetContains() {
+        int hits = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (javaLookup.contains(objects[i]))
+                hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int uuidColumnContains() {
+        int hits = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (column.contains(ids[2 * i], ids[2 * i + 1]))
+                hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public long uuidColumnScan() {
+        long sum = 0;
+        UUIDColumn.Cursor cursor = column.cursor();
+        while (cursor.next())
+            sum += cursor.getMostSignificantBits() ^ cursor.getLeastSignificantBits();
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int uuidFileContains() {
+        int hits = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (file.contains(ids[2 * i], ids[2 * i + 1]))
+                hits++;
+        }
+        return hits;
+    }
+}
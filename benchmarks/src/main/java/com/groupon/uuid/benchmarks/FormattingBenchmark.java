@@ -0,0 +1,104 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of printing the canonical 36-character form, against java.util.UUID.toString(), and of the shorter
+ * UUIDEncoding forms. The appendTo and writeAscii cases reuse their destination so that they measure formatting
+ * without any allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormattingBenchmark {
+    private UUID id;
+    private java.util.UUID javaId;
+    private final StringBuilder sb = new StringBuilder(64);
+    private final byte[] ascii = new byte[36];
+
+    @Setup
+    public void setUp() {
+        id = new UUID();
+        javaId = id.toJavaUUID();
+    }
+
+    @Benchmark
+    public String localityToString() {
+        return id.toString();
+    }
+
+    @Benchmark
+    public StringBuilder localityAppendTo() {
+        sb.setLength(0);
+        return id.appendTo(sb);
+    }
+
+    @Benchmark
+    public byte[] localityWriteAscii() {
+        id.writeAscii(ascii, 0);
+        return ascii;
+    }
+
+    @Benchmark
+    public String localityBase64() {
+        return UUIDEncoding.BASE64_URL.encode(id);
+    }
+
+    @Benchmark
+    public String localityBase32() {
+        return UUIDEncoding.CROCKFORD_BASE32.encode(id);
+    }
+
+    @Benchmark
+    public String javaToString() {
+        return javaId.toString();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDGenerator;
+import com.groupon.uuid.UUIDSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of generating new ids in both counter modes, with either the single shared counter or per-thread counter
+ * stripes, and with generator metrics off or on. RandomUUIDBenchmark is the java.util.UUID.randomUUID() baseline. These
+ * are the benchmarks that ThreadScaling runs at increasing thread counts, since the shared counter is contended by every
+ * thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+    private static final int BATCH = 1024;
+
+    @State(Scope.Thread)
+    public static class Batch {
+        public final long[] longs = new long[2 * BATCH];
+        public final UUIDSequence sequence = UUIDGenerator.getDefault().sequence(Long.MAX_VALUE);
+    }
+
+    @Param({"variable", "sequential", "rotating"})
+    public String mode;
+
+    @Param({"shared", "striped"})
+    public String counter;
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    @Setup
+    public void setUp() {
+        if ("sequential".equals(mode))
+            UUID.useSequentialIds();
+        else if ("rotating".equals(mode))
+            UUID.useRotatingSequentialIds();
+        else
+            UUID.useVariableIds();
+
+        if ("striped".equals(counter))
+            UUID.useStripedCounters();
+        else
+            UUID.useSharedCounter();
+
+        if ("on".equals(metrics))
+            UUIDGenerator.getDefault().enableMetrics();
+        else
+            UUIDGenerator.getDefault().disableMetrics();
+    }
+
+    @Benchmark
+    public UUID localityUUID() {
+        return new UUID();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] localityBatch(Batch batch) {
+        UUID.generate(batch.longs, 0, BATCH);
+        return batch.longs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] localitySequence(Batch batch) {
+        batch.sequence.next(batch.longs, 0, BATCH);
+        return batch.longs;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing and validating the canonical 36-character form, against java.util.UUID.fromString(), and of
+ * parsing the 22-character base 64 form. A fixed set of ids is cycled through so the branch predictor can't learn a
+ * single input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsingBenchmark {
+    private static final int SIZE = 1024;
+
+    private String[] strings;
+    private String[] base64;
+    private char[][] chars;
+    private byte[] ascii;
+    private final long[] longs = new long[2];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        strings = new String[SIZE];
+        base64 = new String[SIZE];
+        chars = new char[SIZE][];
+        ascii = new byte[36 * SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            strings[i] = new UUID().toString();
+            base64[i] = UUIDEncoding.BASE64_URL.encode(new UUID(strings[i]));
+            chars[i] = strings[i].toCharArray();
+            for (int j = 0; j < 36; j++)
+                ascii[36 * i + j] = (byte) chars[i][j];
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public UUID parseString() {
+        return new UUID(strings[next()]);
+    }
+
+    @Benchmark
+    public long[] parseStringIntoLongs() {
+        UUID.parse(strings[next()], 0, longs, 0);
+        return longs;
+    }
+
+    @Benchmark
+    public long[] parseAsciiIntoLongs() {
+        UUID.parse(ascii, 36 * next(), longs, 0);
+        return longs;
+    }
+
+    @Benchmark
+    public long[] parseBase64IntoLongs() {
+        UUIDEncoding.BASE64_URL.parse(base64[next()], 0, longs, 0);
+        return longs;
+    }
+
+    @Benchmark
+    public boolean isValidUUIDChars() {
+        return UUID.isValidUUID(chars[next()]);
+    }
+
+    @Benchmark
+    public java.util.UUID javaFromString() {
+        return java.util.UUID.fromString(strings[next()]);
+    }
+}
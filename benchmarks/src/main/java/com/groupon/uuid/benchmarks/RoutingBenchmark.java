@@ -0,0 +1,126 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.JumpHashShardRouter;
+import com.groupon.uuid.ModuloShardRouter;
+import com.groupon.uuid.RangeShardRouter;
+import com.groupon.uuid.ShardRouter;
+import com.groupon.uuid.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per id of routing to one of 64 shards with each router, against hashing the first 8 characters of toString()
+ * as was done before there was a router.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+    private static final int IDS = 1024;
+    private static final int SHARDS = 64;
+
+    @Param({"range", "modulo", "jump"})
+    public String router;
+
+    private ShardRouter shardRouter;
+    private UUID[] objects;
+    private long[] ids;
+    private int[] shards;
+    private long[] grouped;
+
+    @Setup
+    public void setUp() {
+        if (router.equals("range"))
+            shardRouter = RangeShardRouter.uniform(SHARDS);
+        else if (router.equals("modulo"))
+            shardRouter = new ModuloShardRouter(SHARDS);
+        else
+            shardRouter = new JumpHashShardRouter(SHARDS);
+
+        ids = new long[2 * IDS];
+        UUID.generate(ids, 0, IDS);
+        objects = new UUID[IDS];
+        for (int i = 0; i < IDS; i++)
+            objects[i] = new UUID(ids[2 * i], ids[2 * i + 1]);
+        shards = new int[IDS];
+        grouped = new long[2 * IDS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int routeObjects() {
+        int sum = 0;
+        for (UUID id : objects)
+            sum += shardRouter.route(id);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int[] routeBatch() {
+        shardRouter.route(ids, 0, IDS, shards, 0);
+        return shards;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int[] partitionBatch() {
+        return shardRouter.partition(ids, 0, IDS, grouped, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int stringPrefixHash() {
+        int sum = 0;
+        for (UUID id : objects)
+            sum += (id.toString().substring(0, 8).hashCode() & Integer.MAX_VALUE) % SHARDS;
+        return sum;
+    }
+}
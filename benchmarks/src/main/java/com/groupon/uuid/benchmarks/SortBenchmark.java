@@ -0,0 +1,108 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import com.groupon.uuid.UUID;
+import com.groupon.uuid.UUIDSort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to sort a million generated ids with UUIDSort, on one thread and on every processor, against Arrays.sort over
+ * UUID objects. The input is restored from an unsorted copy before every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SortBenchmark {
+    private static final int IDS = 1000000;
+
+    @Param({"BYTES", "TIMESTAMP"})
+    public UUIDSort.Order order;
+
+    private long[] unsorted;
+    private long[] ids;
+    private UUID[] objects;
+
+    @Setup
+    public void setUp() {
+        unsorted = new long[2 * IDS];
+        ids = new long[2 * IDS];
+        objects = new UUID[IDS];
+
+        // a thousand batches, so the timestamps vary as they would over a run of real traffic
+        for (int i = 0; i < 1000; i++)
+            UUID.generate(unsorted, 2 * i * (IDS / 1000), IDS / 1000);
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() {
+        System.arraycopy(unsorted, 0, ids, 0, ids.length);
+        for (int i = 0; i < IDS; i++)
+            objects[i] = new UUID(unsorted[2 * i], unsorted[2 * i + 1]);
+    }
+
+    @Benchmark
+    public long[] radixSort() {
+        UUIDSort.sort(ids, 0, IDS, order);
+        return ids;
+    }
+
+    @Benchmark
+    public long[] parallelRadixSort() {
+        UUIDSort.parallelSort(ids, 0, IDS, order);
+        return ids;
+    }
+
+    @Benchmark
+    public UUID[] objectSort() {
+        Arrays.sort(objects, order == UUIDSort.Order.TIMESTAMP ? UUID.TIMESTAMP_ORDER : null);
+        return objects;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs the generation benchmarks, and the java.util.UUID.randomUUID() baseline, at 1, 2, 4, ... threads up to the
+ * number of available processors and prints a table of throughput per thread count. With striped counters the
+ * throughput should grow close to linearly with the thread count. Any arguments are parsed as regular JMH command line options, so the
+ * included benchmarks can be narrowed with a regex, for example
+ *
+ * java -cp target/benchmarks.jar com.groupon.uuid.benchmarks.ThreadScaling GenerationBenchmark.localityUUID
+ */
+public class ThreadScaling {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        List<Integer> threadCounts = threadCounts(Runtime.getRuntime().availableProcessors());
+        List<String> lines = new ArrayList<String>();
+
+        for (int threads : threadCounts) {
+            OptionsBuilder builder = new OptionsBuilder();
+            if (cmd.getIncludes().isEmpty()) {
+                builder.include(GenerationBenchmark.class.getSimpleName());
+                builder.include(RandomUUIDBenchmark.class.getSimpleName());
+            }
+            Options options = builder.parent(cmd).threads(threads).build();
+
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                lines.add(String.format("%-60s %-34s %3d %14.3f %s",
+                        result.getParams().getBenchmark(),
+                        params(result),
+                        threads,
+                        result.getPrimaryResult().getScore(),
+                        result.getPrimaryResult().getScoreUnit()));
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-60s %-34s %3s %14s", "Benchmark", "Params", "Thr", "Score"));
+        for (String line : lines)
+            System.out.println(line);
+    }
+
+    /**
+     * Format the benchmark parameters of a result as a comma separated list of key=value pairs.
+     * @param result Result of one benchmark run.
+     * @return The parameters, or an empty String if the benchmark has none.
+     */
+    private static String params(RunResult result) {
+        StringBuilder sb = new StringBuilder();
+        for (String key : result.getParams().getParamsKeys()) {
+            if (sb.length() > 0)
+                sb.append(',');
+            sb.append(key).append('=').append(result.getParams().getParam(key));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Powers of two up to the processor count, always ending with the processor count itself.
+     * @param processors Number of available processors.
+     * @return Ascending list of thread counts to run.
+     */
+    private static List<Integer> threadCounts(int processors) {
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int threads = 1; threads < processors; threads *= 2)
+            counts.add(threads);
+        counts.add(processors);
+        return counts;
+    }
+}
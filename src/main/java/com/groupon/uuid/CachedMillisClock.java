@@ -0,0 +1,105 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+/**
+ * Clock that caches the current time in a volatile field, updated by a single background thread roughly once per
+ * millisecond, so that reading it is a single memory load rather than a system call. The resolution depends on the
+ * operating system's sleep granularity, which is about a millisecond on Linux and can be much coarser elsewhere.
+ *
+ * Since only the ticker thread reads the system clock, it can reliably notice the time moving backwards. When it
+ * does, the cached time is held where it is until the system clock catches up, and the regression is counted.
+ *
+ * The ticker is a daemon thread, so it doesn't keep the JVM alive, but it should be stopped with stop() if the clock
+ * is discarded before the JVM exits. Clocks are meant to be created once and shared.
+ */
+public class CachedMillisClock extends MillisClock {
+    private final Thread ticker;
+    private volatile long time;
+    private volatile boolean running = true;
+
+    /**
+     * Create a clock and start its ticker thread.
+     */
+    public CachedMillisClock() {
+        time = System.currentTimeMillis();
+        ticker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, "locality-uuid-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    /**
+     * Stop the ticker thread. The clock keeps returning the last time it read after this.
+     */
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    /**
+     * Main loop of the ticker thread, which refreshes the cached time until the clock is stopped.
+     */
+    private void tick() {
+        boolean regressing = false;
+
+        while (running) {
+            long now = System.currentTimeMillis();
+            long last = time;
+
+            if (now >= last) {
+                time = now;
+                regressing = false;
+            }
+            else if (!regressing) {
+                regressed(last, now);
+                regressing = true;
+            }
+
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                // stop() interrupts the sleep, the loop condition decides whether to carry on
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+/**
+ * A block of counter values reserved by one thread for striped generation. Each thread takes a block of values from
+ * the shared counter with a single atomic add and then hands them out without any further synchronization, so the
+ * shared counter is only touched once per block. Blocks never overlap, so ids stay as unique as if every value had
+ * been taken from the shared counter directly.
+ *
+ * The fields in use are surrounded by padding in the class hierarchy (the JVM lays out superclass fields first) so
+ * that stripes belonging to different threads never share a cache line.
+ */
+final class CounterStripe extends CounterStripeFields {
+    long p8, p9, p10, p11, p12, p13, p14;
+}
+
+abstract class CounterStripeFields extends CounterStripePadding {
+    // last counter value handed out from this block
+    int value;
+
+    // number of values left in this block
+    int remaining;
+
+    // generator mode and re-seed epoch the block was reserved in, a block is discarded if either changes
+    int mode;
+}
+
+abstract class CounterStripePadding {
+    long p1, p2, p3, p4, p5, p6, p7;
+}
@@ -0,0 +1,183 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * Lease of a process id slot shared by the JVMs on one host through a lock file. Processes in containers often all
+ * have the same small pid, and co-located containers share the host's MAC address, so their ids differ only by the
+ * random starting point of each generator's counter. Leasing a slot instead gives each JVM a process id that no other
+ * JVM using the same file holds at the same time, which makes their ids unique without any network coordination.
+ *
+ * Each slot is a one byte region of the file, held with an exclusive FileChannel lock for as long as the lease is
+ * open. The operating system releases the lock when the process exits, even if it crashes, so slots are never lost.
+ * Leasing happens once, and generating ids never touches the file.
+ *
+ * Every JVM on the host that shares the MAC address must lease from the same file, on a local file system; JVMs that
+ * use their real pid could still collide with a leased slot. Set the com.groupon.uuid.slots system property or the
+ * LOCALITY_UUID_SLOTS environment variable to the path of the file to have NodeIdentity.local() lease a slot for the
+ * default generator when it is first used.
+ */
+public final class HostSlotLease implements Closeable {
+    public static final int MAX_SLOTS = 65536;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileLock lock;
+    private final int slot;
+
+    private HostSlotLease(File file, RandomAccessFile raf, FileLock lock, int slot) {
+        this.file = file;
+        this.raf = raf;
+        this.lock = lock;
+        this.slot = slot;
+    }
+
+    /**
+     * Lease a slot from all 65536 process ids, creating the file if needed.
+     * @param file Lock file shared by the JVMs on this host.
+     * @return The lease.
+     * @throws IOException If the file can't be opened or locked.
+     */
+    public static HostSlotLease acquire(File file) throws IOException {
+        return acquire(file, MAX_SLOTS);
+    }
+
+    /**
+     * Lease one of the given number of slots, creating the file if needed. The search starts at this process's own
+     * pid, so most processes get the slot they would have used anyway, and throws an IllegalStateException if every
+     * slot is held.
+     * @param file Lock file shared by the JVMs on this host.
+     * @param slots Number of slots, between 1 and 65536. All users of the file should agree on this.
+     * @return The lease.
+     * @throws IOException If the file can't be opened or locked.
+     */
+    public static HostSlotLease acquire(File file, int slots) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("Tried to lease a slot from a null file");
+        if (slots < 1 || slots > MAX_SLOTS)
+            throw new IllegalArgumentException("Slot count must be between 1 and " + MAX_SLOTS + ": " + slots);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            int start = startSlot(slots);
+
+            for (int i = 0; i < slots; i++) {
+                int slot = (start + i) % slots;
+                FileLock lock;
+                try {
+                    lock = channel.tryLock(slot, 1, false);
+                } catch (OverlappingFileLockException e) {
+                    // held by another lease in this JVM
+                    continue;
+                }
+                if (lock == null)
+                    continue;
+
+                // ids from a previous holder of the slot are stamped no later than the moment it released the lock,
+                // so waiting for the clock to move past the moment of acquisition keeps them apart from ours
+                long acquired = System.currentTimeMillis();
+                while (System.currentTimeMillis() <= acquired)
+                    Thread.yield();
+
+                HostSlotLease lease = new HostSlotLease(file, raf, lock, slot);
+                raf = null;
+                return lease;
+            }
+            throw new IllegalStateException("All " + slots + " slots of " + file + " are leased");
+        } finally {
+            if (raf != null)
+                raf.close();
+        }
+    }
+
+    /**
+     * Get the slot that the search starts from, which is this process's pid as NodeIdentity detects it, so that it
+     * works on Java 6 - 8 as well.
+     * @param slots Number of slots.
+     * @return The first slot to try.
+     */
+    static int startSlot(int slots) {
+        return Math.max(NodeIdentity.detectProcessId(), 0) % slots;
+    }
+
+    /**
+     * Get the leased slot, to be used as the process id of generators on this JVM.
+     * @return The slot, between 0 and the slot count.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Get the lock file the slot was leased from.
+     * @return The lock file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Check whether the slot is still held, which it is until the lease is closed.
+     * @return True if the slot is held.
+     */
+    public boolean isValid() {
+        return lock.isValid();
+    }
+
+    /**
+     * Release the slot. Generators using it as their process id must not generate any more ids after this, as
+     * another JVM may lease the slot.
+     * @throws IOException If the lock can't be released.
+     */
+    public void close() throws IOException {
+        try {
+            if (lock.isValid())
+                lock.release();
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HostSlotLease(" + file + ", slot " + slot + ")";
+    }
+}
@@ -0,0 +1,87 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+/**
+ * Routes ids by consistent hashing of their leading bytes, using the jump consistent hash of Lamping and Veach. When
+ * the number of shards grows from n to n + 1, only 1 / (n + 1) of the ids move, all of them to the new shard, and no
+ * lookup table is needed. The prefix is mixed before hashing, so sequential prefixes spread evenly.
+ *
+ * As with ModuloShardRouter, a shorter prefix keeps ids generated in sequential mode on the same shard for longer.
+ */
+public class JumpHashShardRouter extends ShardRouter {
+    private final int shards;
+    private final int shift;
+
+    /**
+     * Create a router over the given number of shards using the 4 byte counter prefix.
+     * @param shards Number of shards, at least 1.
+     */
+    public JumpHashShardRouter(int shards) {
+        this(shards, 4);
+    }
+
+    /**
+     * Create a router over the given number of shards using a prefix of the given length.
+     * @param shards Number of shards, at least 1.
+     * @param prefixBytes Number of leading bytes to route by, from 1 to 8.
+     */
+    public JumpHashShardRouter(int shards, int prefixBytes) {
+        checkShardCount(shards);
+        this.shift = prefixShift(prefixBytes);
+        this.shards = shards;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shards;
+    }
+
+    @Override
+    public int route(long hi, long lo) {
+        // the MurmurHash3 finalizer, since the jump hash needs well distributed keys
+        long key = hi >>> shift;
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+
+        long b = -1;
+        long j = 0;
+        while (j < shards) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+/**
+ * Clock that only changes when told to, for deterministic tests. Setting it to an earlier time behaves like a real
+ * clock regression: it's counted and the clock keeps returning the latest time until it's set past that again.
+ */
+public class ManualMillisClock extends MillisClock {
+    private long time;
+    private boolean regressing;
+
+    /**
+     * Create a clock starting at the given time.
+     * @param time UTC milliseconds since the Unix epoch.
+     */
+    public ManualMillisClock(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return time;
+    }
+
+    /**
+     * Set the time.
+     * @param now UTC milliseconds since the Unix epoch.
+     */
+    public synchronized void set(long now) {
+        if (now >= time) {
+            time = now;
+            regressing = false;
+        }
+        else if (!regressing) {
+            regressed(time, now);
+            regressing = true;
+        }
+    }
+
+    /**
+     * Move the time forward or, with a negative argument, backward.
+     * @param millis Number of milliseconds to move the time by.
+     */
+    public synchronized void advance(long millis) {
+        set(time + millis);
+    }
+}
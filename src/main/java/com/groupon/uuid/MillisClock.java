@@ -0,0 +1,70 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of the millisecond timestamps embedded in generated vB UUIDs. Implementations are expected to be cheap to
+ * read and safe to share between threads. Clocks that can notice the time moving backwards, for example after an NTP
+ * step, hold on to the latest time they have returned until real time catches up, and count each such regression
+ * instead of handing out older timestamps.
+ */
+public abstract class MillisClock {
+    private final AtomicLong regressions = new AtomicLong();
+
+    /**
+     * Get the current time.
+     * @return UTC milliseconds since the Unix epoch.
+     */
+    public abstract long currentTimeMillis();
+
+    /**
+     * Get the number of times this clock has seen time move backwards. Clocks that can't detect this always return 0.
+     * @return Number of regressions seen since the clock was created.
+     */
+    public long getRegressionCount() {
+        return regressions.get();
+    }
+
+    /**
+     * Record that the underlying time source moved backwards and notify any UUIDEventListeners. Subclasses call this
+     * once per regression, not once per read while the time is being held.
+     * @param from The latest time returned before the regression.
+     * @param to The earlier time the underlying source moved back to.
+     */
+    protected void regressed(long from, long to) {
+        regressions.incrementAndGet();
+        UUIDMetrics.clockRegressed(this, from, to);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+/**
+ * Routes ids to the shard given by their leading bytes, read as an unsigned number, modulo the number of shards. This
+ * matches tables that are partitioned by a hash of the key prefix computed as a remainder.
+ *
+ * With a 4 byte prefix (the whole counter in vB ids) even sequential mode ids are spread across shards. A shorter
+ * prefix keeps ids generated in sequential mode on the same shard for longer, while variable mode ids, whose first
+ * character changes with every id, are still spread.
+ */
+public class ModuloShardRouter extends ShardRouter {
+    private final int shards;
+    private final int shift;
+
+    /**
+     * Create a router over the given number of shards using the 4 byte counter prefix.
+     * @param shards Number of shards, at least 1.
+     */
+    public ModuloShardRouter(int shards) {
+        this(shards, 4);
+    }
+
+    /**
+     * Create a router over the given number of shards using a prefix of the given length.
+     * @param shards Number of shards, at least 1.
+     * @param prefixBytes Number of leading bytes to route by, from 1 to 8.
+     */
+    public ModuloShardRouter(int shards, int prefixBytes) {
+        checkShardCount(shards);
+        this.shift = prefixShift(prefixBytes);
+        this.shards = shards;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shards;
+    }
+
+    @Override
+    public int route(long hi, long lo) {
+        long prefix = hi >>> shift;
+        if (prefix >= 0)
+            return (int) (prefix % shards);
+
+        // only an 8 byte prefix can be negative, so take the unsigned remainder of its top 63 bits and the last bit
+        return (int) (((((prefix >>> 1) % shards) << 1) + (prefix & 1)) % shards);
+    }
+}
@@ -0,0 +1,387 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.NetworkInterface;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+/**
+ * Node identity embedded in vB UUIDs: the process id, of which the lowest 16 bits are used, and the 6-byte MAC address,
+ * of which the last 28 bits are used.
+ *
+ * The identity of this process is resolved once, the first time local() is called, which happens when the default
+ * generator is first used, when a UUIDGenerator is created without an identity, or when UUID.PID or UUID.MAC is first
+ * read. Parsing and formatting ids doesn't resolve it. Each half is taken from the first of these that is available:
+ *
+ * - an identity passed to setLocal() before that point
+ * - the com.groupon.uuid.pid and com.groupon.uuid.mac system properties
+ * - the LOCALITY_UUID_PID and LOCALITY_UUID_MAC environment variables
+ * - for the process id, a slot leased with HostSlotLease from the file named by the com.groupon.uuid.slots system
+ *   property or LOCALITY_UUID_SLOTS environment variable, held until the JVM exits
+ * - a cheap lookup of the running system: ProcessHandle on Java 9 and later or the /proc/self link on Linux for the
+ *   process id, and the interfaces listed in /sys/class/net on Linux for the MAC address
+ * - the RuntimeMXBean name for the process id, and NetworkInterface enumeration for the MAC address
+ *
+ * The last step starts the JMX and networking subsystems and can take tens of milliseconds, so it is only used when
+ * nothing cheaper works. Deployments that already know their identity, or that run several JVMs per host and want
+ * to assign process ids themselves, can pin it with the properties or environment variables. MAC addresses are
+ * written as 12 hex digits, optionally separated by ':' or '-'.
+ *
+ * A slot is only leased when the identity is resolved, so UUID.PID reports the leased slot from that point on. If the
+ * lease fails, local() throws an IllegalStateException and tries again on the next call, so the first use of the
+ * default generator fails with that exception, while parsing and formatting ids keep working.
+ */
+public final class NodeIdentity {
+    public static final String PID_PROPERTY   = "com.groupon.uuid.pid";
+    public static final String MAC_PROPERTY   = "com.groupon.uuid.mac";
+    public static final String PID_ENV        = "LOCALITY_UUID_PID";
+    public static final String MAC_ENV        = "LOCALITY_UUID_MAC";
+    public static final String SLOTS_PROPERTY = "com.groupon.uuid.slots";
+    public static final String SLOTS_ENV      = "LOCALITY_UUID_SLOTS";
+
+    private static final int MAX_PID          = 65536;
+    private static final int LOOPBACK_TYPE    = 772;
+    private static final File PROC_SELF       = new File("/proc/self");
+    private static final File SYS_NET         = new File("/sys/class/net");
+
+    private static NodeIdentity local;
+    // kept reachable so that the slot stays locked for the life of the JVM
+    private static HostSlotLease lease;
+
+    private final int processId;
+    private final byte[] mac;
+
+    /**
+     * Create a node identity. Process ids are reduced modulo 65536, as when they are detected.
+     * @param processId Non-negative process id.
+     * @param mac MAC address, must be 6 bytes long.
+     */
+    public NodeIdentity(int processId, byte[] mac) {
+        if (processId < 0)
+            throw new IllegalArgumentException("Process id must not be negative: " + processId);
+        if (mac == null || mac.length != 6)
+            throw new IllegalArgumentException("MAC address must be 6 bytes long");
+
+        this.processId = processId % MAX_PID;
+        this.mac = mac.clone();
+    }
+
+    /**
+     * Get the identity of this process, resolving it on the first call. Throws an IllegalStateException, and leaves
+     * the identity unresolved, if a process id slot is configured but can't be leased.
+     * @return The local node identity.
+     */
+    public static synchronized NodeIdentity local() {
+        if (local == null) {
+            String pidSetting = setting(PID_PROPERTY, PID_ENV);
+            String slotsSetting = setting(SLOTS_PROPERTY, SLOTS_ENV);
+            if (pidSetting == null && slotsSetting != null) {
+                lease = leaseSlot(slotsSetting.trim());
+                pidSetting = String.valueOf(lease.getSlot());
+            }
+            local = resolve(pidSetting, setting(MAC_PROPERTY, MAC_ENV));
+        }
+        return local;
+    }
+
+    /**
+     * Set the identity of this process. This must be called before the identity is first resolved, see above, as it is
+     * fixed from then on; setting a different identity after that point throws an IllegalStateException.
+     * @param identity Identity to use for UUID.PID, UUID.MAC and the default generator.
+     */
+    public static synchronized void setLocal(NodeIdentity identity) {
+        if (identity == null)
+            throw new IllegalArgumentException("Tried to set a null node identity");
+        if (local != null && !local.equals(identity))
+            throw new IllegalStateException("Node identity already resolved as " + local);
+
+        local = identity;
+    }
+
+    /**
+     * Get the process id, between 0 and 65535.
+     * @return The process id.
+     */
+    public int getProcessId() {
+        return processId;
+    }
+
+    /**
+     * Get the MAC address.
+     * @return Copy of the 6-byte MAC address.
+     */
+    public byte[] getMacAddress() {
+        return mac.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof NodeIdentity))
+            return false;
+
+        NodeIdentity that = (NodeIdentity) o;
+        return processId == that.processId && Arrays.equals(mac, that.mac);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * processId + Arrays.hashCode(mac);
+    }
+
+    /**
+     * Get the identity as the process id and colon separated MAC address, for example 4242@02:fc:00:00:00:01.
+     * @return String form of the identity.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(24).append(processId).append('@');
+        for (int i = 0; i < mac.length; i++) {
+            if (i > 0)
+                sb.append(':');
+            sb.append(Character.forDigit((mac[i] >> 4) & 0xF, 16)).append(Character.forDigit(mac[i] & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resolve an identity from configured settings, detecting whichever half is not configured.
+     * @param pidSetting Configured process id, or null to detect it.
+     * @param macSetting Configured MAC address, or null to detect it.
+     * @return The resolved identity.
+     */
+    static NodeIdentity resolve(String pidSetting, String macSetting) {
+        int processId = pidSetting != null ? parseProcessId(pidSetting) : detectProcessId();
+        byte[] mac = macSetting != null ? parseMac(macSetting) : detectMac();
+        return new NodeIdentity(processId, mac);
+    }
+
+    /**
+     * Parse a configured process id, throwing an IllegalArgumentException if it is not a non-negative integer.
+     */
+    static int parseProcessId(String setting) {
+        try {
+            int processId = Integer.parseInt(setting.trim());
+            if (processId >= 0)
+                return processId % MAX_PID;
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid process id setting: " + setting);
+    }
+
+    /**
+     * Parse a configured MAC address of 12 hex digits, optionally separated by ':' or '-', throwing an
+     * IllegalArgumentException if it is malformed.
+     */
+    static byte[] parseMac(String setting) {
+        String digits = setting.trim();
+        // digits of octet i start at 3 * i when separated, 2 * i when not
+        int stride = digits.length() == 17 ? 3 : 2;
+        if (digits.length() != 12 && stride == 2)
+            throw new IllegalArgumentException("Invalid MAC address setting: " + setting);
+
+        byte[] mac = new byte[6];
+        char separator = stride == 3 ? digits.charAt(2) : 0;
+        for (int i = 0; i < 6; i++) {
+            int at = stride * i;
+            int high = Character.digit(digits.charAt(at), 16);
+            int low = Character.digit(digits.charAt(at + 1), 16);
+            boolean separated = stride == 2 || i == 5 || digits.charAt(at + 2) == separator;
+            if (high < 0 || low < 0 || !separated || (stride == 3 && separator != ':' && separator != '-'))
+                throw new IllegalArgumentException("Invalid MAC address setting: " + setting);
+            mac[i] = (byte) (high << 4 | low);
+        }
+        return mac;
+    }
+
+    /**
+     * Lease a process id slot from a lock file. Falling back to the real pid would quietly give up the uniqueness the
+     * file was configured for, so failures are thrown.
+     */
+    private static HostSlotLease leaseSlot(String path) {
+        try {
+            return HostSlotLease.acquire(new File(path));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not lease a process id slot from " + path, e);
+        }
+    }
+
+    private static String setting(String property, String env) {
+        String value = System.getProperty(property);
+        if (value == null || value.trim().length() == 0)
+            value = System.getenv(env);
+        return value == null || value.trim().length() == 0 ? null : value;
+    }
+
+    /**
+     * Detect this process's id from ProcessHandle on Java 9 and later, then the /proc/self link, then the
+     * RuntimeMXBean name.
+     * @return The process id, modulo 65536.
+     */
+    static int detectProcessId() {
+        long pid = Platform.processId();
+        if (pid < 0)
+            pid = procSelfPid();
+        if (pid < 0)
+            pid = jmxPid();
+        return (int) (pid % MAX_PID);
+    }
+
+    /**
+     * Get the process id from the /proc/self link, which points to /proc/[pid] on Linux.
+     * @return The process id, or -1 if /proc/self is not available.
+     */
+    private static long procSelfPid() {
+        try {
+            return PROC_SELF.exists() ? Long.parseLong(PROC_SELF.getCanonicalFile().getName()) : -1;
+        } catch (IOException e) {
+            return -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get the process id from the RuntimeMXBean name. This may fail in some JVM implementations; the name is
+     * something like '[pid]@[hostname]', at least in Sun / Oracle JVMs.
+     */
+    private static long jmxPid() {
+        final String jvmName = ManagementFactory.getRuntimeMXBean().getName();
+        final int index = jvmName.indexOf('@');
+
+        if (index < 1)
+            throw new RuntimeException("Could not get PID");
+
+        try {
+            return Long.parseLong(jvmName.substring(0, index));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Could not get PID");
+        }
+    }
+
+    private static byte[] detectMac() {
+        byte[] mac = sysNetMac();
+        return mac != null ? mac : networkInterfaceMac();
+    }
+
+    /**
+     * Get a MAC address from /sys/class/net on Linux. Interfaces backed by a device are preferred over virtual ones
+     * such as bridges, whose addresses are often made up, and within each group the interface with the lowest index
+     * wins, so the same interface is chosen on every start. Loopback interfaces and all-zero addresses are ignored.
+     * @return 6-byte MAC address, or null if /sys/class/net is not available or lists no usable interface.
+     */
+    private static byte[] sysNetMac() {
+        String[] names = SYS_NET.list();
+        if (names == null)
+            return null;
+
+        byte[] best = null;
+        boolean bestDevice = false;
+        int bestIndex = Integer.MAX_VALUE;
+        for (String name : names) {
+            File dir = new File(SYS_NET, name);
+            try {
+                if (Integer.parseInt(readLine(new File(dir, "type"))) == LOOPBACK_TYPE)
+                    continue;
+
+                byte[] mac = parseMac(readLine(new File(dir, "address")));
+                if (isZero(mac))
+                    continue;
+
+                boolean device = new File(dir, "device").exists();
+                int index = Integer.parseInt(readLine(new File(dir, "ifindex")));
+                if (best == null || (device && !bestDevice) || (device == bestDevice && index < bestIndex)) {
+                    best = mac;
+                    bestDevice = device;
+                    bestIndex = index;
+                }
+            } catch (IOException e) {
+                // interface went away or is not readable
+            } catch (IllegalArgumentException e) {
+                // not an Ethernet style interface, or an unexpected format
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the first MAC address found by iterating through the network interfaces, ignoring the loopback interface and
+     * any virtual interfaces (which often have made-up addresses). If the machine is not connected to a network it has
+     * no active MAC address, and a zeroed array is returned.
+     */
+    private static byte[] networkInterfaceMac() {
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            byte[] mac = null;
+
+            while (interfaces != null && interfaces.hasMoreElements() && (mac == null || mac.length != 6)) {
+                NetworkInterface netInterface = interfaces.nextElement();
+                if (netInterface.isLoopback() || netInterface.isVirtual())
+                    continue;
+                mac = netInterface.getHardwareAddress();
+            }
+
+            return mac != null && mac.length == 6 ? mac : new byte[] {0, 0, 0, 0, 0, 0};
+        } catch (Exception e) {
+            throw new RuntimeException("Could not get MAC address");
+        }
+    }
+
+    private static boolean isZero(byte[] mac) {
+        for (byte b : mac) {
+            if (b != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static String readLine(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[64];
+            int n = 0;
+            for (int r; n < buf.length && (r = in.read(buf, n, buf.length - n)) > 0; )
+                n += r;
+            return new String(buf, 0, n, "US-ASCII").trim();
+        } finally {
+            in.close();
+        }
+    }
+}
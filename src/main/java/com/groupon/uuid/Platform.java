@@ -0,0 +1,107 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+/**
+ * Low-level operations that have faster implementations on newer versions of Java. The library is built for Java 6,
+ * and this class holds the plain Java 6 versions. The jar is a multi-release jar, and on Java 9 and later this class
+ * is replaced by the version in src/main/java9, which uses byte array views and the newer library methods that the
+ * JIT compiles to single instructions. Both versions must behave identically.
+ */
+final class Platform {
+    private Platform() {
+    }
+
+    /**
+     * Read 8 bytes in big-endian order from a byte array as a long.
+     * @param b Byte array to read from.
+     * @param offset Index of the first (most significant) byte.
+     * @return The long value of the 8 bytes.
+     */
+    static long getLong(byte[] b, int offset) {
+        return  ((long) b[offset    ] & 0xFF) << 56 |
+                ((long) b[offset + 1] & 0xFF) << 48 |
+                ((long) b[offset + 2] & 0xFF) << 40 |
+                ((long) b[offset + 3] & 0xFF) << 32 |
+                ((long) b[offset + 4] & 0xFF) << 24 |
+                ((long) b[offset + 5] & 0xFF) << 16 |
+                ((long) b[offset + 6] & 0xFF) << 8  |
+                ((long) b[offset + 7] & 0xFF);
+    }
+
+    /**
+     * Write a long as 8 bytes in big-endian order into a byte array.
+     * @param b Byte array to write into.
+     * @param offset Index of the first (most significant) byte.
+     * @param value The value to write.
+     */
+    static void putLong(byte[] b, int offset, long value) {
+        b[offset    ] = (byte) (value >> 56);
+        b[offset + 1] = (byte) (value >> 48);
+        b[offset + 2] = (byte) (value >> 40);
+        b[offset + 3] = (byte) (value >> 32);
+        b[offset + 4] = (byte) (value >> 24);
+        b[offset + 5] = (byte) (value >> 16);
+        b[offset + 6] = (byte) (value >> 8);
+        b[offset + 7] = (byte) (value);
+    }
+
+    /**
+     * Compare two longs as if they were unsigned, by flipping the sign bits so that the signed comparison agrees.
+     * @param a First value.
+     * @param b Second value.
+     * @return A negative number, zero, or a positive number if a is less than, equal to, or greater than b.
+     */
+    static int compareUnsigned(long a, long b) {
+        a += Long.MIN_VALUE;
+        b += Long.MIN_VALUE;
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /**
+     * Get the id of the current process from ProcessHandle, which is looked up reflectively here because it only
+     * exists on Java 9 and later. This still finds it when the jar is used on a newer JVM without multi-release
+     * support, for example after being repackaged.
+     * @return The process id, or -1 if ProcessHandle is not available.
+     */
+    static long processId() {
+        try {
+            Class<?> handle = Class.forName("java.lang.ProcessHandle");
+            Object current = handle.getMethod("current").invoke(null);
+            return (Long) handle.getMethod("pid").invoke(current);
+        } catch (Exception e) {
+            return -1;
+        } catch (LinkageError e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Routes ids to regions of a table split into key ranges, such as an HBase table. The table is described by its split
+ * keys in increasing unsigned byte order: n split keys make n + 1 regions, where region 0 holds every id below the
+ * first split key and region i holds ids from split key i - 1 up to but not including split key i. An id is compared
+ * to the split keys in its 16-byte raw form, just as the database would compare a row key, and routing is a binary
+ * search over the split keys held as pairs of longs.
+ */
+public class RangeShardRouter extends ShardRouter {
+    private final int regions;
+    // the split keys with their sign bits flipped, so that signed comparisons give unsigned order
+    private final long[] splitHi;
+    private final long[] splitLo;
+
+    /**
+     * Create a router for a table with the given split keys.
+     * @param splitKeys Split keys in strictly increasing unsigned byte order, none of them empty. Keys shorter than 16
+     *                  bytes compare as if padded with zeros; longer keys, as used for composite row keys, compare
+     *                  as the database would.
+     */
+    public RangeShardRouter(byte[]... splitKeys) {
+        long[] hi = new long[splitKeys.length];
+        long[] lo = new long[splitKeys.length];
+        int n = 0;
+
+        for (int i = 0; i < splitKeys.length; i++) {
+            byte[] key = splitKeys[i];
+            if (key == null || key.length == 0)
+                throw new IllegalArgumentException("split key " + i + " is empty");
+            checkIncreasing(splitKeys, i);
+
+            byte[] padded = new byte[16];
+            System.arraycopy(key, 0, padded, 0, Math.min(key.length, 16));
+            long h = UUID.getLong(padded, 0);
+            long l = UUID.getLong(padded, 8);
+
+            if (key.length > 16) {
+                // a 16 byte id equal to the first 16 bytes sorts before the longer key, so split after it instead
+                l++;
+                if (l == 0)
+                    h++;
+                if ((h | l) == 0) {
+                    // no id sorts after this key, so the regions from here on are never routed to
+                    continue;
+                }
+            }
+
+            hi[n] = h + Long.MIN_VALUE;
+            lo[n] = l + Long.MIN_VALUE;
+            n++;
+        }
+
+        this.regions = splitKeys.length + 1;
+        this.splitHi = Arrays.copyOf(hi, n);
+        this.splitLo = Arrays.copyOf(lo, n);
+    }
+
+    /**
+     * Create a router for a table with the given number of regions, splitting the range of the first 8 bytes evenly.
+     * This matches tables pre-split uniformly over the key space, and suits ids generated in variable mode.
+     * @param regions Number of regions, at least 1.
+     * @return The router.
+     */
+    public static RangeShardRouter uniform(int regions) {
+        checkShardCount(regions);
+
+        byte[][] splitKeys = new byte[regions - 1][];
+        BigInteger range = BigInteger.ONE.shiftLeft(64);
+        for (int i = 1; i < regions; i++) {
+            long split = range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(regions)).longValue();
+            byte[] key = new byte[8];
+            for (int b = 0; b < 8; b++)
+                key[b] = (byte) (split >>> (56 - 8 * b));
+            splitKeys[i - 1] = key;
+        }
+        return new RangeShardRouter(splitKeys);
+    }
+
+    @Override
+    public int getShardCount() {
+        return regions;
+    }
+
+    @Override
+    public int route(long hi, long lo) {
+        hi += Long.MIN_VALUE;
+        lo += Long.MIN_VALUE;
+
+        // find the number of split keys at or below the id
+        int low = 0;
+        int high = splitHi.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long h = splitHi[mid];
+            if (h < hi || (h == hi && splitLo[mid] <= lo))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Check that split key i sorts after split key i - 1.
+     */
+    private static void checkIncreasing(byte[][] splitKeys, int i) {
+        if (i == 0)
+            return;
+
+        byte[] a = splitKeys[i - 1];
+        byte[] b = splitKeys[i];
+        int order = a.length - b.length;
+        for (int j = 0; j < Math.min(a.length, b.length); j++) {
+            if (a[j] != b[j]) {
+                order = (a[j] & 0xFF) - (b[j] & 0xFF);
+                break;
+            }
+        }
+        if (order >= 0)
+            throw new IllegalArgumentException("split key " + i + " does not sort after split key " + (i - 1));
+    }
+}
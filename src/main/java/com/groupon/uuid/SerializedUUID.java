@@ -0,0 +1,80 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Serialized form of a UUID, written in its place by Java serialization. The content is the 16 bytes of the id and
+ * nothing else, written and read directly rather than through reflection, so after the class description at the start
+ * of a stream each id takes 25 bytes including the stream's framing. Keeping the serialized form in its own class lets
+ * UUID keep its fields final and its no-argument constructor for generating ids. Use UUIDCodec for exactly 16 bytes
+ * per id.
+ */
+final class SerializedUUID implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private long mostSigBits;
+    private long leastSigBits;
+
+    /**
+     * Constructor for deserialization.
+     */
+    public SerializedUUID() {
+    }
+
+    SerializedUUID(long mostSigBits, long leastSigBits) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(mostSigBits);
+        out.writeLong(leastSigBits);
+    }
+
+    public void readExternal(ObjectInput in) throws IOException {
+        mostSigBits = in.readLong();
+        leastSigBits = in.readLong();
+    }
+
+    /**
+     * Replace this with the UUID it holds once it has been read.
+     */
+    private Object readResolve() {
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Maps UUIDs to shards, regions or partitions numbered from 0, working directly on the UUID content instead of its
+ * string form. Routers look at the leading bytes of an id, which hold the counter in vB ids, so ids generated in
+ * variable mode spread across shards while ids generated in sequential mode stay together. See RangeShardRouter for
+ * tables split by key ranges, such as HBase regions, and ModuloShardRouter and JumpHashShardRouter for tables split by
+ * hash.
+ *
+ * Routers are immutable and safe to share between threads.
+ */
+public abstract class ShardRouter {
+
+    /**
+     * Get the number of shards ids are routed to.
+     * @return Number of shards, at least 1.
+     */
+    public abstract int getShardCount();
+
+    /**
+     * Get the shard for an id given as two longs.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return Shard index from 0 to getShardCount() - 1.
+     */
+    public abstract int route(long hi, long lo);
+
+    /**
+     * Get the shard for an id.
+     * @param id UUID to route.
+     * @return Shard index from 0 to getShardCount() - 1.
+     */
+    public int route(UUID id) {
+        return route(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Get the shard for an id in its 16-byte raw form in a byte array.
+     * @param raw Array holding the id.
+     * @param offset Index of the first byte of the id.
+     * @return Shard index from 0 to getShardCount() - 1.
+     */
+    public int route(byte[] raw, int offset) {
+        if (offset < 0 || offset > raw.length - 16)
+            throw new IndexOutOfBoundsException("need 16 bytes at offset " + offset + " of array length " + raw.length);
+        return route(UUID.getLong(raw, offset), UUID.getLong(raw, offset + 8));
+    }
+
+    /**
+     * Get the shard for an id in its 16-byte raw form at the buffer's position, without moving the position.
+     * @param raw Buffer holding the id.
+     * @return Shard index from 0 to getShardCount() - 1.
+     */
+    public int route(ByteBuffer raw) {
+        if (raw.remaining() < 16)
+            throw new BufferUnderflowException();
+        int position = raw.position();
+        return route(UUID.getLong(raw, position), UUID.getLong(raw, position + 8));
+    }
+
+    /**
+     * Get the shard for each of a run of ids in a long array, each given as its most significant half followed by its
+     * least significant half.
+     * @param ids Array to read from.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to route.
+     * @param dest Array to write the shard for each id into.
+     * @param destOffset Index in the destination array of the shard for the first id.
+     */
+    public void route(long[] ids, int offset, int count, int[] dest, int destOffset) {
+        UUIDTable.checkIds(ids, offset, count);
+        if (destOffset < 0 || destOffset > dest.length - count)
+            throw new IndexOutOfBoundsException("need " + count + " shards at offset " + destOffset +
+                    " of array length " + dest.length);
+
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = route(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+    }
+
+    /**
+     * Group a run of ids by shard. The ids are copied into the destination array with all of shard 0's ids first,
+     * then shard 1's and so on, each shard's ids in their original order, so that a batch can be split into one
+     * write per shard. Each id is routed once.
+     * @param ids Array to read from, each id as its most significant half followed by its least significant half.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to group.
+     * @param dest Array to write the grouped ids into, which must not overlap the ids being read.
+     * @param destOffset Index in the destination array of the first long.
+     * @return Array of getShardCount() + 1 id positions relative to destOffset, where shard s's ids are those from
+     *         position result[s] up to but not including result[s + 1].
+     */
+    public int[] partition(long[] ids, int offset, int count, long[] dest, int destOffset) {
+        UUIDTable.checkIds(ids, offset, count);
+        UUIDTable.checkIds(dest, destOffset, count);
+
+        int shards = getShardCount();
+        int[] shardOf = new int[count];
+        int[] starts = new int[shards + 1];
+        for (int i = 0; i < count; i++) {
+            int shard = route(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+            shardOf[i] = shard;
+            starts[shard + 1]++;
+        }
+        for (int s = 0; s < shards; s++)
+            starts[s + 1] += starts[s];
+
+        int[] next = new int[shards];
+        System.arraycopy(starts, 0, next, 0, shards);
+        for (int i = 0; i < count; i++) {
+            int to = destOffset + 2 * next[shardOf[i]]++;
+            dest[to] = ids[offset + 2 * i];
+            dest[to + 1] = ids[offset + 2 * i + 1];
+        }
+        return starts;
+    }
+
+    /**
+     * Check a shard count given to a constructor.
+     */
+    static void checkShardCount(int shards) {
+        if (shards < 1)
+            throw new IllegalArgumentException("shard count must be at least 1: " + shards);
+    }
+
+    /**
+     * Check a prefix length given to a constructor and get the shift that extracts a prefix of that many bytes from
+     * the first half of an id.
+     */
+    static int prefixShift(int prefixBytes) {
+        if (prefixBytes < 1 || prefixBytes > 8)
+            throw new IllegalArgumentException("prefix must be from 1 to 8 bytes: " + prefixBytes);
+        return 64 - 8 * prefixBytes;
+    }
+}
@@ -32,23 +32,23 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.groupon.uuid;
 
-import java.lang.management.ManagementFactory;
-import java.net.NetworkInterface;
-import java.security.MessageDigest;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.Enumeration;
-import java.util.Random;
-import java.util.TimeZone;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * See README.md for more information. This is a UUID implementation that uses vB (custom) UUIDs by default, but can
- * parse and hold validly formatted UUIDs of any type. The content is stored as a byte array, and some effort has been
- * put into making this look at least a little bit like the java.util.UUID implementation. Probably the most common
- * uses of this class will be
+ * parse and hold validly formatted UUIDs of any type. The content is stored as two longs, the first and second half of
+ * the 16 UUID bytes in big-endian order, and some effort has been put into making this look at least a little bit like
+ * the java.util.UUID implementation. Probably the most common uses of this class will be
  *
  * UUID id = new UUID();
  * to generate a new vB UUID
@@ -58,69 +58,46 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * String s = id.toString();
  * to serialize the UUID to a String
+ *
+ * UUIDs are ordered by their content as unsigned bytes, the order HBase and MongoDB keep raw binary keys in. Note that
+ * this differs from java.util.UUID, which compares each half as a signed long.
+ *
+ * UUIDs are serializable, and are written as their 16 bytes. UUIDCodec reads and writes the same binary form, one id
+ * or a whole array of them at a time, to buffers, streams and channels.
  */
-public class UUID {
-    public static final int PID                 = processId();
-    public static final byte[] MAC              = macAddress();
+public class UUID implements Comparable<UUID>, Serializable, LocalNode {
+    private static final long serialVersionUID  = 1L;
+
+    // PID and MAC are inherited from LocalNode, so that loading this class to parse ids doesn't resolve them
+
+    /**
+     * Orders vB ids by their embedded timestamp, then by the counter in bytes 0 - 3, then by the rest of the content,
+     * so that ids generated in the same millisecond stay in a consistent order and only equal ids compare as equal.
+     */
+    public static final Comparator<UUID> TIMESTAMP_ORDER = new Comparator<UUID>() {
+        public int compare(UUID a, UUID b) {
+            return compareByTimestamp(a.mostSigBits, a.leastSigBits, b.mostSigBits, b.leastSigBits);
+        }
+    };
 
-    private static final int MAX_PID            = 65536;
-    private static final int INCREMENT          = 198491317;
     private static final char VERSION           = 'b';
-    private static final int VERSION_DEC        = mapToByte(VERSION, '0');
-    private static final AtomicInteger COUNTER  = new AtomicInteger(new Random(System.nanoTime()).nextInt());
+    private static final byte[] HEX_VALUES      = hexValues();
+    static final int VERSION_DEC                = HEX_VALUES[VERSION] << 4;
+    private static final long TIMESTAMP_MASK    = 0xFFFFFFFFFFFFL;
     private static final char[] HEX             =
             {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
 
-    private static boolean sequential           = false;
-    protected final byte[] content;
+    protected final long mostSigBits;
+    protected final long leastSigBits;
 
     /**
-     * Constructor that generates a new vB UUID using the current process id, MAC address, and timestamp.
+     * Constructor that generates a new vB UUID using the current process id, MAC address, and timestamp. The id comes
+     * from the default generator, see UUIDGenerator.getDefault().
      */
     public UUID() {
-        long time = new Date().getTime();
-        content = new byte[16];
-
-        if (!sequential) {
-            // atomically add a large prime number to the count and get the previous value
-            int count = COUNTER.addAndGet(INCREMENT);
-
-            // switch the order of the count in 4 bit segments and place into content
-            content[0] = (byte) (((count & 0xF) << 4) | ((count & 0xF0) >> 4));
-            content[1] = (byte) (((count & 0xF00) >> 4) | ((count & 0xF000) >> 12));
-            content[2] = (byte) (((count & 0xF0000) >> 12) | ((count & 0xF00000) >> 20));
-            content[3] = (byte) (((count & 0xF000000) >> 20) | ((count & 0xF0000000) >> 28));
-        }
-        else {
-            int count = COUNTER.addAndGet(1);
-
-            // get the count in order and place into content
-            content[0] = (byte) (count >> 24);
-            content[1] = (byte) (count >> 16);
-            content[2] = (byte) (count >> 8);
-            content[3] = (byte) (count);
-        }
-
-        // copy pid to content
-        content[4]  = (byte) (PID >> 8);
-        content[5]  = (byte) (PID);
-
-        // place UUID version (hex 'b') in first four bits and piece of mac address in
-        // the second four bits
-        content[6]  = (byte) (VERSION_DEC | (0xF & MAC[2]));
-
-        // copy rest of mac address into content
-        content[7]  = MAC[3];
-        content[8]  = MAC[4];
-        content[9]  = MAC[5];
-
-        // copy timestamp into content
-        content[10] = (byte) (time >> 40);
-        content[11] = (byte) (time >> 32);
-        content[12] = (byte) (time >> 24);
-        content[13] = (byte) (time >> 16);
-        content[14] = (byte) (time >> 8);
-        content[15] = (byte) (time);
+        UUIDGenerator generator = UUIDGenerator.getDefault();
+        mostSigBits  = generator.nextMostSignificantBits();
+        leastSigBits = generator.nextLeastSignificantBits();
     }
 
     /**
@@ -134,43 +111,37 @@ public class UUID {
             throw new IllegalArgumentException("Tried to construct UUID with null byte array");
 
         if (bytes.length != 16)
-            throw new IllegalArgumentException("Attempted to parse malformed UUID: " + Arrays.toString(bytes));
+            throw malformed(Arrays.toString(bytes));
 
-        content = Arrays.copyOf(bytes, 16);
+        mostSigBits  = getLong(bytes, 0);
+        leastSigBits = getLong(bytes, 8);
     }
 
     /**
      * Constructor that takes a UUID string representation and parses it. This constructor expects the canonical UUID
-     * String format validated by the isValidUUID() method and thros an IllegalArgumentException otherwise.
+     * String format validated by the isValidUUID() method and thros an IllegalArgumentException otherwise. Surrounding
+     * whitespace is ignored.
      * @param id UUID String representation, expected to be the valid UUID format.
      */
     public UUID(String id) {
-        if (id == null)
+        if (id == null) {
+            UUIDMetrics.parseFailed();
             throw new IllegalArgumentException("Tried to construct UUID from null String");
+        }
 
         id = id.trim();
-        char[] chars = id.toCharArray();
-
-        if (!isValidUUID(chars))
-            throw new IllegalArgumentException("Attempted to parse malformed UUID: " + id);
-
-        content = new byte[16];
-        content[0]  = mapToByte(chars[0],  chars[1]);
-        content[1]  = mapToByte(chars[2],  chars[3]);
-        content[2]  = mapToByte(chars[4],  chars[5]);
-        content[3]  = mapToByte(chars[6],  chars[7]);
-        content[4]  = mapToByte(chars[9],  chars[10]);
-        content[5]  = mapToByte(chars[11], chars[12]);
-        content[6]  = mapToByte(chars[14], chars[15]);
-        content[7]  = mapToByte(chars[16], chars[17]);
-        content[8]  = mapToByte(chars[19], chars[20]);
-        content[9]  = mapToByte(chars[21], chars[22]);
-        content[10] = mapToByte(chars[24], chars[25]);
-        content[11] = mapToByte(chars[26], chars[27]);
-        content[12] = mapToByte(chars[28], chars[29]);
-        content[13] = mapToByte(chars[30], chars[31]);
-        content[14] = mapToByte(chars[32], chars[33]);
-        content[15] = mapToByte(chars[34], chars[35]);
+
+        if (id.length() != 36)
+            throw malformed(id);
+
+        long hi = parseMostSignificantBits(id, 0);
+        long lo = parseLeastSignificantBits(id, 0);
+
+        if ((hi == -1 || lo == -1) && !validate(id, 0))
+            throw malformed(id);
+
+        mostSigBits  = hi;
+        leastSigBits = lo;
     }
 
     /**
@@ -183,8 +154,8 @@ public class UUID {
         if (uuid == null)
             throw new IllegalArgumentException("Tried to construct Locality UUID with null java.util.UUID");
 
-        content = new byte[16];
-        constructFromLongs(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        mostSigBits  = uuid.getMostSignificantBits();
+        leastSigBits = uuid.getLeastSignificantBits();
     }
 
     /**
@@ -194,42 +165,241 @@ public class UUID {
      * @param leastSigBits Long value representing the second half of the UUID.
      */
     public UUID(long mostSigBits, long leastSigBits) {
-        content = new byte[16];
-        constructFromLongs(mostSigBits, leastSigBits);
+        this.mostSigBits  = mostSigBits;
+        this.leastSigBits = leastSigBits;
     }
 
     /**
-     * This method sets the content based on the values of two longs representing the first and second half of the UUID.
-     * This method is called from the UUID(java.util.UUID) and UUID(long, long) constructors.
-     * @param hi Long value representing the first half of the UUID.
-     * @param lo Long value representing the second half of the UUID.
+     * Generate a new vB UUID and write its 16 bytes into a byte array, without creating a UUID object. This uses the
+     * default generator, like the UUID() constructor, so ids generated either way are unique with respect to each
+     * other. Throws an IndexOutOfBoundsException if there are fewer than 16 bytes after the offset.
+     * @param dest Byte array to write the UUID content into.
+     * @param offset Index in the array of the first byte of the UUID.
+     */
+    public static void generate(byte[] dest, int offset) {
+        UUIDGenerator.getDefault().generate(dest, offset);
+    }
+
+    /**
+     * Generate a new vB UUID and write its 16 bytes at the buffer's current position, advancing the position by 16.
+     * The bytes are written in big-endian order whatever the byte order of the buffer, so they always match
+     * getBytes(). Throws a BufferOverflowException, without writing anything, if fewer than 16 bytes remain.
+     * @param dest Buffer to write the UUID content into.
+     */
+    public static void generate(ByteBuffer dest) {
+        UUIDGenerator.getDefault().generate(dest);
+    }
+
+    /**
+     * Generate a new vB UUID and write it into a long array as its most significant bits followed by its least
+     * significant bits, as returned by getMostSignificantBits() and getLeastSignificantBits(). Throws an
+     * IndexOutOfBoundsException if there are fewer than 2 longs after the offset.
+     * @param dest Long array to write the UUID content into.
+     * @param offset Index in the array of the most significant half of the UUID.
+     */
+    public static void generate(long[] dest, int offset) {
+        UUIDGenerator.getDefault().generate(dest, offset);
+    }
+
+    /**
+     * Generate a batch of new vB UUIDs into a byte array, 16 bytes each, one after another from the offset. The whole
+     * range of counter values is reserved with a single atomic operation and the clock is read once, so all ids in
+     * the batch share a timestamp. Throws an IndexOutOfBoundsException, without writing anything, if the ids don't fit.
+     * @param dest Byte array to write the UUIDs into.
+     * @param offset Index in the array of the first byte of the first UUID.
+     * @param count Number of UUIDs to generate.
+     */
+    public static void generate(byte[] dest, int offset, int count) {
+        UUIDGenerator.getDefault().generate(dest, offset, count);
+    }
+
+    /**
+     * Generate a batch of new vB UUIDs at the buffer's current position, 16 big-endian bytes each, advancing the
+     * position past them. The whole range of counter values is reserved with a single atomic operation and the clock
+     * is read once. Throws a BufferOverflowException, without writing anything, if the ids don't fit.
+     * @param dest Buffer to write the UUIDs into.
+     * @param count Number of UUIDs to generate.
+     */
+    public static void generate(ByteBuffer dest, int count) {
+        UUIDGenerator.getDefault().generate(dest, count);
+    }
+
+    /**
+     * Generate a batch of new vB UUIDs into a long array, two longs each (most significant half first), one after
+     * another from the offset. The whole range of counter values is reserved with a single atomic operation and the
+     * clock is read once. Throws an IndexOutOfBoundsException, without writing anything, if the ids don't fit.
+     * @param dest Long array to write the UUIDs into.
+     * @param offset Index in the array of the most significant half of the first UUID.
+     * @param count Number of UUIDs to generate.
      */
-    private void constructFromLongs(long hi, long lo) {
-        content[ 0] = (byte) (hi >> 56);
-        content[ 1] = (byte) (hi >> 48);
-        content[ 2] = (byte) (hi >> 40);
-        content[ 3] = (byte) (hi >> 32);
-        content[ 4] = (byte) (hi >> 24);
-        content[ 5] = (byte) (hi >> 16);
-        content[ 6] = (byte) (hi >>  8);
-        content[ 7] = (byte) (hi      );
-        content[ 8] = (byte) (lo >> 56);
-        content[ 9] = (byte) (lo >> 48);
-        content[10] = (byte) (lo >> 40);
-        content[11] = (byte) (lo >> 32);
-        content[12] = (byte) (lo >> 24);
-        content[13] = (byte) (lo >> 16);
-        content[14] = (byte) (lo >>  8);
-        content[15] = (byte) (lo      );
-    }
-
-    /**
-     * This method validates a UUID String by making sure its non-null and calling isValidUUID(char[]).
+    public static void generate(long[] dest, int offset, int count) {
+        UUIDGenerator.getDefault().generate(dest, offset, count);
+    }
+
+    /**
+     * This method validates a UUID String by making sure its non-null and in the format described for
+     * isValidUUID(char[]), without copying the String.
      * @param id UUID String.
      * @return True or false based on whether the String can be used to construct a UUID.
      */
     public static boolean isValidUUID(String id) {
-        return id != null && isValidUUID(id.toCharArray());
+        return id != null && id.length() == 36 && isValidUUID(id, 0);
+    }
+
+    /**
+     * This method validates the 36 characters starting at an offset of a CharSequence in the same way as
+     * isValidUUID(char[]), without copying them. The sequence may contain other characters before or after the UUID.
+     * @param s CharSequence containing a UUID's printed representation.
+     * @param offset Index of the first character of the UUID.
+     * @return True or false based on whether the characters can be parsed as a UUID, no exceptions are thrown.
+     */
+    public static boolean isValidUUID(CharSequence s, int offset) {
+        return s != null && offset >= 0 && offset <= s.length() - 36 && validate(s, offset);
+    }
+
+    /**
+     * This method validates the 36 ASCII bytes starting at an offset of a byte array in the same way as
+     * isValidUUID(char[]). The array may contain other bytes before or after the UUID.
+     * @param ascii Byte array containing a UUID's printed representation as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @return True or false based on whether the bytes can be parsed as a UUID, no exceptions are thrown.
+     */
+    public static boolean isValidUUID(byte[] ascii, int offset) {
+        return ascii != null && offset >= 0 && offset <= ascii.length - 36 && validate(ascii, offset);
+    }
+
+    /**
+     * This method validates the 36 ASCII bytes starting at the current position of a buffer in the same way as
+     * isValidUUID(char[]). The position of the buffer is not changed.
+     * @param ascii Buffer containing a UUID's printed representation as ASCII characters.
+     * @return True or false based on whether the bytes can be parsed as a UUID, no exceptions are thrown.
+     */
+    public static boolean isValidUUID(ByteBuffer ascii) {
+        return ascii != null && ascii.remaining() >= 36 && validate(ascii, ascii.position());
+    }
+
+    /**
+     * Parse the 36 characters starting at an offset of a CharSequence as a UUID, without copying them. This throws an
+     * IllegalArgumentException if they are not in the format validated by isValidUUID(CharSequence, int).
+     * @param s CharSequence containing a UUID's printed representation.
+     * @param offset Index of the first character of the UUID.
+     * @return The parsed UUID.
+     */
+    public static UUID parse(CharSequence s, int offset) {
+        checkRegion(offset, s.length());
+        long hi = parseMostSignificantBits(s, offset);
+        long lo = parseLeastSignificantBits(s, offset);
+
+        if ((hi == -1 || lo == -1) && !validate(s, offset))
+            throw malformed(s.subSequence(offset, offset + 36));
+
+        return new UUID(hi, lo);
+    }
+
+    /**
+     * Parse the 36 ASCII bytes starting at an offset of a byte array as a UUID. This throws an
+     * IllegalArgumentException if they are not in the format validated by isValidUUID(byte[], int).
+     * @param ascii Byte array containing a UUID's printed representation as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @return The parsed UUID.
+     */
+    public static UUID parse(byte[] ascii, int offset) {
+        checkRegion(offset, ascii.length);
+        long hi = parseMostSignificantBits(ascii, offset);
+        long lo = parseLeastSignificantBits(ascii, offset);
+
+        if ((hi == -1 || lo == -1) && !validate(ascii, offset))
+            throw malformed(asciiString(ascii, offset));
+
+        return new UUID(hi, lo);
+    }
+
+    /**
+     * Parse the 36 ASCII bytes starting at the current position of a buffer as a UUID, advancing the position past
+     * them. This throws an IllegalArgumentException, leaving the position unchanged, if they are not in the format
+     * validated by isValidUUID(ByteBuffer).
+     * @param ascii Buffer containing a UUID's printed representation as ASCII characters.
+     * @return The parsed UUID.
+     */
+    public static UUID parse(ByteBuffer ascii) {
+        int position = ascii.position();
+        checkRegion(position, ascii.limit());
+        long hi = parseMostSignificantBits(ascii, position);
+        long lo = parseLeastSignificantBits(ascii, position);
+
+        if ((hi == -1 || lo == -1) && !validate(ascii, position))
+            throw malformed(asciiString(ascii, position));
+
+        // through Buffer, since Java 9's covariant ByteBuffer.position(int) doesn't exist on older runtimes
+        ((Buffer) ascii).position(position + 36);
+        return new UUID(hi, lo);
+    }
+
+    /**
+     * Parse the 36 characters starting at an offset of a CharSequence and write the UUID into a long array as its
+     * most significant bits followed by its least significant bits. Nothing is allocated unless the characters are
+     * not in the format validated by isValidUUID(CharSequence, int), in which case an IllegalArgumentException is
+     * thrown and nothing is written.
+     * @param s CharSequence containing a UUID's printed representation.
+     * @param offset Index of the first character of the UUID.
+     * @param dest Long array to write the UUID content into.
+     * @param destOffset Index in the array of the most significant half of the UUID.
+     */
+    public static void parse(CharSequence s, int offset, long[] dest, int destOffset) {
+        checkRegion(offset, s.length());
+        long hi = parseMostSignificantBits(s, offset);
+        long lo = parseLeastSignificantBits(s, offset);
+
+        if ((hi == -1 || lo == -1) && !validate(s, offset))
+            throw malformed(s.subSequence(offset, offset + 36));
+
+        dest[destOffset]     = hi;
+        dest[destOffset + 1] = lo;
+    }
+
+    /**
+     * Parse the 36 ASCII bytes starting at an offset of a byte array and write the UUID into a long array as its
+     * most significant bits followed by its least significant bits. Nothing is allocated unless the bytes are not in
+     * the format validated by isValidUUID(byte[], int), in which case an IllegalArgumentException is thrown and
+     * nothing is written.
+     * @param ascii Byte array containing a UUID's printed representation as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @param dest Long array to write the UUID content into.
+     * @param destOffset Index in the array of the most significant half of the UUID.
+     */
+    public static void parse(byte[] ascii, int offset, long[] dest, int destOffset) {
+        checkRegion(offset, ascii.length);
+        long hi = parseMostSignificantBits(ascii, offset);
+        long lo = parseLeastSignificantBits(ascii, offset);
+
+        if ((hi == -1 || lo == -1) && !validate(ascii, offset))
+            throw malformed(asciiString(ascii, offset));
+
+        dest[destOffset]     = hi;
+        dest[destOffset + 1] = lo;
+    }
+
+    /**
+     * Parse the 36 ASCII bytes starting at the current position of a buffer, advancing the position past them, and
+     * write the UUID into a long array as its most significant bits followed by its least significant bits. Nothing
+     * is allocated unless the bytes are not in the format validated by isValidUUID(ByteBuffer), in which case an
+     * IllegalArgumentException is thrown and neither the buffer nor the array are changed.
+     * @param ascii Buffer containing a UUID's printed representation as ASCII characters.
+     * @param dest Long array to write the UUID content into.
+     * @param destOffset Index in the array of the most significant half of the UUID.
+     */
+    public static void parse(ByteBuffer ascii, long[] dest, int destOffset) {
+        int position = ascii.position();
+        checkRegion(position, ascii.limit());
+        long hi = parseMostSignificantBits(ascii, position);
+        long lo = parseLeastSignificantBits(ascii, position);
+
+        if ((hi == -1 || lo == -1) && !validate(ascii, position))
+            throw malformed(asciiString(ascii, position));
+
+        dest[destOffset]     = hi;
+        dest[destOffset + 1] = lo;
+        ((Buffer) ascii).position(position + 36);
     }
 
     /**
@@ -288,13 +458,11 @@ public class UUID {
      * @return True or false based on whether or not the character is in the expected range.
      */
     private static boolean validHex(char c) {
-        return  (c >= '0' && c <= '9') ||
-                (c >= 'a' && c <= 'f') ||
-                (c >= 'A' && c <= 'F');
+        return c < 128 && HEX_VALUES[c] >= 0;
     }
 
     /**
-     * Toggle UUID generator into sequential mode, so the random segment is in order and increases by one. In
+     * Toggle the default generator into sequential mode, so the random segment is in order and increases by one. In
      * sequential mode, there is presumably a desire that UUIDs generated around the same time should begin with similar
      * characters, but this is difficult in a distributed environment. The solution is to set the counter value based
      * on a hash of the UTC date and time up to a 10 minute precision. This means that UUID classes initialized at
@@ -303,77 +471,395 @@ public class UUID {
      *
      * Calling this method more than once without toggling back to variable mode has no effect, so it probably makes
      * more sense to call this from a static context, like your main method or in a class' static initialization.
+     * This changes the mode for everything in the JVM that uses the default generator; code that needs a mode of its
+     * own should create a UUIDGenerator.
      */
     public static void useSequentialIds() {
-        if (!sequential) {
-            // get string that changes every 10 minutes
-            TimeZone tz = TimeZone.getTimeZone("UTC");
-            DateFormat df = new SimpleDateFormat("yyyyMMddHHmm");
-            df.setTimeZone(tz);
-            String date = df.format(new Date()).substring(0, 11);
-
-            // run an md5 hash of the string, no reason this needs to be secure
-            byte[] digest;
-            try {
-                MessageDigest md = MessageDigest.getInstance("MD5");
-                digest = md.digest(date.getBytes("UTF-8"));
-            }
-            catch (Exception e) {
-                throw new RuntimeException("Could not create hash of date for the sequential counter", e);
-            }
-
-            // create integer from first 4 bytes of md5 hash
-            int x;
-            x  = ((int)digest[0] & 0xFF);
-            x |= ((int)digest[1] & 0xFF) << 8;
-            x |= ((int)digest[2] & 0xFF) << 16;
-            x |= ((int)digest[3] & 0xFF) << 24;
-            COUNTER.set(x);
-        }
-        sequential = true;
+        UUIDGenerator.getDefault().useSequentialIds();
+    }
+
+    /**
+     * Toggle the default generator into rotating sequential mode, which is sequential mode with the counter re-seeded
+     * every time the clock moves into a new 10 minute UTC bucket, so that long-running processes on different machines
+     * keep generating ids in the same ranges. See UUIDGenerator.useRotatingSequentialIds().
+     */
+    public static void useRotatingSequentialIds() {
+        UUIDGenerator.getDefault().useRotatingSequentialIds();
     }
 
     /**
-     * Toggle uuid generator into variable mode, so the random segment is in reverse order and
+     * Toggle the default generator into variable mode, so the random segment is in reverse order and
      * increases by a large increment. This is the default mode.
      */
     public static void useVariableIds() {
-        sequential = false;
+        UUIDGenerator.getDefault().useVariableIds();
+    }
+
+    /**
+     * Toggle the default generator into striped mode, where each thread reserves a block of counter values with one
+     * atomic operation and hands them out to itself without touching the shared counter again until the block is used
+     * up. This removes contention on the counter when many threads generate ids at once. Blocks never overlap, so ids
+     * are just as unique as in the default mode, and in variable mode successive ids from one thread still differ in
+     * the first character. The trade-off is that ids generated by different threads are no longer interleaved in
+     * counter order, which matters only for sequential mode, where each thread's ids are in order within its own block.
+     */
+    public static void useStripedCounters() {
+        UUIDGenerator.getDefault().useStripedCounters();
+    }
+
+    /**
+     * Toggle the default generator back into shared counter mode, where each id takes its value directly from the
+     * single shared counter. This is the default mode.
+     */
+    public static void useSharedCounter() {
+        UUIDGenerator.getDefault().useSharedCounter();
+    }
+
+    /**
+     * Set the clock that the default generator takes timestamps from. By default this is a SystemMillisClock, which
+     * calls System.currentTimeMillis() for every id. A CachedMillisClock makes each read a single memory load and
+     * detects the system clock moving backwards, and a ManualMillisClock makes generated timestamps deterministic.
+     * @param millisClock The clock to use from now on.
+     */
+    public static void useClock(MillisClock millisClock) {
+        UUIDGenerator.getDefault().useClock(millisClock);
     }
 
     /**
-     * This method maps a hex character to its 4-bit representation in an int.
-     * @param x Hex character in the range ('0' - '9', 'a' - 'f', 'A' - 'F').
-     * @return 4-bit number in int representing hex offset from 0.
+     * Count a parse failure and create the exception to throw for it.
+     * @param content The content that failed to parse, for the exception message.
+     * @return The exception.
      */
-    private static int intValue(char x) {
-        if (x >= '0' && x <= '9')
-            return x - '0';
-        if (x >= 'a' && x <= 'f')
-            return x - 'a' + 10;
-        if (x >= 'A' && x <= 'F')
-            return x - 'A' + 10;
-        throw new RuntimeException("Error parsing UUID at character: " + x);
+    static IllegalArgumentException malformed(Object content) {
+        UUIDMetrics.parseFailed();
+        return new IllegalArgumentException("Attempted to parse malformed UUID: " + content);
+    }
+
+    /**
+     * Build the lookup table from ASCII characters to their 4-bit hex values, used for all parsing and validation.
+     * Characters that are not valid hex ('0' - '9', 'a' - 'f', 'A' - 'F') map to -1.
+     * @return 128-entry table of hex values.
+     */
+    private static byte[] hexValues() {
+        byte[] values = new byte[128];
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < 10; i++)
+            values['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            values['a' + i] = (byte) (10 + i);
+            values['A' + i] = (byte) (10 + i);
+        }
+        return values;
     }
 
     /**
-     * Map two hex characters to 4-bit numbers and combine them to produce 8-bit number in byte.
-     * @param a First hex character.
-     * @param b Second hex character.
-     * @return Byte representation of given hex characters.
+     * Look up the 4-bit value of a hex character.
+     * @param c Character to look up.
+     * @return The value of the character, or -1 if it is not valid hex.
      */
-    private static byte mapToByte(char a, char b) {
-        int ai = intValue(a);
-        int bi = intValue(b);
-        return (byte) ((ai << 4) | bi);
+    private static int hexValue(int c) {
+        return c < 128 && c >= 0 ? HEX_VALUES[c] : -1;
+    }
+
+    /*
+     * The parse methods below decode a run of hex characters with one table lookup per character and no branches on
+     * the character values. An invalid character contributes -1, which sets every bit of the result, and since a run
+     * is at most 12 characters (48 bits) those bits can't all be shifted out again, so any invalid character leaves
+     * the result negative. Each half of the UUID is then assembled from its runs and checked once, returning -1 for an
+     * invalid half. A valid half can also be -1 (all 'f'), so callers that see -1 fall back to validate() to tell the
+     * two apart, which keeps the common case to a single pass over the characters.
+     */
+
+    static long parseHex(CharSequence s, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+            value = (value << 4) | hexValue(s.charAt(i));
+        return value;
+    }
+
+    static long parseHex(byte[] b, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+            value = (value << 4) | hexValue(b[i]);
+        return value;
+    }
+
+    static long parseHex(ByteBuffer b, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+            value = (value << 4) | hexValue(b.get(i));
+        return value;
     }
 
     /**
-     * Get contents of this UUID as a byte array. The array is copied before returning so that it can't be changed.
+     * Parse the first half of a UUID from characters 0 - 17 of a canonical UUID representation.
+     * @param s Characters to parse, which must have at least 36 characters after the offset.
+     * @param offset Index of the first character of the UUID.
+     * @return The most significant bits of the UUID, or -1 if the characters are not a valid UUID.
+     */
+    private static long parseMostSignificantBits(CharSequence s, int offset) {
+        long a = parseHex(s, offset, 8);
+        long b = parseHex(s, offset + 9, 4);
+        long c = parseHex(s, offset + 14, 4);
+
+        if ((a | b | c) < 0 || s.charAt(offset + 8) != '-' || s.charAt(offset + 13) != '-')
+            return -1;
+
+        return (a << 32) | (b << 16) | c;
+    }
+
+    /**
+     * Parse the second half of a UUID from characters 18 - 35 of a canonical UUID representation.
+     * @param s Characters to parse, which must have at least 36 characters after the offset.
+     * @param offset Index of the first character of the UUID.
+     * @return The least significant bits of the UUID, or -1 if the characters are not a valid UUID.
+     */
+    private static long parseLeastSignificantBits(CharSequence s, int offset) {
+        long a = parseHex(s, offset + 19, 4);
+        long b = parseHex(s, offset + 24, 12);
+
+        if ((a | b) < 0 || s.charAt(offset + 18) != '-' || s.charAt(offset + 23) != '-')
+            return -1;
+
+        return (a << 48) | b;
+    }
+
+    private static long parseMostSignificantBits(byte[] s, int offset) {
+        long a = parseHex(s, offset, 8);
+        long b = parseHex(s, offset + 9, 4);
+        long c = parseHex(s, offset + 14, 4);
+
+        if ((a | b | c) < 0 || s[offset + 8] != '-' || s[offset + 13] != '-')
+            return -1;
+
+        return (a << 32) | (b << 16) | c;
+    }
+
+    private static long parseLeastSignificantBits(byte[] s, int offset) {
+        long a = parseHex(s, offset + 19, 4);
+        long b = parseHex(s, offset + 24, 12);
+
+        if ((a | b) < 0 || s[offset + 18] != '-' || s[offset + 23] != '-')
+            return -1;
+
+        return (a << 48) | b;
+    }
+
+    private static long parseMostSignificantBits(ByteBuffer s, int offset) {
+        long a = parseHex(s, offset, 8);
+        long b = parseHex(s, offset + 9, 4);
+        long c = parseHex(s, offset + 14, 4);
+
+        if ((a | b | c) < 0 || s.get(offset + 8) != '-' || s.get(offset + 13) != '-')
+            return -1;
+
+        return (a << 32) | (b << 16) | c;
+    }
+
+    private static long parseLeastSignificantBits(ByteBuffer s, int offset) {
+        long a = parseHex(s, offset + 19, 4);
+        long b = parseHex(s, offset + 24, 12);
+
+        if ((a | b) < 0 || s.get(offset + 18) != '-' || s.get(offset + 23) != '-')
+            return -1;
+
+        return (a << 48) | b;
+    }
+
+    /**
+     * Check that there are 36 characters after an offset, throwing an IndexOutOfBoundsException otherwise.
+     * @param offset Index of the first character of the UUID.
+     * @param end Index just past the last available character.
+     */
+    static void checkRegion(int offset, int end) {
+        if (offset < 0 || offset > end - 36)
+            throw new IndexOutOfBoundsException("No room for a UUID at offset " + offset + " of " + end);
+    }
+
+    /**
+     * Check every character of a canonical UUID representation, with dashes at the 8th, 13th, 18th, and 23rd
+     * characters and valid hex everywhere else.
+     * @param s Characters to check, which must have at least 36 characters after the offset.
+     * @param offset Index of the first character of the UUID.
+     * @return True or false based on whether the characters are a valid UUID.
+     */
+    private static boolean validate(CharSequence s, int offset) {
+        for (int i = 0; i < 36; i++) {
+            int c = s.charAt(offset + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23 ? c != '-' : hexValue(c) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean validate(byte[] s, int offset) {
+        for (int i = 0; i < 36; i++) {
+            int c = s[offset + i];
+            if (i == 8 || i == 13 || i == 18 || i == 23 ? c != '-' : hexValue(c) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean validate(ByteBuffer s, int offset) {
+        for (int i = 0; i < 36; i++) {
+            int c = s.get(offset + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23 ? c != '-' : hexValue(c) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decode 36 ASCII bytes as a String, for exception messages.
+     * @param ascii Bytes to decode.
+     * @param offset Index of the first byte.
+     * @return The decoded String.
+     */
+    static String asciiString(byte[] ascii, int offset) {
+        char[] chars = new char[36];
+        for (int i = 0; i < 36; i++)
+            chars[i] = (char) (ascii[offset + i] & 0xFF);
+        return new String(chars);
+    }
+
+    static String asciiString(ByteBuffer ascii, int offset) {
+        char[] chars = new char[36];
+        for (int i = 0; i < 36; i++)
+            chars[i] = (char) (ascii.get(offset + i) & 0xFF);
+        return new String(chars);
+    }
+
+    /**
+     * Write the lowest digits of a value as lower-case hex characters, most significant character first.
+     * @param value Value to print, higher bits than will fit in the given number of digits are ignored.
+     * @param ch Character array to print into.
+     * @param offset Index of the first character to write.
+     * @param length Number of hex digits to write.
+     */
+    private static void printHex(long value, char[] ch, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            ch[i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+
+    private static void printHex(long value, byte[] b, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            b[i] = (byte) HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+
+    private static void printHex(long value, ByteBuffer b, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            b.put(i, (byte) HEX[(int) value & 0xF]);
+            value >>>= 4;
+        }
+    }
+
+    private static void printHex(long value, StringBuilder sb, int length) {
+        for (int shift = 4 * (length - 1); shift >= 0; shift -= 4)
+            sb.append(HEX[(int) (value >>> shift) & 0xF]);
+    }
+
+    private static void printHex(long value, Appendable out, int length) throws IOException {
+        for (int shift = 4 * (length - 1); shift >= 0; shift -= 4)
+            out.append(HEX[(int) (value >>> shift) & 0xF]);
+    }
+
+    /**
+     * Write the canonical 36-character representation of a UUID given as two longs into a character array.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param id Character array of at least 36 characters to print into.
+     */
+    private static void printUUID(long hi, long lo, char[] id) {
+        // split each half into 4 bit numbers and map to hex characters
+        printHex(hi >>> 32, id, 0,  8);
+        id[8]  = '-';
+        printHex(hi >>> 16, id, 9,  4);
+        id[13] = '-';
+        printHex(hi,        id, 14, 4);
+        id[18] = '-';
+        printHex(lo >>> 48, id, 19, 4);
+        id[23] = '-';
+        printHex(lo,        id, 24, 12);
+    }
+
+    /**
+     * Reverse the order of the eight 4-bit segments of an int, so the least significant segment comes first. This is
+     * how the counter is placed into variable mode UUIDs.
+     * @param x Value to reverse.
+     * @return The value with its 4-bit segments in reverse order.
+     */
+    static int reverseNibbles(int x) {
+        x = Integer.reverseBytes(x);
+        return ((x & 0x0F0F0F0F) << 4) | ((x >>> 4) & 0x0F0F0F0F);
+    }
+
+    /**
+     * Read 8 bytes in big-endian order from a byte array as a long.
+     * @param b Byte array to read from.
+     * @param offset Index of the first (most significant) byte.
+     * @return The long value of the 8 bytes.
+     */
+    static long getLong(byte[] b, int offset) {
+        return Platform.getLong(b, offset);
+    }
+
+    /**
+     * Write a long as 8 bytes in big-endian order into a byte array.
+     * @param b Byte array to write into.
+     * @param offset Index of the first (most significant) byte.
+     * @param value The value to write.
+     */
+    static void putLong(byte[] b, int offset, long value) {
+        Platform.putLong(b, offset, value);
+    }
+
+    /**
+     * Write a long as 8 bytes in big-endian order at the current position of a buffer, regardless of the buffer's
+     * byte order setting.
+     * @param buffer Buffer to write into.
+     * @param value The value to write.
+     */
+    static void putLong(ByteBuffer buffer, long value) {
+        buffer.putLong(buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+    }
+
+    /**
+     * Read 8 bytes in big-endian order at the current position of a buffer, regardless of the buffer's byte order
+     * setting.
+     * @param buffer Buffer to read from.
+     * @return The long value of the 8 bytes.
+     */
+    static long getLong(ByteBuffer buffer) {
+        long value = buffer.getLong();
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * Read 8 bytes in big-endian order at an index in a buffer, regardless of the buffer's byte order setting and
+     * without moving its position.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first (most significant) byte.
+     * @return The long value of the 8 bytes.
+     */
+    static long getLong(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * Get contents of this UUID as a byte array. A new array is created on each call so that it can't be changed.
      * @return Raw byte array of UUID contents.
      */
     public byte[] getBytes() {
-        return Arrays.copyOf(content, 16);
+        byte[] bytes = new byte[16];
+        putLong(bytes, 0, mostSigBits);
+        putLong(bytes, 8, leastSigBits);
+        return bytes;
     }
 
     /**
@@ -384,46 +870,140 @@ public class UUID {
     @Override
     public String toString() {
         char[] id = new char[36];
+        printUUID(mostSigBits, leastSigBits, id);
+        return new String(id);
+    }
 
-        // split each byte into 4 bit numbers and map to hex characters
-        id[0]  = HEX[(content[0]  & 0xF0) >> 4];
-        id[1]  = HEX[(content[0]  & 0x0F)];
-        id[2]  = HEX[(content[1]  & 0xF0) >> 4];
-        id[3]  = HEX[(content[1]  & 0x0F)];
-        id[4]  = HEX[(content[2]  & 0xF0) >> 4];
-        id[5]  = HEX[(content[2]  & 0x0F)];
-        id[6]  = HEX[(content[3]  & 0xF0) >> 4];
-        id[7]  = HEX[(content[3]  & 0x0F)];
-        id[8]  = '-';
-        id[9]  = HEX[(content[4]  & 0xF0) >> 4];
-        id[10] = HEX[(content[4]  & 0x0F)];
-        id[11] = HEX[(content[5]  & 0xF0) >> 4];
-        id[12] = HEX[(content[5]  & 0x0F)];
-        id[13] = '-';
-        id[14] = HEX[(content[6]  & 0xF0) >> 4];
-        id[15] = HEX[(content[6]  & 0x0F)];
-        id[16] = HEX[(content[7]  & 0xF0) >> 4];
-        id[17] = HEX[(content[7]  & 0x0F)];
-        id[18] = '-';
-        id[19] = HEX[(content[8]  & 0xF0) >> 4];
-        id[20] = HEX[(content[8]  & 0x0F)];
-        id[21] = HEX[(content[9]  & 0xF0) >> 4];
-        id[22] = HEX[(content[9]  & 0x0F)];
-        id[23] = '-';
-        id[24] = HEX[(content[10] & 0xF0) >> 4];
-        id[25] = HEX[(content[10] & 0x0F)];
-        id[26] = HEX[(content[11] & 0xF0) >> 4];
-        id[27] = HEX[(content[11] & 0x0F)];
-        id[28] = HEX[(content[12] & 0xF0) >> 4];
-        id[29] = HEX[(content[12] & 0x0F)];
-        id[30] = HEX[(content[13] & 0xF0) >> 4];
-        id[31] = HEX[(content[13] & 0x0F)];
-        id[32] = HEX[(content[14] & 0xF0) >> 4];
-        id[33] = HEX[(content[14] & 0x0F)];
-        id[34] = HEX[(content[15] & 0xF0) >> 4];
-        id[35] = HEX[(content[15] & 0x0F)];
+    /**
+     * Append the canonical 36-character representation of this UUID, as returned by toString(), to a StringBuilder
+     * without creating an intermediate String.
+     * @param sb StringBuilder to append to.
+     * @return The same StringBuilder, for chaining.
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        return appendTo(mostSigBits, leastSigBits, sb);
+    }
 
-        return new String(id);
+    /**
+     * Append the canonical 36-character representation of this UUID, as returned by toString(), to any Appendable,
+     * such as a Writer, one character at a time.
+     * @param out Appendable to append to.
+     * @throws IOException If the Appendable throws one.
+     */
+    public void appendTo(Appendable out) throws IOException {
+        appendTo(mostSigBits, leastSigBits, out);
+    }
+
+    /**
+     * Write the canonical 36-character representation of this UUID, as returned by toString(), as ASCII bytes into a
+     * byte array. Throws an IndexOutOfBoundsException if there are fewer than 36 bytes after the offset.
+     * @param dest Byte array to write into.
+     * @param offset Index in the array of the first character.
+     */
+    public void writeAscii(byte[] dest, int offset) {
+        writeAscii(mostSigBits, leastSigBits, dest, offset);
+    }
+
+    /**
+     * Write the canonical 36-character representation of this UUID, as returned by toString(), as ASCII bytes at the
+     * buffer's current position, advancing the position by 36. Throws a BufferOverflowException, without writing
+     * anything, if fewer than 36 bytes remain.
+     * @param dest Buffer to write into.
+     */
+    public void writeAscii(ByteBuffer dest) {
+        writeAscii(mostSigBits, leastSigBits, dest);
+    }
+
+    /**
+     * Append the canonical 36-character representation of a UUID given as two longs to a StringBuilder.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param sb StringBuilder to append to.
+     * @return The same StringBuilder, for chaining.
+     */
+    public static StringBuilder appendTo(long hi, long lo, StringBuilder sb) {
+        // grow once up front, so the characters go straight into the builder without a temporary array
+        sb.ensureCapacity(sb.length() + 36);
+        printHex(hi >>> 32, sb, 8);
+        sb.append('-');
+        printHex(hi >>> 16, sb, 4);
+        sb.append('-');
+        printHex(hi,        sb, 4);
+        sb.append('-');
+        printHex(lo >>> 48, sb, 4);
+        sb.append('-');
+        printHex(lo,        sb, 12);
+        return sb;
+    }
+
+    /**
+     * Append the canonical 36-character representation of a UUID given as two longs to any Appendable.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param out Appendable to append to.
+     * @throws IOException If the Appendable throws one.
+     */
+    public static void appendTo(long hi, long lo, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            appendTo(hi, lo, (StringBuilder) out);
+            return;
+        }
+
+        printHex(hi >>> 32, out, 8);
+        out.append('-');
+        printHex(hi >>> 16, out, 4);
+        out.append('-');
+        printHex(hi,        out, 4);
+        out.append('-');
+        printHex(lo >>> 48, out, 4);
+        out.append('-');
+        printHex(lo,        out, 12);
+    }
+
+    /**
+     * Write the canonical 36-character representation of a UUID given as two longs as ASCII bytes into a byte array.
+     * Throws an IndexOutOfBoundsException, without writing anything, if there are fewer than 36 bytes after the offset.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param dest Byte array to write into.
+     * @param offset Index in the array of the first character.
+     */
+    public static void writeAscii(long hi, long lo, byte[] dest, int offset) {
+        checkRegion(offset, dest.length);
+        printHex(hi >>> 32, dest, offset,      8);
+        dest[offset + 8]  = '-';
+        printHex(hi >>> 16, dest, offset + 9,  4);
+        dest[offset + 13] = '-';
+        printHex(hi,        dest, offset + 14, 4);
+        dest[offset + 18] = '-';
+        printHex(lo >>> 48, dest, offset + 19, 4);
+        dest[offset + 23] = '-';
+        printHex(lo,        dest, offset + 24, 12);
+    }
+
+    /**
+     * Write the canonical 36-character representation of a UUID given as two longs as ASCII bytes at the buffer's
+     * current position, advancing the position by 36. Throws a BufferOverflowException, without writing anything, if
+     * fewer than 36 bytes remain.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param dest Buffer to write into.
+     */
+    public static void writeAscii(long hi, long lo, ByteBuffer dest) {
+        if (dest.remaining() < 36)
+            throw new BufferOverflowException();
+
+        int offset = dest.position();
+        printHex(hi >>> 32, dest, offset,      8);
+        dest.put(offset + 8, (byte) '-');
+        printHex(hi >>> 16, dest, offset + 9,  4);
+        dest.put(offset + 13, (byte) '-');
+        printHex(hi,        dest, offset + 14, 4);
+        dest.put(offset + 18, (byte) '-');
+        printHex(lo >>> 48, dest, offset + 19, 4);
+        dest.put(offset + 23, (byte) '-');
+        printHex(lo,        dest, offset + 24, 12);
+        ((Buffer) dest).position(offset + 36);
     }
 
     /**
@@ -431,16 +1011,7 @@ public class UUID {
      * @return The first half of the UUID as a long.
      */
     public long getMostSignificantBits() {
-        long a;
-        a  = ((long)content[ 0] & 0xFF) << 56;
-        a |= ((long)content[ 1] & 0xFF) << 48;
-        a |= ((long)content[ 2] & 0xFF) << 40;
-        a |= ((long)content[ 3] & 0xFF) << 32;
-        a |= ((long)content[ 4] & 0xFF) << 24;
-        a |= ((long)content[ 5] & 0xFF) << 16;
-        a |= ((long)content[ 6] & 0xFF) << 8;
-        a |= ((long)content[ 7] & 0xFF);
-        return a;
+        return mostSigBits;
     }
 
     /**
@@ -448,16 +1019,7 @@ public class UUID {
      * @return The second half of the UUID as a long.
      */
     public long getLeastSignificantBits() {
-        long b;
-        b  = ((long)content[ 8] & 0xFF) << 56;
-        b |= ((long)content[ 9] & 0xFF) << 48;
-        b |= ((long)content[10] & 0xFF) << 40;
-        b |= ((long)content[11] & 0xFF) << 32;
-        b |= ((long)content[12] & 0xFF) << 24;
-        b |= ((long)content[13] & 0xFF) << 16;
-        b |= ((long)content[14] & 0xFF) << 8;
-        b |= ((long)content[15] & 0xFF);
-        return b;
+        return leastSigBits;
     }
 
     /**
@@ -466,7 +1028,7 @@ public class UUID {
      * @return This com.groupon.uuid.UUID's representation as a java.util.UUID.
      */
     public java.util.UUID toJavaUUID() {
-        return new java.util.UUID(getMostSignificantBits(), getLeastSignificantBits());
+        return new java.util.UUID(mostSigBits, leastSigBits);
     }
 
     /**
@@ -475,7 +1037,7 @@ public class UUID {
      * @return UUID version as a char.
      */
     public char getVersion() {
-        return HEX[(content[6] & 0xF0) >> 4];
+        return HEX[(int) (mostSigBits >>> 12) & 0xF];
     }
 
     /**
@@ -487,7 +1049,7 @@ public class UUID {
         if (getVersion() != VERSION)
             return -1;
 
-        return ((content[4] & 0xFF) << 8) | (content[5] & 0xFF);
+        return (int) (mostSigBits >>> 16) & 0xFFFF;
     }
 
     /**
@@ -499,14 +1061,7 @@ public class UUID {
         if (getVersion() != VERSION)
             return null;
 
-        long time;
-        time  = ((long)content[10] & 0xFF) << 40;
-        time |= ((long)content[11] & 0xFF) << 32;
-        time |= ((long)content[12] & 0xFF) << 24;
-        time |= ((long)content[13] & 0xFF) << 16;
-        time |= ((long)content[14] & 0xFF) << 8;
-        time |= ((long)content[15] & 0xFF);
-        return new Date(time);
+        return new Date(leastSigBits & TIMESTAMP_MASK);
     }
 
     /**
@@ -522,17 +1077,17 @@ public class UUID {
 
         x[0] = 0;
         x[1] = 0;
-        x[2] = (byte) (content[6] & 0xF);
-        x[3] = content[7];
-        x[4] = content[8];
-        x[5] = content[9];
+        x[2] = (byte) ((mostSigBits >>> 8) & 0xF);
+        x[3] = (byte) (mostSigBits);
+        x[4] = (byte) (leastSigBits >>> 56);
+        x[5] = (byte) (leastSigBits >>> 48);
 
         return x;
     }
 
     /**
      * Basic implementation of equals that checks if the given object is null or a different type, then compares the
-     * byte arrays which store the content of the UUID. I've considered making this compatible with the content of
+     * two longs which store the content of the UUID. I've considered making this compatible with the content of
      * java.util.UUID, but not sure thats a good idea given that those are objects of a different type, and doing
      * a deep comparison might be surprising functionality.
      * @param o Object against which we compare this UUID.
@@ -546,75 +1101,123 @@ public class UUID {
             return false;
 
         UUID that = (UUID) o;
-
-        if (this.content.length != that.content.length)
-            return false;
-
-        for (int i = 0; i < this.content.length; i++)
-            if (this.content[i] != that.content[i])
-                return false;
-
-        return true;
+        return this.mostSigBits == that.mostSigBits && this.leastSigBits == that.leastSigBits;
     }
 
     /**
-     * The hash code implementation just calls Arrays.hashCode() on the contents of this UUID (stored as a byte array).
+     * The hash code implementation mixes both halves of the content with hash(long, long).
      * @return The hash value of this object.
      */
     @Override
     public int hashCode() {
-        return Arrays.hashCode(content);
+        return hash(mostSigBits, leastSigBits);
     }
 
     /**
-     * Get the active MAC address on the current machine as a byte array. This is called when generating a new UUID.
-     * Note that a machine can have multiple or no active MAC addresses. This method works by iterating through the list
-     * of network interfaces, ignoring the loopback interface and any virtual interfaces (which often have made-up
-     * addresses), and returning the first one we find. If no valid addresses are found, then a byte array of the same
-     * length with all zeros is returned.
-     * @return 6-byte array for first active MAC address, or 6-byte zeroed array if no interfaces are active.
+     * Serialize UUIDs as a SerializedUUID holding just the content, which is turned back into a UUID when read.
+     * @return The serialized form of this UUID.
      */
-    private static byte[] macAddress() {
-        try {
-            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            byte[] mac = null;
-
-            while (interfaces.hasMoreElements() && (mac == null || mac.length != 6)) {
-                NetworkInterface netInterface = interfaces.nextElement();
-                if (netInterface.isLoopback() || netInterface.isVirtual())
-                    continue;
-                mac = netInterface.getHardwareAddress();
-            }
-
-            // if the machine is not connected to a network it has no active MAC address
-            if (mac == null)
-                mac = new byte[] {0, 0, 0, 0, 0, 0};
-
-            return mac;
-        } catch (Exception e) {
-            throw new RuntimeException("Could not get MAC address");
-        }
+    protected Object writeReplace() {
+        return new SerializedUUID(mostSigBits, leastSigBits);
     }
 
     /**
-     * Get the process id of this JVM. I haven't tested this extensively so its possible that this performs differently
-     * on esoteric JVMs. I copied this from:
-     * http://stackoverflow.com/questions/35842/how-can-a-java-program-get-its-own-process-id
-     * @return Id of the current JVM process.
+     * UUIDs are only ever read through their serialized form, so a stream that holds a UUID directly was not written
+     * by this class.
      */
-    private static int processId() {
-        // Note: may fail in some JVM implementations
-        // something like '<pid>@<hostname>', at least in SUN / Oracle JVMs
-        final String jvmName = ManagementFactory.getRuntimeMXBean().getName();
-        final int index = jvmName.indexOf('@');
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("UUIDs are read through their serialized form");
+    }
 
-        if (index < 1)
-            throw new RuntimeException("Could not get PID");
+    /**
+     * Compare this UUID to another by their content as unsigned bytes, most significant byte first.
+     * @param that UUID to compare to.
+     * @return A negative number, zero, or a positive number if this UUID is less than, equal to, or greater than the
+     *         given UUID.
+     */
+    public int compareTo(UUID that) {
+        return compare(this.mostSigBits, this.leastSigBits, that.mostSigBits, that.leastSigBits);
+    }
 
-        try {
-            return Integer.parseInt(jvmName.substring(0, index)) % MAX_PID;
-        } catch (NumberFormatException e) {
-            throw new RuntimeException("Could not get PID");
-        }
+    /**
+     * Compare two UUIDs given as longs by their content as unsigned bytes, most significant byte first. This is the
+     * natural order of UUID objects.
+     * @param hi1 Long value representing the first half of the first UUID.
+     * @param lo1 Long value representing the second half of the first UUID.
+     * @param hi2 Long value representing the first half of the second UUID.
+     * @param lo2 Long value representing the second half of the second UUID.
+     * @return A negative number, zero, or a positive number if the first UUID is less than, equal to, or greater than
+     *         the second.
+     */
+    public static int compare(long hi1, long lo1, long hi2, long lo2) {
+        if (hi1 != hi2)
+            return Platform.compareUnsigned(hi1, hi2);
+        return Platform.compareUnsigned(lo1, lo2);
+    }
+
+    /**
+     * Compare two UUIDs given as longs by their embedded timestamp (bytes 10 - 15), then bytes 0 - 9, all as unsigned
+     * bytes. This is the order of TIMESTAMP_ORDER.
+     * @param hi1 Long value representing the first half of the first UUID.
+     * @param lo1 Long value representing the second half of the first UUID.
+     * @param hi2 Long value representing the first half of the second UUID.
+     * @param lo2 Long value representing the second half of the second UUID.
+     * @return A negative number, zero, or a positive number if the first UUID is less than, equal to, or greater than
+     *         the second.
+     */
+    public static int compareByTimestamp(long hi1, long lo1, long hi2, long lo2) {
+        long a1 = timeOrderHi(hi1, lo1);
+        long a2 = timeOrderHi(hi2, lo2);
+        if (a1 != a2)
+            return Platform.compareUnsigned(a1, a2);
+        return Platform.compareUnsigned(timeOrderLo(hi1, lo1), timeOrderLo(hi2, lo2));
+    }
+
+    /**
+     * Rotate UUID content so that the timestamp comes first: the first half of the rotated content is bytes 10 - 15
+     * followed by bytes 0 - 1, and the second half is bytes 2 - 9. Comparing the rotated halves as unsigned longs gives
+     * the timestamp order. Given rotated halves a and b, the content is hi = (a << 48) | (b >>> 16) and
+     * lo = (b << 48) | (a >>> 16).
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The first half of the rotated content.
+     */
+    static long timeOrderHi(long hi, long lo) {
+        return (lo << 16) | (hi >>> 48);
+    }
+
+    /**
+     * Get the second half of the rotated content described in timeOrderHi(long, long).
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The second half of the rotated content.
+     */
+    static long timeOrderLo(long hi, long lo) {
+        return (hi << 16) | (lo >>> 48);
+    }
+
+    /**
+     * Hash UUID content given as two longs. Ids generated by one process share bytes 4 - 9 (pid and MAC address), so
+     * the useful bits are the counter and timestamp at either end of the content. Both halves are combined and run
+     * through the 64-bit finalizer from MurmurHash3 so that every input bit affects every bit of the result.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The hash value of the content.
+     */
+    static int hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33));
+    }
+
+    /**
+     * Get the MAC address of the current machine as a byte array, as resolved by NodeIdentity.local(). Note that a
+     * machine can have multiple or no active MAC addresses, see NodeIdentity for how one is chosen. If no valid
+     * addresses are found, then a byte array of the same length with all zeros is returned.
+     * @return 6-byte array for the MAC address of this node.
+     */
+    private static byte[] macAddress() {
+        return NodeIdentity.local().getMacAddress();
     }
 }
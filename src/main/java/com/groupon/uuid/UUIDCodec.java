@@ -0,0 +1,288 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reads and writes ids in their 16-byte binary form, the same bytes as UUID.getBytes(), in big-endian order whatever
+ * the byte order of a buffer or platform. A run of ids is simply their binary forms one after another, with no
+ * header or length, so the reader has to know how many ids to expect.
+ *
+ * Runs of ids are held as pairs of longs in a long array, most significant half first, as written by
+ * UUID.generate(). Writing to or reading from a channel goes through 64 KB buffers, and channels that support
+ * gathering writes and scattering reads, such as FileChannel and SocketChannel, are passed up to 16 of them at once,
+ * so a large run takes one system call per megabyte. Channels must be in blocking mode.
+ */
+public final class UUIDCodec {
+    private static final int CHUNK_IDS = 4096;
+    private static final int MAX_CHUNKS = 16;
+
+    private UUIDCodec() {
+    }
+
+    /**
+     * Write the 16 bytes of an id to a DataOutput, such as a DataOutputStream or an ObjectOutput.
+     * @param id UUID to write.
+     * @param out Output to write to.
+     * @throws IOException If the output can't be written.
+     */
+    public static void write(UUID id, DataOutput out) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Write a run of ids to a DataOutput in one call per 64 KB.
+     * @param ids Array holding the ids as pairs of longs.
+     * @param offset Index in the array of the most significant half of the first id.
+     * @param count Number of ids to write.
+     * @param out Output to write to.
+     * @throws IOException If the output can't be written.
+     */
+    public static void write(long[] ids, int offset, int count, DataOutput out) throws IOException {
+        UUIDTable.checkIds(ids, offset, count);
+
+        byte[] chunk = new byte[16 * Math.min(count, CHUNK_IDS)];
+        for (int done = 0; done < count; ) {
+            int n = Math.min(CHUNK_IDS, count - done);
+            for (int i = 0, j = offset + 2 * done; i < 16 * n; i += 16, j += 2) {
+                UUID.putLong(chunk, i,     ids[j]);
+                UUID.putLong(chunk, i + 8, ids[j + 1]);
+            }
+            out.write(chunk, 0, 16 * n);
+            done += n;
+        }
+    }
+
+    /**
+     * Read the 16 bytes of an id from a DataInput, such as a DataInputStream or an ObjectInput.
+     * @param in Input to read from.
+     * @return The UUID.
+     * @throws IOException If the input can't be read, or an EOFException if it ends before 16 bytes.
+     */
+    public static UUID read(DataInput in) throws IOException {
+        long hi = in.readLong();
+        return new UUID(hi, in.readLong());
+    }
+
+    /**
+     * Read a run of ids from a DataInput into a long array as pairs of longs.
+     * @param in Input to read from.
+     * @param dest Array to read the ids into.
+     * @param offset Index in the array for the most significant half of the first id.
+     * @param count Number of ids to read.
+     * @throws IOException If the input can't be read, or an EOFException if it ends before count ids.
+     */
+    public static void read(DataInput in, long[] dest, int offset, int count) throws IOException {
+        UUIDTable.checkIds(dest, offset, count);
+
+        byte[] chunk = new byte[16 * Math.min(count, CHUNK_IDS)];
+        for (int done = 0; done < count; ) {
+            int n = Math.min(CHUNK_IDS, count - done);
+            in.readFully(chunk, 0, 16 * n);
+            for (int i = 0, j = offset + 2 * done; i < 16 * n; i += 16, j += 2) {
+                dest[j]     = UUID.getLong(chunk, i);
+                dest[j + 1] = UUID.getLong(chunk, i + 8);
+            }
+            done += n;
+        }
+    }
+
+    /**
+     * Write the 16 bytes of an id at the buffer's position, advancing it past them. Throws a BufferOverflowException,
+     * without writing anything, if fewer than 16 bytes remain.
+     * @param id UUID to write.
+     * @param dest Buffer to write to.
+     */
+    public static void write(UUID id, ByteBuffer dest) {
+        if (dest.remaining() < 16)
+            throw new BufferOverflowException();
+
+        UUID.putLong(dest, id.getMostSignificantBits());
+        UUID.putLong(dest, id.getLeastSignificantBits());
+    }
+
+    /**
+     * Write a run of ids at the buffer's position, advancing it past them. Throws a BufferOverflowException, without
+     * writing anything, if they don't fit.
+     * @param ids Array holding the ids as pairs of longs.
+     * @param offset Index in the array of the most significant half of the first id.
+     * @param count Number of ids to write.
+     * @param dest Buffer to write to.
+     */
+    public static void write(long[] ids, int offset, int count, ByteBuffer dest) {
+        UUIDTable.checkIds(ids, offset, count);
+        if (dest.remaining() < 16L * count)
+            throw new BufferOverflowException();
+
+        for (int i = offset; i < offset + 2 * count; i++)
+            UUID.putLong(dest, ids[i]);
+    }
+
+    /**
+     * Read the 16 bytes of an id at the buffer's position, advancing it past them. Throws a BufferUnderflowException,
+     * without reading anything, if fewer than 16 bytes remain.
+     * @param src Buffer to read from.
+     * @return The UUID.
+     */
+    public static UUID read(ByteBuffer src) {
+        if (src.remaining() < 16)
+            throw new BufferUnderflowException();
+
+        long hi = UUID.getLong(src);
+        return new UUID(hi, UUID.getLong(src));
+    }
+
+    /**
+     * Read a run of ids at the buffer's position into a long array, advancing the position past them. Throws a
+     * BufferUnderflowException, without reading anything, if the buffer holds fewer than count ids.
+     * @param src Buffer to read from.
+     * @param dest Array to read the ids into.
+     * @param offset Index in the array for the most significant half of the first id.
+     * @param count Number of ids to read.
+     */
+    public static void read(ByteBuffer src, long[] dest, int offset, int count) {
+        UUIDTable.checkIds(dest, offset, count);
+        if (src.remaining() < 16L * count)
+            throw new BufferUnderflowException();
+
+        for (int i = offset; i < offset + 2 * count; i++)
+            dest[i] = UUID.getLong(src);
+    }
+
+    /**
+     * Write a run of ids to a channel, with gathering writes if the channel supports them.
+     * @param ids Array holding the ids as pairs of longs.
+     * @param offset Index in the array of the most significant half of the first id.
+     * @param count Number of ids to write.
+     * @param channel Blocking channel to write to.
+     * @throws IOException If the channel can't be written.
+     */
+    public static void write(long[] ids, int offset, int count, WritableByteChannel channel) throws IOException {
+        UUIDTable.checkIds(ids, offset, count);
+
+        ByteBuffer[] chunks = chunks(count);
+        for (int done = 0; done < count; ) {
+            int used = 0;
+            while (used < chunks.length && done < count) {
+                int n = Math.min(CHUNK_IDS, count - done);
+                ByteBuffer chunk = chunks[used++];
+                ((Buffer) chunk).clear();
+                for (int i = offset + 2 * done; i < offset + 2 * (done + n); i++)
+                    chunk.putLong(ids[i]);
+                ((Buffer) chunk).flip();
+                done += n;
+            }
+
+            if (used > 1 && channel instanceof GatheringByteChannel) {
+                while (chunks[used - 1].hasRemaining())
+                    ((GatheringByteChannel) channel).write(chunks, 0, used);
+            }
+            else {
+                for (int i = 0; i < used; i++) {
+                    while (chunks[i].hasRemaining())
+                        channel.write(chunks[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a run of ids from a channel into a long array as pairs of longs, with scattering reads if the channel
+     * supports them.
+     * @param channel Blocking channel to read from.
+     * @param dest Array to read the ids into.
+     * @param offset Index in the array for the most significant half of the first id.
+     * @param count Number of ids to read.
+     * @throws IOException If the channel can't be read, or an EOFException if it ends before count ids.
+     */
+    public static void read(ReadableByteChannel channel, long[] dest, int offset, int count) throws IOException {
+        UUIDTable.checkIds(dest, offset, count);
+
+        ByteBuffer[] chunks = chunks(count);
+        for (int done = 0; done < count; ) {
+            int used = 0;
+            for (int left = count - done; used < chunks.length && left > 0; left -= CHUNK_IDS) {
+                ((Buffer) chunks[used]).clear();
+                ((Buffer) chunks[used++]).limit(16 * Math.min(CHUNK_IDS, left));
+            }
+
+            if (used > 1 && channel instanceof ScatteringByteChannel) {
+                while (chunks[used - 1].hasRemaining()) {
+                    if (((ScatteringByteChannel) channel).read(chunks, 0, used) < 0)
+                        throw new EOFException("Channel ended before " + count + " UUIDs were read");
+                }
+            }
+            else {
+                for (int i = 0; i < used; i++) {
+                    while (chunks[i].hasRemaining()) {
+                        if (channel.read(chunks[i]) < 0)
+                            throw new EOFException("Channel ended before " + count + " UUIDs were read");
+                    }
+                }
+            }
+
+            for (int i = 0; i < used; i++) {
+                ByteBuffer chunk = chunks[i];
+                ((Buffer) chunk).flip();
+                int j = offset + 2 * done;
+                while (chunk.hasRemaining())
+                    dest[j++] = chunk.getLong();
+                done += chunk.limit() / 16;
+            }
+        }
+    }
+
+    /**
+     * Allocate the buffers for moving a run of ids through a channel, no more than the run needs.
+     */
+    private static ByteBuffer[] chunks(int count) {
+        int n = Math.min(MAX_CHUNKS, (count + CHUNK_IDS - 1) / CHUNK_IDS);
+        ByteBuffer[] chunks = new ByteBuffer[n];
+        for (int i = 0; i < n; i++)
+            chunks[i] = ByteBuffer.allocate(16 * Math.min(count, CHUNK_IDS));
+        return chunks;
+    }
+}
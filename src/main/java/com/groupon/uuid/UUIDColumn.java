@@ -0,0 +1,472 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, compressed column of ids, kept sorted so that membership can be looked up by binary search. Ids from one
+ * producer share bytes 4 - 9 (process id, version and MAC fragment) and were generated over a limited span of time,
+ * so instead of 16 bytes each, each id is stored as three bit-packed fields:
+ *
+ * - the node, bytes 4 - 9, as an index into a dictionary of the distinct nodes in the column, taking no bits at all
+ *   when every id comes from one node
+ * - the counter, bytes 0 - 3, as an offset from the smallest counter in its block of 64 ids
+ * - the timestamp, bytes 10 - 15, as an offset from the smallest timestamp in its block
+ *
+ * Every id in a block takes the same number of bits, so any id can be decoded directly from its index. In byte order,
+ * sorted counters in a block are close together; in timestamp order, timestamps are. A million variable mode ids from
+ * one generator over an hour take under 6 bytes each in byte order and 4.5 in timestamp order, and sequential mode ids
+ * under 1.5, including the first id of each block, which is kept uncompressed to speed up lookups. Other kinds of ids
+ * are stored the same way, and are kept exactly, but compress less.
+ *
+ * Ids are read back into two longs, singly, in runs, or through a Cursor, none of which create objects per id.
+ */
+public final class UUIDColumn {
+    private static final int BLOCK_SHIFT        = 6;
+    private static final int BLOCK_SIZE         = 1 << BLOCK_SHIFT;
+    private static final long TIMESTAMP_MASK    = 0xFFFFFFFFFFFFL;
+
+    private final int size;
+    private final UUIDSort.Order order;
+
+    // distinct bytes 4 - 9 of the ids in ascending order, and the bits needed for an index into them
+    private final long[] nodes;
+    private final int nodeBits;
+
+    // per block: the bit position of its first record, the smallest counter and timestamp, and the field widths
+    private final long[] blockStart;
+    private final int[] baseCounter;
+    private final long[] baseTimestamp;
+    private final byte[] counterBits;
+    private final byte[] timestampBits;
+    // first id of each block, as two longs, for the first steps of lookups
+    private final long[] firsts;
+
+    private final long[] packed;
+
+    /**
+     * Create a column of ids in unsigned byte order, the natural order of UUID objects. The array is not changed.
+     * @param ids Array holding the ids, each as two longs.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids.
+     * @return The column.
+     */
+    public static UUIDColumn of(long[] ids, int offset, int count) {
+        return of(ids, offset, count, UUIDSort.Order.BYTES);
+    }
+
+    /**
+     * Create a column of ids sorted in the given order. Timestamp order usually compresses better for ids from a few
+     * busy producers, as timestamps then take only a few bits. The array is not changed.
+     * @param ids Array holding the ids, each as two longs.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids.
+     * @param order Order of the column, which lookups use.
+     * @return The column.
+     */
+    public static UUIDColumn of(long[] ids, int offset, int count, UUIDSort.Order order) {
+        UUIDTable.checkIds(ids, offset, count);
+        if (order == null)
+            throw new IllegalArgumentException("order must not be null");
+
+        long[] sorted = Arrays.copyOfRange(ids, offset, offset + 2 * count);
+        UUIDSort.sort(sorted, 0, count, order);
+        return new UUIDColumn(sorted, count, order);
+    }
+
+    private UUIDColumn(long[] ids, int count, UUIDSort.Order order) {
+        this.size = count;
+        this.order = order;
+        this.nodes = distinctNodes(ids, count);
+        this.nodeBits = bitsFor(Math.max(0, nodes.length - 1));
+
+        int blocks = (count + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        blockStart = new long[blocks];
+        baseCounter = new int[blocks];
+        baseTimestamp = new long[blocks];
+        counterBits = new byte[blocks];
+        timestampBits = new byte[blocks];
+        firsts = new long[2 * blocks];
+
+        long bits = 0;
+        for (int b = 0; b < blocks; b++) {
+            int from = b << BLOCK_SHIFT;
+            int to = Math.min(count, from + BLOCK_SIZE);
+            long minCounter = Long.MAX_VALUE, maxCounter = 0, minTimestamp = Long.MAX_VALUE, maxTimestamp = 0;
+            for (int i = from; i < to; i++) {
+                long counter = ids[2 * i] >>> 32;
+                long timestamp = ids[2 * i + 1] & TIMESTAMP_MASK;
+                minCounter = Math.min(minCounter, counter);
+                maxCounter = Math.max(maxCounter, counter);
+                minTimestamp = Math.min(minTimestamp, timestamp);
+                maxTimestamp = Math.max(maxTimestamp, timestamp);
+            }
+            firsts[2 * b] = ids[2 * from];
+            firsts[2 * b + 1] = ids[2 * from + 1];
+            blockStart[b] = bits;
+            baseCounter[b] = (int) minCounter;
+            baseTimestamp[b] = minTimestamp;
+            counterBits[b] = (byte) bitsFor(maxCounter - minCounter);
+            timestampBits[b] = (byte) bitsFor(maxTimestamp - minTimestamp);
+            bits += (long) (to - from) * (counterBits[b] + nodeBits + timestampBits[b]);
+        }
+
+        // one spare word so that reads straddling the end of the last word stay in bounds
+        packed = new long[(int) ((bits + 63) >>> 6) + 1];
+        for (int i = 0; i < count; i++) {
+            int b = i >>> BLOCK_SHIFT;
+            long hi = ids[2 * i];
+            long lo = ids[2 * i + 1];
+            long pos = position(b, i);
+            write(pos, (hi >>> 32) - (baseCounter[b] & 0xFFFFFFFFL), counterBits[b]);
+            write(pos + counterBits[b], Arrays.binarySearch(nodes, node(hi, lo)), nodeBits);
+            write(pos + counterBits[b] + nodeBits, (lo & TIMESTAMP_MASK) - baseTimestamp[b], timestampBits[b]);
+        }
+    }
+
+    /**
+     * Get the number of ids in the column.
+     * @return The number of ids.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the order the ids are sorted in.
+     * @return The order of the column.
+     */
+    public UUIDSort.Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the approximate memory taken by the encoded ids, not counting object headers.
+     * @return Size in bytes.
+     */
+    public long sizeInBytes() {
+        return 8L * (packed.length + nodes.length) + (8 + 4 + 8 + 1 + 1 + 16) * (long) blockStart.length;
+    }
+
+    /**
+     * Get the id at an index as a UUID object.
+     * @param index Index of the id, in the order of the column.
+     * @return The id.
+     */
+    public UUID get(int index) {
+        checkIndex(index);
+        int b = index >>> BLOCK_SHIFT;
+        long pos = position(b, index);
+        long node = nodes[(int) read(pos + counterBits[b], nodeBits)];
+        return new UUID(hi(b, pos, node), lo(b, pos, node));
+    }
+
+    /**
+     * Decode a run of ids into an array, each as two longs.
+     * @param index Index of the first id, in the order of the column.
+     * @param count Number of ids to decode.
+     * @param dest Array to write the ids into.
+     * @param destOffset Index in the array of the first long to write.
+     */
+    public void get(int index, int count, long[] dest, int destOffset) {
+        UUIDTable.checkIds(dest, destOffset, count);
+        if (index < 0 || index > size - count)
+            throw new IndexOutOfBoundsException("need " + count + " ids at index " + index + " of column size " + size);
+
+        for (int i = index; i < index + count; i++, destOffset += 2) {
+            int b = i >>> BLOCK_SHIFT;
+            long pos = position(b, i);
+            long node = nodes[(int) read(pos + counterBits[b], nodeBits)];
+            dest[destOffset]     = hi(b, pos, node);
+            dest[destOffset + 1] = lo(b, pos, node);
+        }
+    }
+
+    /**
+     * Get the most significant bits of the id at an index.
+     * @param index Index of the id, in the order of the column.
+     * @return The first half of the id.
+     */
+    public long getMostSignificantBits(int index) {
+        checkIndex(index);
+        int b = index >>> BLOCK_SHIFT;
+        long pos = position(b, index);
+        return hi(b, pos, nodes[(int) read(pos + counterBits[b], nodeBits)]);
+    }
+
+    /**
+     * Get the least significant bits of the id at an index.
+     * @param index Index of the id, in the order of the column.
+     * @return The second half of the id.
+     */
+    public long getLeastSignificantBits(int index) {
+        checkIndex(index);
+        int b = index >>> BLOCK_SHIFT;
+        long pos = position(b, index);
+        return lo(b, pos, nodes[(int) read(pos + counterBits[b], nodeBits)]);
+    }
+
+    /**
+     * Find an id by binary search, in the order of the column. The block is found from the uncompressed first id of
+     * each block, and only the ids within it are decoded.
+     * @param hi Most significant bits of the id.
+     * @param lo Least significant bits of the id.
+     * @return The index of an equal id, or (-(insertion point) - 1) if there is none, as in Arrays.binarySearch().
+     */
+    public int indexOf(long hi, long lo) {
+        boolean timestamp = order == UUIDSort.Order.TIMESTAMP;
+
+        // find the last block whose first id is not greater than the id
+        int low = 0;
+        int high = blockStart.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(timestamp, firsts[2 * mid], firsts[2 * mid + 1], hi, lo);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return mid << BLOCK_SHIFT;
+        }
+        if (high < 0)
+            return -1;
+
+        int b = high;
+        int cw = counterBits[b];
+        int tw = timestampBits[b];
+        int record = cw + nodeBits + tw;
+        long counterBase = baseCounter[b] & 0xFFFFFFFFL;
+        long timestampBase = baseTimestamp[b];
+
+        // the first id is known to be smaller, so search the rest of the block
+        int from = b << BLOCK_SHIFT;
+        low = 1;
+        high = Math.min(size - from, BLOCK_SIZE) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long pos = blockStart[b] + (long) mid * record;
+            long node = nodes[(int) read(pos + cw, nodeBits)];
+            long midHi = ((counterBase + read(pos, cw)) << 32) | (node >>> 16);
+            long midLo = (node << 48) | (timestampBase + read(pos + cw + nodeBits, tw));
+            int c = compare(timestamp, midHi, midLo, hi, lo);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return from + mid;
+        }
+        return -(from + low + 1);
+    }
+
+    /**
+     * Check whether the column holds an id.
+     * @param hi Most significant bits of the id.
+     * @param lo Least significant bits of the id.
+     * @return True if the id is in the column.
+     */
+    public boolean contains(long hi, long lo) {
+        return indexOf(hi, lo) >= 0;
+    }
+
+    /**
+     * Check whether the column holds an id.
+     * @param id The id, which must not be null.
+     * @return True if the id is in the column.
+     */
+    public boolean contains(UUID id) {
+        return indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Create a cursor positioned before the first id.
+     * @return A new cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Forward-only cursor over the ids of a column, in the order of the column. Each call to next() decodes one id
+     * into the cursor, so iterating over the column creates no objects other than the cursor. Cursors are not safe
+     * to share between threads, but any number of them can read the same column.
+     */
+    public final class Cursor {
+        private int index = -1;
+        private long hi;
+        private long lo;
+
+        // fields of the current block, and the bit position of the next record in it
+        private long pos;
+        private int cw;
+        private int tw;
+        private int record;
+        private long counterBase;
+        private long timestampBase;
+
+        private Cursor() {
+        }
+
+        /**
+         * Move to the next id.
+         * @return True if there was another id, false if the cursor has passed the last id.
+         */
+        public boolean next() {
+            if (index >= size - 1) {
+                index = size;
+                return false;
+            }
+
+            if ((++index & (BLOCK_SIZE - 1)) == 0) {
+                int b = index >>> BLOCK_SHIFT;
+                pos = blockStart[b];
+                cw = counterBits[b];
+                tw = timestampBits[b];
+                record = cw + nodeBits + tw;
+                counterBase = baseCounter[b] & 0xFFFFFFFFL;
+                timestampBase = baseTimestamp[b];
+            }
+
+            long node = nodes[(int) read(pos + cw, nodeBits)];
+            hi = ((counterBase + read(pos, cw)) << 32) | (node >>> 16);
+            lo = (node << 48) | (timestampBase + read(pos + cw + nodeBits, tw));
+            pos += record;
+            return true;
+        }
+
+        /**
+         * Get the index of the current id.
+         * @return The index, -1 before the first call to next() and size() after the last id.
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Get the most significant bits of the current id.
+         * @return The first half of the id.
+         */
+        public long getMostSignificantBits() {
+            checkCurrent();
+            return hi;
+        }
+
+        /**
+         * Get the least significant bits of the current id.
+         * @return The second half of the id.
+         */
+        public long getLeastSignificantBits() {
+            checkCurrent();
+            return lo;
+        }
+
+        private void checkCurrent() {
+            if (index < 0 || index >= size)
+                throw new NoSuchElementException("Cursor is not on an id");
+        }
+    }
+
+    private long hi(int b, long pos, long node) {
+        long counter = (baseCounter[b] & 0xFFFFFFFFL) + read(pos, counterBits[b]);
+        return (counter << 32) | (node >>> 16);
+    }
+
+    private long lo(int b, long pos, long node) {
+        long timestamp = baseTimestamp[b] + read(pos + counterBits[b] + nodeBits, timestampBits[b]);
+        return (node << 48) | timestamp;
+    }
+
+    private long position(int b, int index) {
+        int record = counterBits[b] + nodeBits + timestampBits[b];
+        return blockStart[b] + (long) (index & (BLOCK_SIZE - 1)) * record;
+    }
+
+    /**
+     * Read a field of up to 63 bits, which spans at most two words.
+     */
+    private long read(long pos, int width) {
+        int word = (int) (pos >>> 6);
+        int shift = (int) pos & 63;
+        long value = packed[word] >>> shift;
+        if (shift + width > 64)
+            value |= packed[word + 1] << (64 - shift);
+        return value & ((1L << width) - 1);
+    }
+
+    private void write(long pos, long value, int width) {
+        int word = (int) (pos >>> 6);
+        int shift = (int) pos & 63;
+        packed[word] |= value << shift;
+        if (shift + width > 64)
+            packed[word + 1] |= value >>> (64 - shift);
+    }
+
+    private static int compare(boolean timestamp, long hi1, long lo1, long hi2, long lo2) {
+        return timestamp ? UUID.compareByTimestamp(hi1, lo1, hi2, lo2) : UUID.compare(hi1, lo1, hi2, lo2);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index " + index + " of column size " + size);
+    }
+
+    /**
+     * Get bytes 4 - 9 of an id as a 48-bit number.
+     */
+    private static long node(long hi, long lo) {
+        return ((hi & 0xFFFFFFFFL) << 16) | (lo >>> 48);
+    }
+
+    private static long[] distinctNodes(long[] ids, int count) {
+        long[] nodes = new long[count];
+        for (int i = 0; i < count; i++)
+            nodes[i] = node(ids[2 * i], ids[2 * i + 1]);
+        Arrays.sort(nodes);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || nodes[i] != nodes[distinct - 1])
+                nodes[distinct++] = nodes[i];
+        }
+        return Arrays.copyOf(nodes, distinct);
+    }
+
+    /**
+     * Get the number of bits needed to hold values from 0 up to and including a maximum.
+     */
+    private static int bitsFor(long max) {
+        return 64 - Long.numberOfLeadingZeros(max);
+    }
+}
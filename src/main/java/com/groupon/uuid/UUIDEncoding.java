@@ -0,0 +1,373 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.util.Arrays;
+
+/**
+ * Shorter text forms of a UUID than the 36 characters of toString(), for log lines, message keys and URLs. Every
+ * encoding writes the 128 bits of the id most significant first, so it can be read back exactly, and only accepts
+ * the one form it writes for each id (apart from the aliases allowed in Crockford base 32), so encoded ids can be
+ * compared as strings.
+ *
+ * BASE64_URL is the standard URL and filename safe base 64 alphabet without padding, so any base 64 library can
+ * read it, but its alphabet is not in ASCII order and encoded ids don't sort like the ids themselves. BASE64_ORDERED
+ * uses the same 64 characters rearranged into ASCII order, and CROCKFORD_BASE32 is in ASCII order already, so sorting
+ * either encoding as strings or bytes puts the ids in their natural order. CROCKFORD_BASE32 has the same layout as a
+ * ULID, is case insensitive, and reads 'I' and 'L' as '1' and 'O' as '0'.
+ *
+ * As with UUID parsing, the parse and validation methods read from any position in a CharSequence or an ASCII byte
+ * array without copying.
+ */
+public enum UUIDEncoding {
+    /**
+     * 22 characters from A-Z, a-z, 0-9, '-' and '_', as in RFC 4648 section 5, without padding.
+     */
+    BASE64_URL("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", 6, false),
+
+    /**
+     * 22 characters from the base 64 URL alphabet in ASCII order, so encoded ids sort in the same order as the ids.
+     */
+    BASE64_ORDERED("-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz", 6, false),
+
+    /**
+     * 26 characters from Douglas Crockford's base 32 alphabet, upper case when written, so encoded ids sort in the
+     * same order as the ids.
+     */
+    CROCKFORD_BASE32("0123456789ABCDEFGHJKMNPQRSTVWXYZ", 5, true);
+
+    private final char[] alphabet;
+    private final byte[] values;
+    private final int bits;
+    private final int length;
+
+    // zero bits before the 128 bits of the id in the first character, or after them in the last
+    private final int leadingPad;
+    private final int trailingPad;
+
+    UUIDEncoding(String alphabet, int bits, boolean leading) {
+        this.alphabet = alphabet.toCharArray();
+        this.bits = bits;
+        this.length = (128 + bits - 1) / bits;
+        this.leadingPad = leading ? length * bits - 128 : 0;
+        this.trailingPad = leading ? 0 : length * bits - 128;
+
+        values = new byte[128];
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < this.alphabet.length; i++)
+            values[this.alphabet[i]] = (byte) i;
+
+        if (leading) {
+            // Crockford base 32 is read in either case, with the characters it leaves out read as the ones they
+            // look like
+            for (int i = 0; i < this.alphabet.length; i++)
+                values[Character.toLowerCase(this.alphabet[i])] = (byte) i;
+            values['I'] = values['i'] = values['L'] = values['l'] = 1;
+            values['O'] = values['o'] = 0;
+        }
+    }
+
+    /**
+     * Get the number of characters in this encoding of an id.
+     * @return 22 for the base 64 encodings, 26 for base 32.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Encode an id.
+     * @param id UUID to encode.
+     * @return The encoded id.
+     */
+    public String encode(UUID id) {
+        return encode(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Encode an id given as two longs.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @return The encoded id.
+     */
+    public String encode(long hi, long lo) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = digit(hi, lo, i);
+        return new String(chars);
+    }
+
+    /**
+     * Append the encoding of an id given as two longs to a StringBuilder, without creating a String or a temporary
+     * array.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @param sb Builder to append to.
+     * @return The builder.
+     */
+    public StringBuilder appendTo(long hi, long lo, StringBuilder sb) {
+        sb.ensureCapacity(sb.length() + length);
+        for (int i = 0; i < length; i++)
+            sb.append(digit(hi, lo, i));
+        return sb;
+    }
+
+    /**
+     * Write the encoding of an id given as two longs into a byte array as ASCII characters. Throws an
+     * IndexOutOfBoundsException, without writing anything, if there is no room for length() bytes after the offset.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @param dest Byte array to write into.
+     * @param offset Index in the array of the first character.
+     */
+    public void writeAscii(long hi, long lo, byte[] dest, int offset) {
+        checkRegion(offset, dest.length);
+        for (int i = 0; i < length; i++)
+            dest[offset + i] = (byte) digit(hi, lo, i);
+    }
+
+    /**
+     * Parse a whole string in this encoding. This throws an IllegalArgumentException if it is not exactly one
+     * encoded id.
+     * @param s Encoded id.
+     * @return The parsed UUID.
+     */
+    public UUID parse(CharSequence s) {
+        if (s.length() != length)
+            throw UUID.malformed(s);
+        return parse(s, 0);
+    }
+
+    /**
+     * Parse the encoded id starting at an offset of a CharSequence. This throws an IllegalArgumentException if the
+     * characters are not a valid encoding, or an IndexOutOfBoundsException if there are fewer than length() of them.
+     * @param s Characters containing an encoded id.
+     * @param offset Index of the first character of the id.
+     * @return The parsed UUID.
+     */
+    public UUID parse(CharSequence s, int offset) {
+        checkRegion(offset, s.length());
+        return new UUID(high(s, null, offset), low(s, null, offset));
+    }
+
+    /**
+     * Parse the encoded id in the ASCII bytes starting at an offset of a byte array. This throws an
+     * IllegalArgumentException if the bytes are not a valid encoding, or an IndexOutOfBoundsException if there are
+     * fewer than length() of them.
+     * @param ascii Byte array containing an encoded id as ASCII characters.
+     * @param offset Index of the first character of the id.
+     * @return The parsed UUID.
+     */
+    public UUID parse(byte[] ascii, int offset) {
+        checkRegion(offset, ascii.length);
+        return new UUID(high(null, ascii, offset), low(null, ascii, offset));
+    }
+
+    /**
+     * Parse the encoded id starting at an offset of a CharSequence into two longs, most significant half first,
+     * without creating any objects.
+     * @param s Characters containing an encoded id.
+     * @param offset Index of the first character of the id.
+     * @param dest Array to write the two longs into.
+     * @param destOffset Index in the array for the most significant half.
+     */
+    public void parse(CharSequence s, int offset, long[] dest, int destOffset) {
+        checkRegion(offset, s.length());
+        UUIDTable.checkIds(dest, destOffset, 1);
+
+        long hi = high(s, null, offset);
+        long lo = low(s, null, offset);
+        dest[destOffset]     = hi;
+        dest[destOffset + 1] = lo;
+    }
+
+    /**
+     * Parse the encoded id in the ASCII bytes starting at an offset of a byte array into two longs, most significant
+     * half first, without creating any objects.
+     * @param ascii Byte array containing an encoded id as ASCII characters.
+     * @param offset Index of the first character of the id.
+     * @param dest Array to write the two longs into.
+     * @param destOffset Index in the array for the most significant half.
+     */
+    public void parse(byte[] ascii, int offset, long[] dest, int destOffset) {
+        checkRegion(offset, ascii.length);
+        UUIDTable.checkIds(dest, destOffset, 1);
+
+        long hi = high(null, ascii, offset);
+        long lo = low(null, ascii, offset);
+        dest[destOffset]     = hi;
+        dest[destOffset + 1] = lo;
+    }
+
+    /**
+     * Check if a whole string is exactly one id in this encoding.
+     * @param s String to check.
+     * @return Whether the string can be parsed, no exceptions are thrown.
+     */
+    public boolean isValid(CharSequence s) {
+        return s != null && s.length() == length && isValid(s, 0);
+    }
+
+    /**
+     * Check if the characters starting at an offset of a CharSequence are an id in this encoding. The sequence may
+     * contain other characters after the id.
+     * @param s Characters to check.
+     * @param offset Index of the first character of the id.
+     * @return Whether the characters can be parsed, no exceptions are thrown.
+     */
+    public boolean isValid(CharSequence s, int offset) {
+        return s != null && offset >= 0 && offset <= s.length() - length && isValid(s, null, offset);
+    }
+
+    /**
+     * Check if the ASCII bytes starting at an offset of a byte array are an id in this encoding. The array may
+     * contain other bytes after the id.
+     * @param ascii Bytes to check.
+     * @param offset Index of the first character of the id.
+     * @return Whether the bytes can be parsed, no exceptions are thrown.
+     */
+    public boolean isValid(byte[] ascii, int offset) {
+        return ascii != null && offset >= 0 && offset <= ascii.length - length && isValid(null, ascii, offset);
+    }
+
+    /**
+     * Get character i of the encoding of an id. Each character is taken with a fixed shift, from the first half of the
+     * id, from the one character that may span both halves, from the second half, or from the one character that may
+     * end with padding, so no character depends on the one before.
+     */
+    private char digit(long hi, long lo, int i) {
+        // position in the id of the lowest bit of the character, negative for padding after the id
+        int pos = (length - 1 - i) * bits - trailingPad;
+        long v = pos >= 64 ? hi >>> (pos - 64) : pos > 0 ? (hi << (64 - pos)) | (lo >>> pos) : lo << -pos;
+        return alphabet[(int) v & ((1 << bits) - 1)];
+    }
+
+    /**
+     * Parse the most significant half of the encoded id in either a CharSequence or, if that is null, an ASCII byte
+     * array, from the characters that hold any of its bits. Throws an IllegalArgumentException if one of them isn't in
+     * the alphabet, or the first character has padding bits set.
+     */
+    private long high(CharSequence s, byte[] ascii, int offset) {
+        long hi = 0;
+        int bad = 0;
+        for (int i = 0, pos = (length - 1) * bits - trailingPad; pos > 64 - bits; i++, pos -= bits) {
+            int d = digitAt(s, ascii, offset + i);
+            bad |= d;
+            hi |= pos >= 64 ? (long) d << (pos - 64) : (long) d >>> (64 - pos);
+        }
+
+        // invalid characters have the value -1, so any of them makes the combined values negative
+        if (bad < 0 || !leadingPadded(digitAt(s, ascii, offset)))
+            throw malformed(s, ascii, offset);
+        return hi;
+    }
+
+    /**
+     * Parse the least significant half of the encoded id, as high() does for the most significant half.
+     */
+    private long low(CharSequence s, byte[] ascii, int offset) {
+        long lo = 0;
+        int bad = 0;
+        int first = ((length - 1) * bits - trailingPad - 64) / bits + 1;
+        for (int i = first, pos = (length - 1 - first) * bits - trailingPad; i < length; i++, pos -= bits) {
+            int d = digitAt(s, ascii, offset + i);
+            bad |= d;
+            lo |= pos >= 0 ? (long) d << pos : (long) d >>> -pos;
+        }
+
+        if (bad < 0 || !trailingPadded(digitAt(s, ascii, offset + length - 1)))
+            throw malformed(s, ascii, offset);
+        return lo;
+    }
+
+    /**
+     * Check the length() characters at an offset of either a CharSequence or, if that is null, an ASCII byte array.
+     */
+    private boolean isValid(CharSequence s, byte[] ascii, int offset) {
+        for (int i = offset; i < offset + length; i++) {
+            if (digitAt(s, ascii, i) < 0)
+                return false;
+        }
+        return leadingPadded(digitAt(s, ascii, offset)) && trailingPadded(digitAt(s, ascii, offset + length - 1));
+    }
+
+    /**
+     * Look up the value of the character at an index of either a CharSequence or, if that is null, an ASCII byte
+     * array, -1 if it isn't in the alphabet.
+     */
+    private int digitAt(CharSequence s, byte[] ascii, int index) {
+        return value(s != null ? s.charAt(index) : ascii[index] & 0xFF);
+    }
+
+    /**
+     * Look up the value of a character, -1 if it isn't in the alphabet.
+     */
+    private int value(int c) {
+        return c < 128 ? values[c] : -1;
+    }
+
+    /**
+     * Check that the padding bits before the id in its first character are zero.
+     */
+    private boolean leadingPadded(int first) {
+        return first >>> (bits - leadingPad) == 0;
+    }
+
+    /**
+     * Check that the padding bits after the id in its last character are zero.
+     */
+    private boolean trailingPadded(int last) {
+        return (last & ((1 << trailingPad) - 1)) == 0;
+    }
+
+    /**
+     * Create the exception for a malformed id in either a CharSequence or, if that is null, an ASCII byte array.
+     */
+    private IllegalArgumentException malformed(CharSequence s, byte[] ascii, int offset) {
+        if (s != null)
+            return UUID.malformed(s.subSequence(offset, offset + length));
+
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) (ascii[offset + i] & 0xFF);
+        return UUID.malformed(new String(chars));
+    }
+
+    /**
+     * Check that there are length() characters after an offset, throwing an IndexOutOfBoundsException otherwise.
+     */
+    private void checkRegion(int offset, int end) {
+        if (offset < 0 || offset > end - length)
+            throw new IndexOutOfBoundsException("No room for an encoded UUID at offset " + offset + " of " + end);
+    }
+}
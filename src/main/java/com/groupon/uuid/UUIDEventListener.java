@@ -0,0 +1,58 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+/**
+ * Receives notable events from instrumented generators and from clocks, for forwarding to logging, tracing or event
+ * recording systems. Listeners are registered with UUIDMetrics.addListener() and are called on the thread where the
+ * event happened, so they should return quickly and must not throw.
+ */
+public interface UUIDEventListener {
+
+    /**
+     * Called when a sampled id took longer to generate than the generator's slow threshold.
+     * @param generator Generator the id came from.
+     * @param stage Which part of generation was slow, "counter" for taking the counter value or "clock" for reading
+     *              the clock.
+     * @param nanos How long it took in nanoseconds.
+     */
+    void slowGeneration(UUIDGenerator generator, String stage, long nanos);
+
+    /**
+     * Called when a clock that detects regressions sees time move backwards.
+     * @param clock The clock.
+     * @param from The latest time the clock had returned before the regression.
+     * @param to The earlier time the underlying source moved back to.
+     */
+    void clockRegressed(MillisClock clock, long from, long to);
+}
@@ -0,0 +1,337 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads single fields of ids without creating UUID objects, Dates or byte arrays, for jobs that only need, say, the
+ * timestamp of each id in a log. The fields are those of the UUID getters: the version character, and for vB ids the
+ * process id, the timestamp in milliseconds and the 28-bit MAC address fragment. As with the getters, the vB fields
+ * are -1 for ids of any other version.
+ *
+ * Fields can be read from ids held as two longs, from runs of ids in a long array into a primitive array per field
+ * (as written by UUID.generate() or UUID.parse() into longs), or from the canonical 36-character form in a
+ * CharSequence, an ASCII byte array or an ASCII buffer. Reading from the text form only looks at the characters of the
+ * version and the field asked for, and throws an IllegalArgumentException if those aren't valid hex; use
+ * UUID.isValidUUID() first to check the rest of the id.
+ */
+public final class UUIDFields {
+    private static final int VB                 = 0xB;
+    private static final long TIMESTAMP_MASK    = 0xFFFFFFFFFFFFL;
+
+    private UUIDFields() {
+    }
+
+    /**
+     * Get the version character of an id given as two longs, as UUID.getVersion() does.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @return The version as a lower case hex character.
+     */
+    public static char version(long hi, long lo) {
+        return Character.forDigit((int) (hi >>> 12) & 0xF, 16);
+    }
+
+    /**
+     * Get the process id of a vB id given as two longs.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @return Process id from 0 to 65,535, or -1 if the id is not vB.
+     */
+    public static int processId(long hi, long lo) {
+        return isVB(hi) ? (int) (hi >>> 16) & 0xFFFF : -1;
+    }
+
+    /**
+     * Get the timestamp of a vB id given as two longs.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @return Milliseconds since the epoch, or -1 if the id is not vB.
+     */
+    public static long timestampMillis(long hi, long lo) {
+        return isVB(hi) ? lo & TIMESTAMP_MASK : -1;
+    }
+
+    /**
+     * Get the MAC address fragment of a vB id given as two longs, the same bits as UUID.getMacFragment() as a number.
+     * @param hi Most significant bits of the UUID.
+     * @param lo Least significant bits of the UUID.
+     * @return Last 28 bits of the MAC address, or -1 if the id is not vB.
+     */
+    public static int macFragment(long hi, long lo) {
+        return isVB(hi) ? (int) ((hi & 0xFFF) << 16 | lo >>> 48) : -1;
+    }
+
+    /**
+     * Get the process ids of a run of ids in a long array, -1 for ids that are not vB.
+     * @param ids Array holding the ids as pairs of longs.
+     * @param offset Index in the array of the most significant half of the first id.
+     * @param count Number of ids.
+     * @param dest Array to write one process id per id into.
+     * @param destOffset Index in dest for the first id's process id.
+     */
+    public static void processId(long[] ids, int offset, int count, int[] dest, int destOffset) {
+        UUIDTable.checkIds(ids, offset, count);
+        checkColumn(dest.length, destOffset, count);
+
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = processId(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+    }
+
+    /**
+     * Get the timestamps of a run of ids in a long array, -1 for ids that are not vB.
+     * @param ids Array holding the ids as pairs of longs.
+     * @param offset Index in the array of the most significant half of the first id.
+     * @param count Number of ids.
+     * @param dest Array to write one timestamp per id into.
+     * @param destOffset Index in dest for the first id's timestamp.
+     */
+    public static void timestampMillis(long[] ids, int offset, int count, long[] dest, int destOffset) {
+        UUIDTable.checkIds(ids, offset, count);
+        checkColumn(dest.length, destOffset, count);
+
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = timestampMillis(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+    }
+
+    /**
+     * Get the MAC address fragments of a run of ids in a long array, -1 for ids that are not vB.
+     * @param ids Array holding the ids as pairs of longs.
+     * @param offset Index in the array of the most significant half of the first id.
+     * @param count Number of ids.
+     * @param dest Array to write one MAC address fragment per id into.
+     * @param destOffset Index in dest for the first id's fragment.
+     */
+    public static void macFragment(long[] ids, int offset, int count, int[] dest, int destOffset) {
+        UUIDTable.checkIds(ids, offset, count);
+        checkColumn(dest.length, destOffset, count);
+
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = macFragment(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+    }
+
+    /**
+     * Get the version character of the id starting at an offset of a CharSequence.
+     * @param s Characters containing a UUID in the canonical form.
+     * @param offset Index of the first character of the UUID.
+     * @return The version as a lower case hex character.
+     */
+    public static char version(CharSequence s, int offset) {
+        UUID.checkRegion(offset, s.length());
+        long version = UUID.parseHex(s, offset + 14, 1);
+        if (version < 0)
+            throw UUID.malformed(s.subSequence(offset, offset + 36));
+        return Character.forDigit((int) version, 16);
+    }
+
+    /**
+     * Get the process id of the vB id starting at an offset of a CharSequence.
+     * @param s Characters containing a UUID in the canonical form.
+     * @param offset Index of the first character of the UUID.
+     * @return Process id from 0 to 65,535, or -1 if the id is not vB.
+     */
+    public static int processId(CharSequence s, int offset) {
+        UUID.checkRegion(offset, s.length());
+        long version = UUID.parseHex(s, offset + 14, 1);
+        long pid = UUID.parseHex(s, offset + 9, 4);
+        if ((version | pid) < 0)
+            throw UUID.malformed(s.subSequence(offset, offset + 36));
+        return version == VB ? (int) pid : -1;
+    }
+
+    /**
+     * Get the timestamp of the vB id starting at an offset of a CharSequence.
+     * @param s Characters containing a UUID in the canonical form.
+     * @param offset Index of the first character of the UUID.
+     * @return Milliseconds since the epoch, or -1 if the id is not vB.
+     */
+    public static long timestampMillis(CharSequence s, int offset) {
+        UUID.checkRegion(offset, s.length());
+        long version = UUID.parseHex(s, offset + 14, 1);
+        long timestamp = UUID.parseHex(s, offset + 24, 12);
+        if ((version | timestamp) < 0)
+            throw UUID.malformed(s.subSequence(offset, offset + 36));
+        return version == VB ? timestamp : -1;
+    }
+
+    /**
+     * Get the MAC address fragment of the vB id starting at an offset of a CharSequence.
+     * @param s Characters containing a UUID in the canonical form.
+     * @param offset Index of the first character of the UUID.
+     * @return Last 28 bits of the MAC address, or -1 if the id is not vB.
+     */
+    public static int macFragment(CharSequence s, int offset) {
+        UUID.checkRegion(offset, s.length());
+        long version = UUID.parseHex(s, offset + 14, 1);
+        long a = UUID.parseHex(s, offset + 15, 3);
+        long b = UUID.parseHex(s, offset + 19, 4);
+        if ((version | a | b) < 0)
+            throw UUID.malformed(s.subSequence(offset, offset + 36));
+        return version == VB ? (int) (a << 16 | b) : -1;
+    }
+
+    /**
+     * Get the version character of the id in the ASCII bytes starting at an offset of a byte array.
+     * @param ascii Byte array containing a UUID in the canonical form as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @return The version as a lower case hex character.
+     */
+    public static char version(byte[] ascii, int offset) {
+        UUID.checkRegion(offset, ascii.length);
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        if (version < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return Character.forDigit((int) version, 16);
+    }
+
+    /**
+     * Get the process id of the vB id in the ASCII bytes starting at an offset of a byte array.
+     * @param ascii Byte array containing a UUID in the canonical form as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @return Process id from 0 to 65,535, or -1 if the id is not vB.
+     */
+    public static int processId(byte[] ascii, int offset) {
+        UUID.checkRegion(offset, ascii.length);
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        long pid = UUID.parseHex(ascii, offset + 9, 4);
+        if ((version | pid) < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return version == VB ? (int) pid : -1;
+    }
+
+    /**
+     * Get the timestamp of the vB id in the ASCII bytes starting at an offset of a byte array.
+     * @param ascii Byte array containing a UUID in the canonical form as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @return Milliseconds since the epoch, or -1 if the id is not vB.
+     */
+    public static long timestampMillis(byte[] ascii, int offset) {
+        UUID.checkRegion(offset, ascii.length);
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        long timestamp = UUID.parseHex(ascii, offset + 24, 12);
+        if ((version | timestamp) < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return version == VB ? timestamp : -1;
+    }
+
+    /**
+     * Get the MAC address fragment of the vB id in the ASCII bytes starting at an offset of a byte array.
+     * @param ascii Byte array containing a UUID in the canonical form as ASCII characters.
+     * @param offset Index of the first character of the UUID.
+     * @return Last 28 bits of the MAC address, or -1 if the id is not vB.
+     */
+    public static int macFragment(byte[] ascii, int offset) {
+        UUID.checkRegion(offset, ascii.length);
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        long a = UUID.parseHex(ascii, offset + 15, 3);
+        long b = UUID.parseHex(ascii, offset + 19, 4);
+        if ((version | a | b) < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return version == VB ? (int) (a << 16 | b) : -1;
+    }
+
+    /**
+     * Get the version character of the id in the ASCII bytes at the buffer's position. The position is not changed.
+     * @param ascii Buffer containing a UUID in the canonical form as ASCII characters.
+     * @return The version as a lower case hex character.
+     */
+    public static char version(ByteBuffer ascii) {
+        int offset = ascii.position();
+        UUID.checkRegion(offset, ascii.limit());
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        if (version < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return Character.forDigit((int) version, 16);
+    }
+
+    /**
+     * Get the process id of the vB id in the ASCII bytes at the buffer's position. The position is not changed.
+     * @param ascii Buffer containing a UUID in the canonical form as ASCII characters.
+     * @return Process id from 0 to 65,535, or -1 if the id is not vB.
+     */
+    public static int processId(ByteBuffer ascii) {
+        int offset = ascii.position();
+        UUID.checkRegion(offset, ascii.limit());
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        long pid = UUID.parseHex(ascii, offset + 9, 4);
+        if ((version | pid) < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return version == VB ? (int) pid : -1;
+    }
+
+    /**
+     * Get the timestamp of the vB id in the ASCII bytes at the buffer's position. The position is not changed.
+     * @param ascii Buffer containing a UUID in the canonical form as ASCII characters.
+     * @return Milliseconds since the epoch, or -1 if the id is not vB.
+     */
+    public static long timestampMillis(ByteBuffer ascii) {
+        int offset = ascii.position();
+        UUID.checkRegion(offset, ascii.limit());
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        long timestamp = UUID.parseHex(ascii, offset + 24, 12);
+        if ((version | timestamp) < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return version == VB ? timestamp : -1;
+    }
+
+    /**
+     * Get the MAC address fragment of the vB id in the ASCII bytes at the buffer's position. The position is not
+     * changed.
+     * @param ascii Buffer containing a UUID in the canonical form as ASCII characters.
+     * @return Last 28 bits of the MAC address, or -1 if the id is not vB.
+     */
+    public static int macFragment(ByteBuffer ascii) {
+        int offset = ascii.position();
+        UUID.checkRegion(offset, ascii.limit());
+        long version = UUID.parseHex(ascii, offset + 14, 1);
+        long a = UUID.parseHex(ascii, offset + 15, 3);
+        long b = UUID.parseHex(ascii, offset + 19, 4);
+        if ((version | a | b) < 0)
+            throw UUID.malformed(UUID.asciiString(ascii, offset));
+        return version == VB ? (int) (a << 16 | b) : -1;
+    }
+
+    private static boolean isVB(long hi) {
+        return ((hi >>> 12) & 0xF) == VB;
+    }
+
+    /**
+     * Check that a column array has room for one value per id after an offset.
+     */
+    private static void checkColumn(int length, int offset, int count) {
+        if (offset < 0 || offset > length - count)
+            throw new IndexOutOfBoundsException("need " + count + " values at offset " + offset +
+                    " of array length " + length);
+    }
+}
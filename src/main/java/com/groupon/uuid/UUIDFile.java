@@ -0,0 +1,703 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only, memory-mapped file of sorted, distinct ids, for sets of ids too large to load into the heap on every
+ * start, such as the ids already processed by an idempotent consumer. Opening a file only reads its header and maps
+ * it, and lookups read the mapped pages directly, so they are served from the operating system's page cache and
+ * don't count against the heap.
+ *
+ * The file holds a 64 byte header, the ids as 16 bytes each in big-endian order, sorted in byte or timestamp order,
+ * and a fence index of every 256th id. Each run of 256 ids is 4 KB, so a lookup binary searches the small fence index
+ * and then a single page of ids. In timestamp order, vB ids in a range of timestamps are found the same way and read
+ * sequentially; in byte order, a timestamp range has to scan the whole file.
+ *
+ * Files are written with a Builder, which sorts ids added in any order. UUIDFile objects are safe to share between
+ * threads. The mapping is released when the object is garbage collected.
+ */
+public final class UUIDFile {
+    private static final long MAGIC             = 0x4C4F43414C495459L; // "LOCALITY"
+    private static final int FORMAT_VERSION     = 1;
+    private static final int HEADER_SIZE        = 64;
+    private static final int FENCE_SHIFT        = 8;
+    private static final int FENCE_INTERVAL     = 1 << FENCE_SHIFT;
+    // ids per mapped segment, so that each segment is at most 1 GB and no id straddles two segments
+    private static final int SEGMENT_SHIFT      = 26;
+    private static final long SEGMENT_MASK      = (1L << SEGMENT_SHIFT) - 1;
+    private static final long TIMESTAMP_MASK    = 0xFFFFFFFFFFFFL;
+
+    private final File file;
+    private final UUIDSort.Order order;
+    private final long size;
+    private final ByteBuffer[] segments;
+    private final ByteBuffer fences;
+    private final int fenceCount;
+
+    private UUIDFile(File file, UUIDSort.Order order, long size, ByteBuffer[] segments, ByteBuffer fences) {
+        this.file = file;
+        this.order = order;
+        this.size = size;
+        this.segments = segments;
+        this.fences = fences;
+        this.fenceCount = fences.capacity() >>> 4;
+    }
+
+    /**
+     * Open and map a file written by a Builder.
+     * @param file File to open.
+     * @return The opened file.
+     * @throws IOException If the file can't be read or is not a complete UUID file.
+     */
+    public static UUIDFile open(File file) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("Tried to open a null file");
+
+        // mappings stay valid after the channel they were made from is closed
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // read the whole header
+            }
+
+            long size = header.getLong(16);
+            long fenceOffset = header.getLong(40);
+            int orderIndex = header.getInt(12);
+            long fenceCount = (size + FENCE_INTERVAL - 1) >>> FENCE_SHIFT;
+            if (header.hasRemaining() || header.getLong(0) != MAGIC || header.getInt(8) != FORMAT_VERSION
+                    || orderIndex < 0 || orderIndex >= UUIDSort.Order.values().length || size < 0
+                    || header.getInt(24) != FENCE_INTERVAL || header.getLong(32) != HEADER_SIZE
+                    || fenceOffset != HEADER_SIZE + 16 * size || channel.size() != fenceOffset + 16 * fenceCount
+                    || 16 * fenceCount > Integer.MAX_VALUE)
+                throw new IOException("Not a complete UUID file: " + file);
+
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int s = 0; s < segments.length; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long ids = Math.min(size - first, 1L << SEGMENT_SHIFT);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 16 * first, 16 * ids);
+            }
+            MappedByteBuffer fences = channel.map(FileChannel.MapMode.READ_ONLY, fenceOffset, 16 * fenceCount);
+            return new UUIDFile(file, UUIDSort.Order.values()[orderIndex], size, segments, fences);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Get the file this was opened from.
+     * @return The file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of ids in the file.
+     * @return The number of ids.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the order the ids are sorted in.
+     * @return The order of the file.
+     */
+    public UUIDSort.Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the id at an index as a UUID object.
+     * @param index Index of the id, in the order of the file.
+     * @return The id.
+     */
+    public UUID get(long index) {
+        checkIndex(index);
+        return new UUID(hi(index), lo(index));
+    }
+
+    /**
+     * Read a run of ids into an array, each as two longs.
+     * @param index Index of the first id, in the order of the file.
+     * @param count Number of ids to read.
+     * @param dest Array to write the ids into.
+     * @param destOffset Index in the array of the first long to write.
+     */
+    public void get(long index, int count, long[] dest, int destOffset) {
+        UUIDTable.checkIds(dest, destOffset, count);
+        if (index < 0 || index > size - count)
+            throw new IndexOutOfBoundsException("need " + count + " ids at index " + index + " of file size " + size);
+
+        for (long i = index; i < index + count; i++, destOffset += 2) {
+            dest[destOffset]     = hi(i);
+            dest[destOffset + 1] = lo(i);
+        }
+    }
+
+    /**
+     * Find an id by binary search, in the order of the file.
+     * @param hi Most significant bits of the id.
+     * @param lo Least significant bits of the id.
+     * @return The index of the id, or (-(insertion point) - 1) if it is not in the file, as in Arrays.binarySearch().
+     */
+    public long indexOf(long hi, long lo) {
+        boolean timestamp = order == UUIDSort.Order.TIMESTAMP;
+
+        // find the last fence that is not greater than the id
+        int low = 0;
+        int high = fenceCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(timestamp, fences.getLong(16 * mid), fences.getLong(16 * mid + 8), hi, lo);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return (long) mid << FENCE_SHIFT;
+        }
+        if (high < 0)
+            return -1;
+
+        // the fence is known to be smaller, so search the rest of its page
+        long from = ((long) high << FENCE_SHIFT) + 1;
+        long to = Math.min(size, from - 1 + FENCE_INTERVAL) - 1;
+        while (from <= to) {
+            long mid = (from + to) >>> 1;
+            int c = compare(timestamp, hi(mid), lo(mid), hi, lo);
+            if (c < 0)
+                from = mid + 1;
+            else if (c > 0)
+                to = mid - 1;
+            else
+                return mid;
+        }
+        return -(from + 1);
+    }
+
+    /**
+     * Check whether the file holds an id.
+     * @param hi Most significant bits of the id.
+     * @param lo Least significant bits of the id.
+     * @return True if the id is in the file.
+     */
+    public boolean contains(long hi, long lo) {
+        return indexOf(hi, lo) >= 0;
+    }
+
+    /**
+     * Check whether the file holds an id.
+     * @param id The id, which must not be null.
+     * @return True if the id is in the file.
+     */
+    public boolean contains(UUID id) {
+        return indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Create a cursor over every id in the file, in the order of the file.
+     * @return A new cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor(-1, size, 0, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Create a cursor over the vB ids with timestamps from fromMillis, inclusive, to toMillis, exclusive, in the
+     * order of the file. In timestamp order the cursor starts at the first id in the range, found by binary search,
+     * and stops after the last one; in byte order it has to check every id in the file.
+     * @param fromMillis Start of the range, in milliseconds since the epoch.
+     * @param toMillis End of the range, in milliseconds since the epoch.
+     * @return A new cursor.
+     */
+    public Cursor range(long fromMillis, long toMillis) {
+        if (order != UUIDSort.Order.TIMESTAMP || fromMillis >= toMillis)
+            return new Cursor(-1, fromMillis >= toMillis ? -1 : size, fromMillis, toMillis, true);
+
+        // find the last fence with an earlier timestamp, then the first id of its page at or after the start
+        long from = Math.max(0, Math.min(fromMillis, TIMESTAMP_MASK + 1));
+        int low = 0;
+        int high = fenceCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if ((fences.getLong(16 * mid + 8) & TIMESTAMP_MASK) < from)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+        long start = high < 0 ? 0 : (long) high << FENCE_SHIFT;
+        long end = Math.min(size, start + FENCE_INTERVAL) - 1;
+        while (start <= end) {
+            long mid = (start + end) >>> 1;
+            if ((lo(mid) & TIMESTAMP_MASK) < from)
+                start = mid + 1;
+            else
+                end = mid - 1;
+        }
+        return new Cursor(start - 1, size, fromMillis, toMillis, true);
+    }
+
+    /**
+     * Forward-only cursor over ids in the file. Each call to next() reads one id into the cursor, so iterating creates
+     * no objects other than the cursor. Cursors are not safe to share between threads, but any number of them can read
+     * the same file.
+     */
+    public final class Cursor {
+        private long index;
+        private final long end;
+        private final long fromMillis;
+        private final long toMillis;
+        private final boolean filter;
+        private long hi;
+        private long lo;
+
+        private Cursor(long index, long end, long fromMillis, long toMillis, boolean filter) {
+            this.index = index;
+            this.end = end;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.filter = filter;
+        }
+
+        /**
+         * Move to the next id.
+         * @return True if there was another id, false if the cursor has passed the last one.
+         */
+        public boolean next() {
+            boolean sorted = order == UUIDSort.Order.TIMESTAMP;
+            while (++index < end) {
+                hi = hi(index);
+                lo = lo(index);
+                if (!filter)
+                    return true;
+
+                if (sorted && (lo & TIMESTAMP_MASK) >= toMillis)
+                    break;
+                // non-vB ids have no timestamp and are reported as -1
+                long timestamp = UUIDFields.timestampMillis(hi, lo);
+                if (timestamp >= 0 && timestamp >= fromMillis && timestamp < toMillis)
+                    return true;
+            }
+            index = Math.max(index, end);
+            hi = 0;
+            lo = 0;
+            return false;
+        }
+
+        /**
+         * Get the index of the current id.
+         * @return The index in the file.
+         */
+        public long index() {
+            return index;
+        }
+
+        /**
+         * Get the most significant bits of the current id.
+         * @return The first half of the id.
+         */
+        public long getMostSignificantBits() {
+            checkCurrent();
+            return hi;
+        }
+
+        /**
+         * Get the least significant bits of the current id.
+         * @return The second half of the id.
+         */
+        public long getLeastSignificantBits() {
+            checkCurrent();
+            return lo;
+        }
+
+        private void checkCurrent() {
+            if (index < 0 || index >= end)
+                throw new NoSuchElementException("Cursor is not on an id");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "UUIDFile(" + file + ", " + size + " ids, " + order + " order)";
+    }
+
+    private long hi(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & SEGMENT_MASK) << 4);
+    }
+
+    private long lo(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getLong(((int) (index & SEGMENT_MASK) << 4) + 8);
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index " + index + " of file size " + size);
+    }
+
+    private static int compare(boolean timestamp, long hi1, long lo1, long hi2, long lo2) {
+        return timestamp ? UUID.compareByTimestamp(hi1, lo1, hi2, lo2) : UUID.compare(hi1, lo1, hi2, lo2);
+    }
+
+    /**
+     * Writer of a UUIDFile from ids added in any order. Ids are collected in a buffer, and each time it fills up it is
+     * sorted and written to a temporary run file next to the target. build() then merges the runs, dropping
+     * duplicates, so files much larger than the heap can be built with a fixed amount of memory. The file is written
+     * under a temporary name and renamed when complete, so readers never see a partial file.
+     *
+     * Builders are not safe to share between threads.
+     */
+    public static final class Builder implements Closeable {
+        private static final int DEFAULT_BUFFER_IDS = 1 << 22;
+        private static final int MERGE_CHUNK_IDS    = 8192;
+        private static final int WRITE_BUFFER_SIZE  = 1 << 16;
+
+        private final File file;
+        private final UUIDSort.Order order;
+        private final long[] buffer;
+        private int buffered;
+        private final List<Run> runs = new ArrayList<Run>();
+        private boolean closed;
+
+        /**
+         * Create a builder for a file in byte order, buffering up to 4 million ids (64 MB) at a time.
+         * @param file File to write.
+         */
+        public Builder(File file) {
+            this(file, UUIDSort.Order.BYTES, DEFAULT_BUFFER_IDS);
+        }
+
+        /**
+         * Create a builder for a file in the given order.
+         * @param file File to write.
+         * @param order Order of the file. Timestamp order allows timestamp ranges to be found without a full scan.
+         * @param bufferIds Number of ids to sort in memory at a time, at least 1. Each takes 16 bytes of heap.
+         */
+        public Builder(File file, UUIDSort.Order order, int bufferIds) {
+            if (file == null)
+                throw new IllegalArgumentException("Tried to build a null file");
+            if (order == null)
+                throw new IllegalArgumentException("order must not be null");
+            if (bufferIds < 1 || bufferIds > Integer.MAX_VALUE / 2)
+                throw new IllegalArgumentException("Invalid buffer size: " + bufferIds);
+
+            this.file = file;
+            this.order = order;
+            this.buffer = new long[2 * bufferIds];
+        }
+
+        /**
+         * Add an id.
+         * @param hi Most significant bits of the id.
+         * @param lo Least significant bits of the id.
+         * @throws IOException If a full buffer can't be written to a run file.
+         */
+        public void add(long hi, long lo) throws IOException {
+            checkOpen();
+            if (2 * buffered == buffer.length)
+                spill();
+            buffer[2 * buffered] = hi;
+            buffer[2 * buffered + 1] = lo;
+            buffered++;
+        }
+
+        /**
+         * Add an id.
+         * @param id The id, which must not be null.
+         * @throws IOException If a full buffer can't be written to a run file.
+         */
+        public void add(UUID id) throws IOException {
+            add(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+
+        /**
+         * Add a run of ids.
+         * @param ids Array holding the ids, each as two longs.
+         * @param offset Index in the array of the first long.
+         * @param count Number of ids to add.
+         * @throws IOException If a full buffer can't be written to a run file.
+         */
+        public void add(long[] ids, int offset, int count) throws IOException {
+            UUIDTable.checkIds(ids, offset, count);
+            checkOpen();
+            while (count > 0) {
+                if (2 * buffered == buffer.length)
+                    spill();
+                int n = Math.min(count, buffer.length / 2 - buffered);
+                System.arraycopy(ids, offset, buffer, 2 * buffered, 2 * n);
+                buffered += n;
+                offset += 2 * n;
+                count -= n;
+            }
+        }
+
+        /**
+         * Merge everything added into the file, replacing any existing file, and open it. The builder can't be used
+         * again afterwards.
+         * @return The opened file.
+         * @throws IOException If the file can't be written.
+         */
+        public UUIDFile build() throws IOException {
+            checkOpen();
+            File tmp = File.createTempFile(file.getName(), ".tmp", directory());
+            try {
+                if (runs.isEmpty()) {
+                    sortBuffer();
+                    runs.add(new Run(buffer, buffered));
+                } else {
+                    spill();
+                }
+                write(tmp);
+                close();
+                if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+                    throw new IOException("Could not rename " + tmp + " to " + file);
+            } finally {
+                close();
+                tmp.delete();
+            }
+            return open(file);
+        }
+
+        /**
+         * Discard everything added and delete the temporary run files, if build() has not been called.
+         * @throws IOException If a run file can't be closed.
+         */
+        public void close() throws IOException {
+            if (closed)
+                return;
+
+            closed = true;
+            for (Run run : runs)
+                run.close();
+        }
+
+        private void checkOpen() {
+            if (closed)
+                throw new IllegalStateException("Builder has already been built or closed");
+        }
+
+        private File directory() {
+            File parent = file.getAbsoluteFile().getParentFile();
+            return parent != null ? parent : new File(".");
+        }
+
+        private void sortBuffer() {
+            UUIDSort.sort(buffer, 0, buffered, order);
+        }
+
+        private void spill() throws IOException {
+            if (buffered == 0)
+                return;
+
+            sortBuffer();
+            File runFile = File.createTempFile(file.getName(), ".run", directory());
+            Run run = new Run(runFile);
+            runs.add(run);
+            UUIDCodec.write(buffer, 0, buffered, run.channel);
+            run.remaining = buffered;
+            run.channel.position(0);
+            buffered = 0;
+        }
+
+        /**
+         * Merge the runs into a new file: the header, the distinct ids, and the fence index.
+         */
+        private void write(File tmp) throws IOException {
+            boolean timestamp = order == UUIDSort.Order.TIMESTAMP;
+
+            // binary heap of the runs that still have ids, ordered by their current id
+            Run[] heap = new Run[runs.size()];
+            int heapSize = 0;
+            for (Run run : runs) {
+                if (run.advance())
+                    heap[heapSize++] = run;
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--)
+                siftDown(heap, heapSize, i, timestamp);
+
+            RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+            try {
+                FileChannel out = raf.getChannel();
+                ByteBuffer data = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                long[] fenceIds = new long[64];
+                long count = 0;
+                long lastHi = 0;
+                long lastLo = 0;
+
+                out.position(HEADER_SIZE);
+                while (heapSize > 0) {
+                    Run run = heap[0];
+                    long hi = run.hi();
+                    long lo = run.lo();
+                    if (count == 0 || hi != lastHi || lo != lastLo) {
+                        if ((count & (FENCE_INTERVAL - 1)) == 0) {
+                            int fence = (int) (count >>> FENCE_SHIFT);
+                            if (2 * fence == fenceIds.length)
+                                fenceIds = Arrays.copyOf(fenceIds, 2 * fenceIds.length);
+                            fenceIds[2 * fence] = hi;
+                            fenceIds[2 * fence + 1] = lo;
+                        }
+                        if (!data.hasRemaining())
+                            flush(data, out);
+                        data.putLong(hi).putLong(lo);
+                        lastHi = hi;
+                        lastLo = lo;
+                        count++;
+                    }
+
+                    if (!run.advance())
+                        heap[0] = heap[--heapSize];
+                    siftDown(heap, heapSize, 0, timestamp);
+                }
+
+                int fences = (int) ((count + FENCE_INTERVAL - 1) >>> FENCE_SHIFT);
+                for (int i = 0; i < 2 * fences; i++) {
+                    if (!data.hasRemaining())
+                        flush(data, out);
+                    data.putLong(fenceIds[i]);
+                }
+                flush(data, out);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putLong(0, MAGIC).putInt(8, FORMAT_VERSION).putInt(12, order.ordinal()).putLong(16, count)
+                        .putInt(24, FENCE_INTERVAL).putLong(32, HEADER_SIZE).putLong(40, HEADER_SIZE + 16 * count);
+                while (header.hasRemaining())
+                    out.write(header, header.position());
+                out.force(true);
+            } finally {
+                raf.close();
+            }
+        }
+
+        private static void flush(ByteBuffer data, FileChannel out) throws IOException {
+            ((Buffer) data).flip();
+            while (data.hasRemaining())
+                out.write(data);
+            ((Buffer) data).clear();
+        }
+
+        private static void siftDown(Run[] heap, int heapSize, int i, boolean timestamp) {
+            Run run = heap[i];
+            while (2 * i + 1 < heapSize) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && compare(heap[child + 1], heap[child], timestamp) < 0)
+                    child++;
+                if (compare(heap[child], run, timestamp) >= 0)
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = run;
+        }
+
+        private static int compare(Run a, Run b, boolean timestamp) {
+            return UUIDFile.compare(timestamp, a.hi(), a.lo(), b.hi(), b.lo());
+        }
+    }
+
+    /**
+     * Sorted run of ids being merged, either the builder's buffer or a temporary file read a chunk at a time.
+     */
+    private static final class Run {
+        private final File runFile;
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private long[] chunk;
+        private int chunkIds;
+        private int position = -1;
+        private long remaining;
+
+        Run(long[] ids, int count) {
+            runFile = null;
+            raf = null;
+            channel = null;
+            chunk = ids;
+            chunkIds = count;
+        }
+
+        Run(File runFile) throws IOException {
+            this.runFile = runFile;
+            this.raf = new RandomAccessFile(runFile, "rw");
+            this.channel = raf.getChannel();
+        }
+
+        /**
+         * Move to the next id, reading the next chunk of the run file when needed.
+         * @return True if there was another id.
+         */
+        boolean advance() throws IOException {
+            if (++position < chunkIds)
+                return true;
+            if (remaining == 0)
+                return false;
+
+            if (chunk == null)
+                chunk = new long[2 * Builder.MERGE_CHUNK_IDS];
+            chunkIds = (int) Math.min(remaining, Builder.MERGE_CHUNK_IDS);
+            UUIDCodec.read(channel, chunk, 0, chunkIds);
+            remaining -= chunkIds;
+            position = 0;
+            return true;
+        }
+
+        long hi() {
+            return chunk[2 * position];
+        }
+
+        long lo() {
+            return chunk[2 * position + 1];
+        }
+
+        void close() throws IOException {
+            if (raf != null) {
+                raf.close();
+                runFile.delete();
+            }
+        }
+    }
+}
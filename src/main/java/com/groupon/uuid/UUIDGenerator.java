@@ -0,0 +1,697 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of vB UUIDs with its own counter, counter mode, clock and node identity (process id and MAC address).
+ * new UUID() and the static generation methods in UUID use the default generator returned by getDefault(), so
+ * changing modes through the static UUID methods affects every caller in the JVM that uses them. Components that need
+ * their own mode, for example sequential ids for one table and variable ids for another, should each create their own
+ * generator instead.
+ *
+ * Generators are safe to share between threads, and mode changes take effect for all threads immediately.
+ *
+ * Each generator starts its counter at a random value, so two generators with the same node identity are very
+ * unlikely to produce the same counter value in the same millisecond, but unlike ids from a single generator this
+ * isn't guaranteed. Generators that must never collide with each other should be given different process ids.
+ */
+public class UUIDGenerator {
+    private static final int INCREMENT          = 198491317;
+    private static final int STRIPE_SIZE        = 1024;
+    private static final long TIMESTAMP_MASK    = 0xFFFFFFFFFFFFL;
+    private static final long BUCKET_MILLIS     = 10 * 60 * 1000;
+    private static final int SEQUENTIAL         = 1;
+    private static final int STRIPED            = 2;
+    private static final int ROTATING           = 4;
+    private static final int METRICS            = 8;
+    // added to the mode each time the counter is re-seeded, so that threads drop stripes reserved before the re-seed
+    private static final int EPOCH              = 16;
+
+    // created on first use, so that the node identity isn't resolved by code that never uses the default generator
+    private static volatile UUIDGenerator defaultGenerator;
+
+    private final int processId;
+    private final byte[] mac;
+    private final AtomicInteger counter         = new AtomicInteger(new Random(System.nanoTime()).nextInt());
+    private final ThreadLocal<CounterStripe> stripes = new ThreadLocal<CounterStripe>() {
+        @Override
+        protected CounterStripe initialValue() {
+            return new CounterStripe();
+        }
+    };
+
+    // bytes 4 - 7 (pid, version and mac fragment) and bytes 8 - 9 (rest of the mac fragment) never change for a
+    // generator, so they are computed once and OR'ed into each generated UUID
+    private final long nodeHi;
+    private final long nodeLo;
+
+    // the counter mode flags and re-seed epoch are kept in one field so the hot path reads a single volatile value
+    private volatile int mode;
+    private volatile MillisClock clock          = new SystemMillisClock();
+
+    // the clock set with useClock(), which is wrapped for timing while instrumented
+    private MillisClock baseClock               = clock;
+    private volatile UUIDMetrics metrics;
+
+    // time at which rotating sequential mode next re-seeds the counter, never when not in that mode
+    private final AtomicLong rotationDeadline   = new AtomicLong(Long.MAX_VALUE);
+
+    // end of the 10 minute bucket the sequential counter was last seeded for, guarded by this
+    private long seededBucket                   = Long.MIN_VALUE;
+
+    /**
+     * Create a generator using the process id and MAC address of this process, as resolved by NodeIdentity.local()
+     * and published in UUID.PID and UUID.MAC, in variable, shared counter mode with a SystemMillisClock.
+     */
+    public UUIDGenerator() {
+        this(NodeIdentity.local());
+    }
+
+    /**
+     * Create a generator with the given node identity, in variable, shared counter mode with a SystemMillisClock.
+     * @param identity Process id and MAC address to embed in ids.
+     */
+    public UUIDGenerator(NodeIdentity identity) {
+        this(identity.getProcessId(), identity.getMacAddress());
+    }
+
+    /**
+     * Create a generator with the given node identity, in variable, shared counter mode with a SystemMillisClock.
+     * @param processId Process id to embed in bytes 4 - 5, only the lowest 16 bits are used.
+     * @param mac MAC address whose last 28 bits are embedded in bytes 6 - 9, must be 6 bytes long.
+     */
+    public UUIDGenerator(int processId, byte[] mac) {
+        if (mac == null || mac.length != 6)
+            throw new IllegalArgumentException("MAC address must be 6 bytes long");
+
+        this.processId = processId & 0xFFFF;
+        this.mac = mac.clone();
+        this.nodeHi = ((long) this.processId << 16)
+                    | ((long) (UUID.VERSION_DEC | (0xF & mac[2])) << 8)
+                    | ((long) mac[3] & 0xFF);
+        this.nodeLo = (((long) mac[4] & 0xFF) << 56)
+                    | (((long) mac[5] & 0xFF) << 48);
+    }
+
+    /**
+     * Get the generator used by new UUID() and the static generation methods in UUID, creating it with the identity
+     * from NodeIdentity.local() on the first call.
+     * @return The default generator.
+     */
+    public static UUIDGenerator getDefault() {
+        UUIDGenerator generator = defaultGenerator;
+        if (generator == null) {
+            synchronized (UUIDGenerator.class) {
+                if (defaultGenerator == null)
+                    defaultGenerator = new UUIDGenerator();
+                generator = defaultGenerator;
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * Generate a new vB UUID.
+     * @return The new UUID.
+     */
+    public UUID generate() {
+        long hi = nextMostSignificantBits();
+        return new UUID(hi, nextLeastSignificantBits());
+    }
+
+    /**
+     * Generate a new vB UUID and write its 16 bytes into a byte array, without creating a UUID object. Throws an
+     * IndexOutOfBoundsException if there are fewer than 16 bytes after the offset.
+     * @param dest Byte array to write the UUID content into.
+     * @param offset Index in the array of the first byte of the UUID.
+     */
+    public void generate(byte[] dest, int offset) {
+        if (offset < 0 || offset > dest.length - 16)
+            throw new IndexOutOfBoundsException("No room for a UUID at offset " + offset + " of " + dest.length);
+
+        UUID.putLong(dest, offset,     nextMostSignificantBits());
+        UUID.putLong(dest, offset + 8, nextLeastSignificantBits());
+    }
+
+    /**
+     * Generate a new vB UUID and write its 16 bytes at the buffer's current position, advancing the position by 16.
+     * The bytes are written in big-endian order whatever the byte order of the buffer, so they always match
+     * UUID.getBytes(). Throws a BufferOverflowException, without writing anything, if fewer than 16 bytes remain.
+     * @param dest Buffer to write the UUID content into.
+     */
+    public void generate(ByteBuffer dest) {
+        if (dest.remaining() < 16)
+            throw new BufferOverflowException();
+
+        UUID.putLong(dest, nextMostSignificantBits());
+        UUID.putLong(dest, nextLeastSignificantBits());
+    }
+
+    /**
+     * Generate a new vB UUID and write it into a long array as its most significant bits followed by its least
+     * significant bits. Throws an IndexOutOfBoundsException if there are fewer than 2 longs after the offset.
+     * @param dest Long array to write the UUID content into.
+     * @param offset Index in the array of the most significant half of the UUID.
+     */
+    public void generate(long[] dest, int offset) {
+        if (offset < 0 || offset > dest.length - 2)
+            throw new IndexOutOfBoundsException("No room for a UUID at offset " + offset + " of " + dest.length);
+
+        dest[offset]     = nextMostSignificantBits();
+        dest[offset + 1] = nextLeastSignificantBits();
+    }
+
+    /**
+     * Generate a batch of new vB UUIDs into a byte array, 16 bytes each, one after another from the offset. The whole
+     * range of counter values is reserved with a single atomic operation and the clock is read once, so all ids in
+     * the batch share a timestamp. Throws an IndexOutOfBoundsException, without writing anything, if the ids don't fit.
+     * @param dest Byte array to write the UUIDs into.
+     * @param offset Index in the array of the first byte of the first UUID.
+     * @param count Number of UUIDs to generate.
+     */
+    public void generate(byte[] dest, int offset, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Tried to generate a negative number of UUIDs: " + count);
+        if (offset < 0 || offset > dest.length - 16L * count)
+            throw new IndexOutOfBoundsException("No room for " + count + " UUIDs at offset " + offset + " of " + dest.length);
+
+        int m = mode;
+        boolean seq = (m & SEQUENTIAL) != 0;
+        int step = seq ? 1 : INCREMENT;
+        int value = (m & METRICS) == 0 ? counter.getAndAdd(step * count) : reserveBatch(count, seq);
+        long lo = nextLeastSignificantBits();
+
+        for (int i = offset; i < offset + 16 * count; i += 16) {
+            value += step;
+            UUID.putLong(dest, i,     counterBits(value, seq));
+            UUID.putLong(dest, i + 8, lo);
+        }
+    }
+
+    /**
+     * Generate a batch of new vB UUIDs at the buffer's current position, 16 big-endian bytes each, advancing the
+     * position past them. The whole range of counter values is reserved with a single atomic operation and the clock
+     * is read once. Throws a BufferOverflowException, without writing anything, if the ids don't fit.
+     * @param dest Buffer to write the UUIDs into.
+     * @param count Number of UUIDs to generate.
+     */
+    public void generate(ByteBuffer dest, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Tried to generate a negative number of UUIDs: " + count);
+        if (dest.remaining() < 16L * count)
+            throw new BufferOverflowException();
+
+        int m = mode;
+        boolean seq = (m & SEQUENTIAL) != 0;
+        int step = seq ? 1 : INCREMENT;
+        int value = (m & METRICS) == 0 ? counter.getAndAdd(step * count) : reserveBatch(count, seq);
+        long lo = nextLeastSignificantBits();
+
+        for (int i = 0; i < count; i++) {
+            value += step;
+            UUID.putLong(dest, counterBits(value, seq));
+            UUID.putLong(dest, lo);
+        }
+    }
+
+    /**
+     * Generate a batch of new vB UUIDs into a long array, two longs each (most significant half first), one after
+     * another from the offset. The whole range of counter values is reserved with a single atomic operation and the
+     * clock is read once. Throws an IndexOutOfBoundsException, without writing anything, if the ids don't fit.
+     * @param dest Long array to write the UUIDs into.
+     * @param offset Index in the array of the most significant half of the first UUID.
+     * @param count Number of UUIDs to generate.
+     */
+    public void generate(long[] dest, int offset, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Tried to generate a negative number of UUIDs: " + count);
+        if (offset < 0 || offset > dest.length - 2L * count)
+            throw new IndexOutOfBoundsException("No room for " + count + " UUIDs at offset " + offset + " of " + dest.length);
+
+        int m = mode;
+        boolean seq = (m & SEQUENTIAL) != 0;
+        int step = seq ? 1 : INCREMENT;
+        int value = (m & METRICS) == 0 ? counter.getAndAdd(step * count) : reserveBatch(count, seq);
+        long lo = nextLeastSignificantBits();
+
+        for (int i = offset; i < offset + 2 * count; i += 2) {
+            value += step;
+            dest[i]     = counterBits(value, seq);
+            dest[i + 1] = lo;
+        }
+    }
+
+    /**
+     * Create a sequence of new vB UUIDs from this generator, for handing out large numbers of ids in parallel. The
+     * sequence reserves counter values in blocks with a single atomic operation each, and can be split into
+     * independent sequences with their own blocks, one per worker, which never touch the shared counter in between.
+     * Ids follow the mode and clock of this generator.
+     * @param count Number of ids in the sequence.
+     * @return The new sequence.
+     */
+    public UUIDSequence sequence(long count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Tried to create a sequence of a negative number of UUIDs: " + count);
+
+        return new UUIDSequence(this, count);
+    }
+
+    /**
+     * Toggle this generator into sequential mode, so the counter segment is in order and increases by one. The counter
+     * is set from a hash of the UTC date and time on this generator's clock, up to a 10 minute precision, so that
+     * generators switched into sequential mode at similar times, even on different machines, start with similar
+     * counter values. Calling this while already in sequential mode has no effect.
+     */
+    public synchronized void useSequentialIds() {
+        if ((mode & SEQUENTIAL) == 0) {
+            long now = clock.currentTimeMillis();
+            counter.set(sequentialSeed(new Date(now)));
+            seededBucket = bucketEnd(now);
+            mode = (mode | SEQUENTIAL) + EPOCH;
+        }
+        mode &= ~ROTATING;
+        rotationDeadline.set(Long.MAX_VALUE);
+    }
+
+    /**
+     * Toggle this generator into rotating sequential mode. This is sequential mode, except that the counter is
+     * re-seeded from the hash of the current 10 minute UTC bucket every time the clock moves into a new bucket, rather
+     * than only when the mode is switched on. Long-running generators on different machines therefore keep converging
+     * on the same counter ranges, instead of drifting apart as they generate different numbers of ids.
+     *
+     * Checking for a new bucket costs one volatile read per id. The first id generated after the boundary re-seeds the
+     * counter, and ids that were already being generated on other threads may still use the previous bucket's
+     * sequence. Calling this while already in sequential mode only re-seeds the counter if it was seeded for an
+     * earlier bucket, so ids already generated in the current bucket are not repeated.
+     */
+    public synchronized void useRotatingSequentialIds() {
+        long now = clock.currentTimeMillis();
+        long bucket = bucketEnd(now);
+        if ((mode & SEQUENTIAL) == 0 || bucket != seededBucket) {
+            counter.set(sequentialSeed(new Date(now)));
+            seededBucket = bucket;
+            mode = (mode | SEQUENTIAL | ROTATING) + EPOCH;
+        } else {
+            mode |= ROTATING;
+        }
+        rotationDeadline.set(bucket);
+    }
+
+    /**
+     * Toggle this generator into variable mode, so the counter segment is in reverse order and increases by a large
+     * increment. This is the default mode.
+     */
+    public synchronized void useVariableIds() {
+        mode &= ~(SEQUENTIAL | ROTATING);
+        rotationDeadline.set(Long.MAX_VALUE);
+    }
+
+    /**
+     * Toggle this generator into striped mode, where each thread reserves a block of counter values with one atomic
+     * operation and hands them out to itself without touching the shared counter again until the block is used up.
+     * See UUID.useStripedCounters() for the trade-offs.
+     */
+    public synchronized void useStripedCounters() {
+        mode |= STRIPED;
+    }
+
+    /**
+     * Toggle this generator back into shared counter mode, where each id takes its value directly from the counter.
+     * This is the default mode.
+     */
+    public synchronized void useSharedCounter() {
+        mode &= ~STRIPED;
+    }
+
+    /**
+     * Set the clock that this generator takes timestamps from.
+     * @param millisClock The clock to use from now on.
+     */
+    public synchronized void useClock(MillisClock millisClock) {
+        if (millisClock == null)
+            throw new IllegalArgumentException("Tried to use null clock");
+
+        baseClock = millisClock;
+        UUIDMetrics m = metrics;
+        clock = (mode & METRICS) != 0 ? m.timed(millisClock) : millisClock;
+
+        // in rotating mode, re-seed on the next id if the new clock is in a different bucket
+        if ((mode & ROTATING) != 0)
+            rotationDeadline.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * Switch on instrumentation for this generator, collecting the statistics described in UUIDMetrics. The same
+     * UUIDMetrics object is returned each time, and keeps its counts while instrumentation is off.
+     * @return The statistics for this generator.
+     */
+    public synchronized UUIDMetrics enableMetrics() {
+        if (metrics == null)
+            metrics = new UUIDMetrics(this);
+        clock = metrics.timed(baseClock);
+        mode |= METRICS;
+        return metrics;
+    }
+
+    /**
+     * Switch off instrumentation for this generator, so that generating ids costs nothing extra.
+     */
+    public synchronized void disableMetrics() {
+        mode &= ~METRICS;
+        clock = baseClock;
+    }
+
+    /**
+     * Get the statistics for this generator.
+     * @return The statistics, or null if instrumentation has never been switched on.
+     */
+    public UUIDMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Check whether this generator is in sequential mode.
+     * @return True in sequential mode, false in variable mode.
+     */
+    public boolean isSequential() {
+        return (mode & SEQUENTIAL) != 0;
+    }
+
+    /**
+     * Check whether this generator is in rotating sequential mode.
+     * @return True in rotating sequential mode.
+     */
+    public boolean isRotating() {
+        return (mode & ROTATING) != 0;
+    }
+
+    /**
+     * Check whether this generator is in striped counter mode.
+     * @return True in striped mode, false in shared counter mode.
+     */
+    public boolean isStriped() {
+        return (mode & STRIPED) != 0;
+    }
+
+    /**
+     * Get the clock this generator takes timestamps from.
+     * @return The clock.
+     */
+    public synchronized MillisClock getClock() {
+        return baseClock;
+    }
+
+    /**
+     * Get the process id embedded in ids from this generator.
+     * @return Process id from 0 to 65,535.
+     */
+    public int getProcessId() {
+        return processId;
+    }
+
+    /**
+     * Get the MAC address this generator was created with. Only its last 28 bits are embedded in ids.
+     * @return Copy of the 6-byte MAC address.
+     */
+    public byte[] getMacAddress() {
+        return mac.clone();
+    }
+
+    /**
+     * Take the next value from the counter and combine it with the process id, version and MAC address fragment to
+     * produce the first half of a new vB UUID.
+     * @return The most significant bits of a new UUID.
+     */
+    long nextMostSignificantBits() {
+        int m = mode;
+        if ((m & METRICS) != 0)
+            return instrumentedMostSignificantBits(m);
+
+        boolean seq = (m & SEQUENTIAL) != 0;
+        int count;
+
+        if ((m & STRIPED) == 0) {
+            // atomically add a large prime number, or one in sequential mode, to the count and get the new value
+            count = counter.addAndGet(seq ? 1 : INCREMENT);
+        }
+        else {
+            count = nextStripedCount(m, null);
+        }
+
+        return counterBits(count, seq);
+    }
+
+    /**
+     * Same as nextMostSignificantBits(), counting the id and any counter retries or wraps, and timing a sample of ids.
+     * @param m Current mode.
+     * @return The most significant bits of a new UUID.
+     */
+    private long instrumentedMostSignificantBits(int m) {
+        UUIDMetrics stats = metrics;
+        boolean sample = stats.sampleCounter();
+        long start = sample ? System.nanoTime() : 0;
+        boolean seq = (m & SEQUENTIAL) != 0;
+        int count;
+
+        if ((m & STRIPED) == 0) {
+            int step = seq ? 1 : INCREMENT;
+            count = reserve(step, stats) + step;
+        }
+        else {
+            count = nextStripedCount(m, stats);
+        }
+
+        if (sample)
+            stats.recordCounter(System.nanoTime() - start);
+        stats.generated(1);
+        if (seq && count == 0)
+            stats.wrapped();
+
+        return counterBits(count, seq);
+    }
+
+    /**
+     * Reserve the counter values for a batch of ids while instrumented.
+     * @param count Number of ids in the batch.
+     * @param seq Whether to count in sequential mode.
+     * @return The counter value before the batch.
+     */
+    private int reserveBatch(int count, boolean seq) {
+        UUIDMetrics stats = metrics;
+        boolean sample = stats.sampleCounter();
+        long start = sample ? System.nanoTime() : 0;
+        int value = reserve((seq ? 1 : INCREMENT) * count, stats);
+
+        if (sample)
+            stats.recordCounter(System.nanoTime() - start);
+        stats.generated(count);
+        if (seq && ((long) value & 0xFFFFFFFFL) + count > 0xFFFFFFFFL)
+            stats.wrapped();
+        return value;
+    }
+
+    /**
+     * Get the current mode flags and re-seed epoch, which a UUIDSequence compares against the mode its block of
+     * counter values was reserved in.
+     */
+    int currentMode() {
+        return mode;
+    }
+
+    /**
+     * Read the time from this generator's clock, for comparing against the timestamps of ids it generated earlier.
+     */
+    long currentTimeMillis() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * Get the amount the counter moves by for each id in the given mode.
+     */
+    static int counterStep(int m) {
+        return (m & SEQUENTIAL) != 0 ? 1 : INCREMENT;
+    }
+
+    /**
+     * Reserve a block of counter values for a UUIDSequence.
+     * @param m Mode to reserve the block in.
+     * @param count Number of values in the block.
+     * @return The counter value before the block.
+     */
+    int reserveBlock(int m, int count) {
+        boolean seq = (m & SEQUENTIAL) != 0;
+        return (m & METRICS) == 0 ? counter.getAndAdd(counterStep(m) * count) : reserveBatch(count, seq);
+    }
+
+    /**
+     * Add to the counter, counting the compare-and-set retries if instrumented.
+     * @param delta Amount to add.
+     * @param stats Statistics to count retries in, or null if not instrumented.
+     * @return The counter value before the addition.
+     */
+    private int reserve(int delta, UUIDMetrics stats) {
+        if (stats == null)
+            return counter.getAndAdd(delta);
+
+        while (true) {
+            int current = counter.get();
+            if (counter.compareAndSet(current, current + delta))
+                return current;
+            stats.retried();
+        }
+    }
+
+    /**
+     * Read the clock and combine the current time with the rest of the MAC address fragment to produce the second
+     * half of a new vB UUID.
+     * @return The least significant bits of a new UUID.
+     */
+    long nextLeastSignificantBits() {
+        long now = clock.currentTimeMillis();
+        if (now >= rotationDeadline.get())
+            rotate(now);
+
+        // rest of the mac, then the timestamp in bytes 10 - 15
+        return nodeLo | (now & TIMESTAMP_MASK);
+    }
+
+    /**
+     * Re-seed the counter for the 10 minute bucket holding the given time, if no other thread has done so already and
+     * the counter wasn't already seeded for that bucket. Only the thread that moves the deadline on does the work, so
+     * other threads carry on generating with the counter as it is.
+     * @param now Current time from the clock.
+     */
+    private void rotate(long now) {
+        long deadline = rotationDeadline.get();
+        if (now < deadline || !rotationDeadline.compareAndSet(deadline, bucketEnd(now)))
+            return;
+
+        synchronized (this) {
+            // the mode may have been switched since the deadline was read, and after a clock change the new clock
+            // may still be in the bucket the counter was seeded for
+            long bucket = bucketEnd(now);
+            if ((mode & ROTATING) != 0 && bucket != seededBucket) {
+                counter.set(sequentialSeed(new Date(now)));
+                seededBucket = bucket;
+                mode += EPOCH;
+            }
+        }
+    }
+
+    /**
+     * Get the end of the 10 minute UTC bucket holding the given time.
+     */
+    private static long bucketEnd(long time) {
+        return (time / BUCKET_MILLIS + 1) * BUCKET_MILLIS;
+    }
+
+    /**
+     * Take the next value from the current thread's stripe of the counter, first reserving a new block of values
+     * from the counter if the stripe is used up or was reserved before the mode changed or the counter was re-seeded.
+     * @param m Current mode, including the re-seed epoch.
+     * @param stats Statistics to count retries in, or null if not instrumented.
+     * @return The next counter value for this thread.
+     */
+    private int nextStripedCount(int m, UUIDMetrics stats) {
+        CounterStripe stripe = stripes.get();
+        int step = (m & SEQUENTIAL) != 0 ? 1 : INCREMENT;
+
+        if (stripe.remaining == 0 || stripe.mode != m) {
+            stripe.value = reserve(step * STRIPE_SIZE, stats);
+            stripe.remaining = STRIPE_SIZE;
+            stripe.mode = m;
+        }
+
+        stripe.remaining--;
+        stripe.value += step;
+        return stripe.value;
+    }
+
+    /**
+     * Combine a counter value with the process id, version and MAC address fragment to produce the first half of a
+     * vB UUID. In variable mode the order of the count is switched in 4 bit segments so that the least significant
+     * segment comes first, in sequential mode the count is kept in order.
+     * @param count Value taken from the counter.
+     * @param seq Whether the value was taken in sequential mode.
+     * @return The most significant bits of a UUID.
+     */
+    long counterBits(int count, boolean seq) {
+        if (!seq)
+            count = UUID.reverseNibbles(count);
+
+        // count in bytes 0 - 3, then pid, version and mac
+        return ((long) count << 32) | nodeHi;
+    }
+
+    /**
+     * Get the starting counter value for sequential mode at the given time, from an MD5 hash of the UTC date and time
+     * truncated to 10 minutes. No reason this needs to be secure, it only has to be the same on every machine.
+     * @param now Time to compute the seed for.
+     * @return The seed.
+     */
+    static int sequentialSeed(Date now) {
+        // get string that changes every 10 minutes
+        TimeZone tz = TimeZone.getTimeZone("UTC");
+        DateFormat df = new SimpleDateFormat("yyyyMMddHHmm");
+        df.setTimeZone(tz);
+        String date = df.format(now).substring(0, 11);
+
+        byte[] digest;
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            digest = md.digest(date.getBytes("UTF-8"));
+        }
+        catch (Exception e) {
+            throw new RuntimeException("Could not create hash of date for the sequential counter", e);
+        }
+
+        // create integer from first 4 bytes of md5 hash
+        int x;
+        x  = ((int)digest[0] & 0xFF);
+        x |= ((int)digest[1] & 0xFF) << 8;
+        x |= ((int)digest[2] & 0xFF) << 16;
+        x |= ((int)digest[3] & 0xFF) << 24;
+        return x;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Map keyed by UUIDs stored inline as pairs of longs in one primitive array, with values in a parallel array and no
+ * entry object per mapping. Each mapping takes 16 bytes of key space plus one reference, in a table kept at most 3/4
+ * full. Values may be null, in which case get() can't tell a missing key from a null value; use containsKey() for
+ * that.
+ *
+ * This class is not thread-safe.
+ * @param <V> Type of the values.
+ */
+public class UUIDHashMap<V> extends UUIDTable {
+
+    /**
+     * Create an empty map.
+     */
+    public UUIDHashMap() {
+        this(0);
+    }
+
+    /**
+     * Create an empty map that can hold the given number of keys without resizing.
+     * @param expectedSize Number of keys expected, must not be negative.
+     */
+    public UUIDHashMap(int expectedSize) {
+        super(expectedSize, true);
+    }
+
+    /**
+     * Get the value mapped to an id.
+     * @param id UUID key.
+     * @return The value, or null if the id isn't in the map.
+     */
+    public V get(UUID id) {
+        return get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Get the value mapped to an id given as two longs.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The value, or null if the id isn't in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long hi, long lo) {
+        int slot = indexOf(hi, lo);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Check whether an id is a key in the map.
+     * @param id UUID key.
+     * @return True if the id is in the map.
+     */
+    public boolean containsKey(UUID id) {
+        return containsKey(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Check whether an id, given as two longs, is a key in the map.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return True if the id is in the map.
+     */
+    public boolean containsKey(long hi, long lo) {
+        return indexOf(hi, lo) >= 0;
+    }
+
+    /**
+     * Map an id to a value, replacing any value it had.
+     * @param id UUID key.
+     * @param value Value to map the id to.
+     * @return The previous value, or null if the id wasn't in the map.
+     */
+    public V put(UUID id, V value) {
+        return put(id.getMostSignificantBits(), id.getLeastSignificantBits(), value);
+    }
+
+    /**
+     * Map an id given as two longs to a value, replacing any value it had.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param value Value to map the id to.
+     * @return The previous value, or null if the id wasn't in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long hi, long lo, V value) {
+        int slot = insert(hi, lo);
+        if (slot < 0) {
+            values[~slot] = value;
+            return null;
+        }
+
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * Map an id given as two longs to a value only if it isn't already in the map.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @param value Value to map the id to.
+     * @return The existing value, or null if the id was added.
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(long hi, long lo, V value) {
+        int slot = insert(hi, lo);
+        if (slot < 0) {
+            values[~slot] = value;
+            return null;
+        }
+        return (V) values[slot];
+    }
+
+    /**
+     * Remove an id from the map.
+     * @param id UUID key.
+     * @return The value it was mapped to, or null if the id wasn't in the map.
+     */
+    public V remove(UUID id) {
+        return remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Remove an id given as two longs from the map.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The value it was mapped to, or null if the id wasn't in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long hi, long lo) {
+        int slot = indexOf(hi, lo);
+        if (slot < 0)
+            return null;
+
+        V previous = (V) values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Map a run of ids from a long array, each given as its most significant half followed by its least significant
+     * half, to the values at the same positions in a parallel array, replacing any values they had.
+     * @param ids Array to read from.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to map.
+     * @param src Array holding the value for each id.
+     * @param srcOffset Index in the value array of the value for the first id.
+     * @return The number of ids that weren't already in the map.
+     */
+    public int putAll(long[] ids, int offset, int count, V[] src, int srcOffset) {
+        return insertAll(ids, offset, count, src, srcOffset);
+    }
+
+    /**
+     * Map a run of ids in their 16-byte raw form from the buffer's current position, advancing it past them, to the
+     * values at the same positions in a parallel array. Throws a BufferUnderflowException, without mapping anything,
+     * if fewer than 16 * count bytes remain.
+     * @param ids Buffer to read from.
+     * @param count Number of ids to map.
+     * @param src Array holding the value for each id.
+     * @param srcOffset Index in the value array of the value for the first id.
+     * @return The number of ids that weren't already in the map.
+     */
+    public int putAll(ByteBuffer ids, int count, V[] src, int srcOffset) {
+        return insertAll(ids, count, src, srcOffset);
+    }
+
+    /**
+     * Look up a run of ids from a long array, each given as its most significant half followed by its least
+     * significant half.
+     * @param ids Array to read from.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to look up.
+     * @param dest Array to write the value for each id into, null where the id isn't in the map.
+     * @param destOffset Index in the destination array of the value for the first id.
+     * @return The number of ids that are in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public int getAll(long[] ids, int offset, int count, V[] dest, int destOffset) {
+        checkIds(ids, offset, count);
+        checkRun(dest.length, destOffset, count, "values");
+
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = indexOf(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+            if (slot >= 0) {
+                dest[destOffset + i] = (V) values[slot];
+                hits++;
+            }
+            else {
+                dest[destOffset + i] = null;
+            }
+        }
+        return hits;
+    }
+}
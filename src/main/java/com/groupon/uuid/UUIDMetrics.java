@@ -0,0 +1,327 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Statistics for one generator, collected while instrumentation is switched on with UUIDGenerator.enableMetrics().
+ * Generators without instrumentation don't collect anything and pay nothing for it: the switch is a bit in the mode
+ * field that generation reads anyway, and the clock is only wrapped for timing while instrumentation is on.
+ *
+ * Counts are kept in striped counters so that instrumented threads don't contend with each other, and latencies are
+ * sampled, timing one id in SAMPLE_INTERVAL on each thread, into power of two histograms. The counter latency covers
+ * taking a value from the counter, including any compare-and-set retries or stripe refills, and the clock latency
+ * covers reading the clock. A sampled id that takes longer than the slow threshold in either stage is reported to the
+ * registered UUIDEventListeners, as is every clock regression.
+ *
+ * The statistics can be read directly or through JMX after calling register().
+ */
+public class UUIDMetrics implements UUIDMetricsMBean {
+    static final int SAMPLE_INTERVAL = 64;
+
+    private static final StripedCounter PARSE_FAILURES = new StripedCounter();
+    private static final CopyOnWriteArrayList<UUIDEventListener> LISTENERS =
+            new CopyOnWriteArrayList<UUIDEventListener>();
+
+    private final UUIDGenerator generator;
+    private final StripedCounter generated      = new StripedCounter();
+    private final StripedCounter retries        = new StripedCounter();
+    private final AtomicLong wraps              = new AtomicLong();
+    private final LatencyHistogram counterLatency = new LatencyHistogram();
+    private final LatencyHistogram clockLatency = new LatencyHistogram();
+    private volatile long slowThresholdNanos    = 1000000;
+    private ObjectName name;
+
+    // per thread count of ids until the next sampled one, one count for the counter and one for the clock
+    private final ThreadLocal<int[]> countdown = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            // start threads at different points so they don't all sample the same ids
+            int start = (int) (Thread.currentThread().getId() % SAMPLE_INTERVAL) + 1;
+            return new int[] {start, start};
+        }
+    };
+
+    UUIDMetrics(UUIDGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Get the number of ids generated while instrumented.
+     * @return Number of ids.
+     */
+    public long getGeneratedIds() {
+        return generated.sum();
+    }
+
+    /**
+     * Get the number of times taking a value from the counter had to be retried because another thread changed it
+     * first, which shows how contended the counter is. Striped mode takes values in blocks, so it retries far less.
+     * @return Number of retries.
+     */
+    public long getCounterRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Get the number of times the counter wrapped around from ffffffff to 00000000 in sequential mode. Ids generated
+     * across a wrap in the same millisecond no longer sort in generation order and jump to the other end of the key
+     * range. In variable mode the counter overflows every few ids by design, so wraps aren't counted there.
+     * @return Number of wraps.
+     */
+    public long getCounterWraps() {
+        return wraps.get();
+    }
+
+    /**
+     * Get the number of regressions seen by the generator's current clock since the clock was created.
+     * @return Number of regressions.
+     */
+    public long getClockRegressions() {
+        return generator.getClock().getRegressionCount();
+    }
+
+    /**
+     * Get the number of strings, characters or byte arrays that failed to parse as UUIDs anywhere in the JVM. Parse
+     * failures are always counted, since counting costs nothing next to throwing the exception.
+     * @return Number of parse failures.
+     */
+    public long getParseFailures() {
+        return PARSE_FAILURES.sum();
+    }
+
+    public long getCounterLatencyP50Nanos() {
+        return counterLatency.percentile(50);
+    }
+
+    public long getCounterLatencyP99Nanos() {
+        return counterLatency.percentile(99);
+    }
+
+    public long getClockLatencyP50Nanos() {
+        return clockLatency.percentile(50);
+    }
+
+    public long getClockLatencyP99Nanos() {
+        return clockLatency.percentile(99);
+    }
+
+    /**
+     * Get the sampled counter latencies, where element i is the number of samples from 2^i up to 2^(i+1) - 1 ns.
+     * @return Copy of the histogram.
+     */
+    public long[] getCounterLatencyHistogram() {
+        return counterLatency.snapshot();
+    }
+
+    /**
+     * Get the sampled clock latencies, where element i is the number of samples from 2^i up to 2^(i+1) - 1 ns.
+     * @return Copy of the histogram.
+     */
+    public long[] getClockLatencyHistogram() {
+        return clockLatency.snapshot();
+    }
+
+    public long getSlowThresholdNanos() {
+        return slowThresholdNanos;
+    }
+
+    /**
+     * Set how long a sampled id can take in either stage before it is reported as slow. The default is 1 ms.
+     * @param nanos Threshold in nanoseconds.
+     */
+    public void setSlowThresholdNanos(long nanos) {
+        if (nanos < 0)
+            throw new IllegalArgumentException("Slow threshold must not be negative: " + nanos);
+        slowThresholdNanos = nanos;
+    }
+
+    public boolean isSequential() {
+        return generator.isSequential();
+    }
+
+    public boolean isStriped() {
+        return generator.isStriped();
+    }
+
+    /**
+     * Set all of this generator's counts and histograms back to zero. The JVM-wide parse failure count and clock
+     * regression counts are left alone.
+     */
+    public void reset() {
+        generated.reset();
+        retries.reset();
+        wraps.set(0);
+        counterLatency.reset();
+        clockLatency.reset();
+    }
+
+    /**
+     * Register these statistics with the platform MBean server under
+     * com.groupon.uuid:type=UUIDGenerator,name=&lt;name&gt;, replacing any earlier registration of this object.
+     * @param generatorName Name to tell this generator apart from others in the same JVM.
+     * @return The name it was registered under.
+     */
+    public synchronized ObjectName register(String generatorName) {
+        try {
+            unregister();
+            ObjectName objectName = new ObjectName("com.groupon.uuid:type=UUIDGenerator,name=" +
+                    ObjectName.quote(generatorName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            name = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register UUID metrics as " + generatorName, e);
+        }
+    }
+
+    /**
+     * Remove these statistics from the platform MBean server, if they were registered.
+     */
+    public synchronized void unregister() {
+        if (name == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            // already gone
+        }
+        name = null;
+    }
+
+    /**
+     * Register a listener for slow generation and clock regression events from every generator and clock in the JVM.
+     * @param listener Listener to add.
+     */
+    public static void addListener(UUIDEventListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Tried to add null listener");
+        LISTENERS.addIfAbsent(listener);
+    }
+
+    /**
+     * Remove a listener added with addListener().
+     * @param listener Listener to remove.
+     */
+    public static void removeListener(UUIDEventListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Decide whether to time the counter stage of the current id on this thread.
+     */
+    boolean sampleCounter() {
+        int[] c = countdown.get();
+        if (--c[0] > 0)
+            return false;
+        c[0] = SAMPLE_INTERVAL;
+        return true;
+    }
+
+    void generated(int count) {
+        generated.add(count);
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    void wrapped() {
+        wraps.incrementAndGet();
+    }
+
+    void recordCounter(long nanos) {
+        counterLatency.record(nanos);
+        if (nanos > slowThresholdNanos)
+            slow("counter", nanos);
+    }
+
+    /**
+     * Wrap a clock so that reads are sampled into the clock latency histogram.
+     */
+    MillisClock timed(MillisClock clock) {
+        return new TimedClock(clock);
+    }
+
+    private void slow(String stage, long nanos) {
+        for (UUIDEventListener listener : LISTENERS)
+            listener.slowGeneration(generator, stage, nanos);
+    }
+
+    static void parseFailed() {
+        PARSE_FAILURES.increment();
+    }
+
+    static void clockRegressed(MillisClock clock, long from, long to) {
+        for (UUIDEventListener listener : LISTENERS)
+            listener.clockRegressed(clock, from, to);
+    }
+
+    /**
+     * Clock that times a sample of the reads of another clock.
+     */
+    private final class TimedClock extends MillisClock {
+        private final MillisClock clock;
+
+        TimedClock(MillisClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            int[] c = countdown.get();
+            if (--c[1] > 0)
+                return clock.currentTimeMillis();
+            c[1] = SAMPLE_INTERVAL;
+
+            long start = System.nanoTime();
+            long now = clock.currentTimeMillis();
+            long nanos = System.nanoTime() - start;
+            clockLatency.record(nanos);
+            if (nanos > slowThresholdNanos)
+                slow("clock", nanos);
+            return now;
+        }
+
+        @Override
+        public long getRegressionCount() {
+            return clock.getRegressionCount();
+        }
+    }
+}
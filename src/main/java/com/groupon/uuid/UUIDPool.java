@@ -0,0 +1,334 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pool of ids generated ahead of demand by a background thread, so that taking one on a latency sensitive path
+ * never waits on the shared counter or the clock. The ids are kept in a ring buffer with one producer and any number
+ * of consumers: each slot has a sequence number that says whether it is full or free in the current lap, so taking an
+ * id is a read of that number and a compare-and-set of the head, and never blocks.
+ *
+ * An id in the pool carries the time it was generated, so the pool is given a maximum age. Ids older than that when
+ * taken are discarded, and the producer discards those at the head that are half way to the maximum age while the
+ * pool is idle, so a burst after a quiet period doesn't find the whole pool stale. If the pool is empty, the id is
+ * generated inline from the pool's generator instead, and the producer is woken.
+ *
+ * The pool is filled before the constructor returns. The producer is a daemon thread, so it doesn't keep the JVM
+ * alive, but it should be stopped with stop() if the pool is discarded before the JVM exits. A pool stopped like this
+ * hands out the ids it still holds and then generates every id inline.
+ *
+ * Ids in the pool were generated in the generator's mode at the time, so switching the generator into sequential
+ * mode, for example, only shows in pooled ids once those generated before the switch have been used up.
+ */
+public class UUIDPool {
+    private static final long TIMESTAMP_MASK = 0xFFFFFFFFFFFFL;
+    private static final int MAX_DEPTH       = 1 << 24;
+    private static final int BATCH           = 256;
+
+    private final UUIDGenerator generator;
+    private final long maxAge;
+    private final int depth;
+    private final int mask;
+
+    // two longs per slot, most significant half first, and the sequence number of each slot: a slot at position p
+    // holds an id while its sequence number is p + 1 and is free for the producer while it is p
+    private final long[] ids;
+    private final AtomicLongArray sequences;
+
+    // next position to take from, shared by consumers, and the next position to fill, only written by the producer
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    private final StripedCounter fallbacks = new StripedCounter();
+    private final StripedCounter discarded = new StripedCounter();
+
+    private final Thread producer;
+    private volatile boolean running = true;
+
+    /**
+     * Create a pool of ids from the default generator, filled by a daemon thread.
+     * @param depth Number of ids to keep ready, rounded up to a power of two.
+     * @param maxAgeMillis Maximum age of a pooled id when it is handed out.
+     */
+    public UUIDPool(int depth, long maxAgeMillis) {
+        this(UUIDGenerator.getDefault(), depth, maxAgeMillis, null);
+    }
+
+    /**
+     * Create a pool of ids from a generator.
+     * @param generator Generator to fill the pool from, and to fall back to when it is empty.
+     * @param depth Number of ids to keep ready, rounded up to a power of two.
+     * @param maxAgeMillis Maximum age of a pooled id when it is handed out.
+     * @param threadFactory Factory for the producer thread, or null for a daemon thread. On recent JVMs this can be a
+     *                      virtual thread factory.
+     */
+    public UUIDPool(UUIDGenerator generator, int depth, long maxAgeMillis, ThreadFactory threadFactory) {
+        if (depth < 1 || depth > MAX_DEPTH)
+            throw new IllegalArgumentException("Pool depth must be from 1 to " + MAX_DEPTH + ": " + depth);
+        if (maxAgeMillis < 1)
+            throw new IllegalArgumentException("Maximum age of pooled UUIDs must be positive: " + maxAgeMillis);
+
+        int capacity = 1;
+        while (capacity < depth)
+            capacity <<= 1;
+
+        this.generator = generator;
+        this.maxAge = maxAgeMillis;
+        this.depth = capacity;
+        this.mask = capacity - 1;
+        this.ids = new long[2 * capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        };
+
+        fill(new long[2 * BATCH]);
+        if (threadFactory == null) {
+            producer = new Thread(task, "locality-uuid-pool");
+            producer.setDaemon(true);
+        }
+        else {
+            producer = threadFactory.newThread(task);
+        }
+        producer.start();
+    }
+
+    /**
+     * Take an id from the pool, or generate one if the pool is empty.
+     * @return The UUID.
+     */
+    public UUID take() {
+        long oldest = generator.currentTimeMillis() - maxAge;
+
+        while (true) {
+            long pos = claim();
+            if (pos < 0) {
+                fallBack();
+                return generator.generate();
+            }
+
+            int i = 2 * ((int) pos & mask);
+            long hi = ids[i];
+            long lo = ids[i + 1];
+            release(pos);
+
+            if ((lo & TIMESTAMP_MASK) >= oldest)
+                return new UUID(hi, lo);
+            discarded.increment();
+        }
+    }
+
+    /**
+     * Take an id from the pool, or generate one if the pool is empty, and write it into a long array as its most
+     * significant bits followed by its least significant bits. Throws an IndexOutOfBoundsException if there are
+     * fewer than 2 longs after the offset.
+     * @param dest Long array to write the UUID content into.
+     * @param offset Index in the array of the most significant half of the UUID.
+     */
+    public void take(long[] dest, int offset) {
+        if (offset < 0 || offset > dest.length - 2)
+            throw new IndexOutOfBoundsException("No room for a UUID at offset " + offset + " of " + dest.length);
+
+        long oldest = generator.currentTimeMillis() - maxAge;
+
+        while (true) {
+            long pos = claim();
+            if (pos < 0) {
+                fallBack();
+                generator.generate(dest, offset);
+                return;
+            }
+
+            int i = 2 * ((int) pos & mask);
+            long hi = ids[i];
+            long lo = ids[i + 1];
+            release(pos);
+
+            if ((lo & TIMESTAMP_MASK) >= oldest) {
+                dest[offset]     = hi;
+                dest[offset + 1] = lo;
+                return;
+            }
+            discarded.increment();
+        }
+    }
+
+    /**
+     * Get the number of ids the pool holds when full.
+     * @return The depth, a power of two.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the approximate number of ids ready in the pool.
+     * @return Number of ids that can be taken without generating one inline.
+     */
+    public int available() {
+        long available = tail - head.get();
+        return (int) Math.max(0, Math.min(depth, available));
+    }
+
+    /**
+     * Get the number of ids that were generated inline because the pool was empty.
+     * @return Number of fallbacks since the pool was created.
+     */
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Get the number of pooled ids thrown away for being too old.
+     * @return Number of stale ids since the pool was created.
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /**
+     * Stop the producer thread. Ids left in the pool are still handed out, after which every id is generated inline.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(producer);
+    }
+
+    /**
+     * Claim the slot at the head of the ring.
+     * @return Position of the claimed slot, or -1 if the pool is empty.
+     */
+    private long claim() {
+        while (true) {
+            long pos = head.get();
+            long seq = sequences.get((int) pos & mask);
+
+            if (seq == pos + 1) {
+                if (head.compareAndSet(pos, pos + 1))
+                    return pos;
+            }
+            else if (seq <= pos) {
+                return -1;
+            }
+            // otherwise another consumer took this slot, try the next one
+        }
+    }
+
+    /**
+     * Hand a slot whose id has been read back to the producer for the next lap, waking the producer each time half
+     * of the pool has been taken.
+     */
+    private void release(long pos) {
+        sequences.lazySet((int) pos & mask, pos + depth);
+        if ((pos & (mask >> 1)) == 0)
+            LockSupport.unpark(producer);
+    }
+
+    private void fallBack() {
+        fallbacks.increment();
+        LockSupport.unpark(producer);
+    }
+
+    /**
+     * Main loop of the producer thread, which refills the pool whenever it's woken and throws out ids approaching the
+     * maximum age while it's idle.
+     */
+    private void produce() {
+        long[] batch = new long[2 * BATCH];
+        long idle = Math.max(1, Math.min(1000, maxAge / 2)) * 1000000L;
+
+        while (running) {
+            discardOlderThan(generator.currentTimeMillis() - maxAge / 2);
+            if (!fill(batch))
+                LockSupport.parkNanos(this, idle);
+        }
+    }
+
+    /**
+     * Generate ids into free slots until the pool is full.
+     * @param batch Space for generating ids in batches.
+     * @return Whether any ids were added.
+     */
+    private boolean fill(long[] batch) {
+        boolean added = false;
+
+        while (true) {
+            long pos = tail;
+            int free = (int) Math.min(BATCH, depth - (pos - head.get()));
+            if (free <= 0)
+                return added;
+
+            generator.generate(batch, 0, free);
+            for (int i = 0; i < 2 * free; i += 2, pos++) {
+                int slot = (int) pos & mask;
+                // the consumer that claimed this slot in the last lap may still be reading it
+                while (sequences.get(slot) != pos)
+                    Thread.yield();
+
+                ids[2 * slot]     = batch[i];
+                ids[2 * slot + 1] = batch[i + 1];
+                sequences.lazySet(slot, pos + 1);
+            }
+            tail = pos;
+            added = true;
+        }
+    }
+
+    /**
+     * Take and throw away ids at the head of the pool generated before the given time.
+     */
+    private void discardOlderThan(long oldest) {
+        while (true) {
+            long pos = head.get();
+            int slot = (int) pos & mask;
+            if (sequences.get(slot) != pos + 1 || (ids[2 * slot + 1] & TIMESTAMP_MASK) >= oldest)
+                return;
+
+            if (head.compareAndSet(pos, pos + 1)) {
+                sequences.lazySet(slot, pos + depth);
+                discarded.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A fixed number of new vB UUIDs from a UUIDGenerator, handed out one at a time or in batches of longs, which can be
+ * split into independent sequences for parallel workers. Created with UUIDGenerator.sequence(count).
+ *
+ * A sequence takes its counter values from the generator in blocks of up to 65,536, each reserved with a single
+ * atomic operation, and splitting a sequence hands the unused part of its current block to the new sequence, so
+ * workers only touch the shared counter once per block. As with striped generation, blocks never overlap and ids are
+ * as unique as if every value had been taken from the counter directly. In sequential mode ids are in order within
+ * each block. The clock is read once per id, or once per call for batches, and a block reserved before the
+ * generator's mode changed or its counter was re-seeded is dropped.
+ *
+ * A sequence is not safe to share between threads: split it and give each thread its own part. For example, to fill
+ * a long array from several threads:
+ *
+ * <pre>
+ * UUIDSequence first = generator.sequence(count);
+ * UUIDSequence second = first.trySplit();
+ * // each thread then calls next(ids, offset, n) on its own sequence until it returns 0
+ * </pre>
+ *
+ * While the generator is instrumented, ids are counted as generated when their block is reserved.
+ */
+public final class UUIDSequence {
+    private static final int BLOCK_SIZE = 65536;
+
+    private final UUIDGenerator generator;
+
+    // ids left in this sequence, including those left in the current block
+    private long remaining;
+
+    // last counter value handed out from the current block, and the number of values left in it
+    private int value;
+    private int blockRemaining;
+
+    // generator mode the block was reserved in, and the counter step in that mode
+    private int mode;
+    private int step;
+
+    UUIDSequence(UUIDGenerator generator, long count) {
+        this.generator = generator;
+        this.remaining = count;
+    }
+
+    /**
+     * Get the number of ids left in this sequence.
+     * @return Number of ids that can still be taken.
+     */
+    public long remaining() {
+        return remaining;
+    }
+
+    /**
+     * Check if there are ids left in this sequence.
+     * @return Whether next() will return an id.
+     */
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    /**
+     * Take the next id from this sequence. Throws a NoSuchElementException if there are none left.
+     * @return The new UUID.
+     */
+    public UUID next() {
+        if (remaining == 0)
+            throw new NoSuchElementException("No UUIDs left in sequence");
+
+        long lo = generator.nextLeastSignificantBits();
+        if (blockRemaining == 0 || mode != generator.currentMode())
+            reserve();
+
+        value += step;
+        blockRemaining--;
+        remaining--;
+        return new UUID(generator.counterBits(value, step == 1), lo);
+    }
+
+    /**
+     * Take up to count ids from this sequence into a long array, two longs each (most significant half first), one
+     * after another from the offset. The clock is read once, so all the ids share a timestamp. Throws an
+     * IndexOutOfBoundsException, without writing anything, if count ids don't fit.
+     * @param dest Long array to write the UUIDs into.
+     * @param offset Index in the array of the most significant half of the first UUID.
+     * @param count Maximum number of UUIDs to take.
+     * @return Number of UUIDs written, which is less than count only if the sequence ran out, and 0 once it has.
+     */
+    public int next(long[] dest, int offset, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Tried to take a negative number of UUIDs: " + count);
+        if (offset < 0 || offset > dest.length - 2L * count)
+            throw new IndexOutOfBoundsException("No room for " + count + " UUIDs at offset " + offset + " of " + dest.length);
+
+        int n = (int) Math.min(count, remaining);
+        if (n == 0)
+            return 0;
+
+        long lo = generator.nextLeastSignificantBits();
+        if (mode != generator.currentMode())
+            blockRemaining = 0;
+
+        int i = offset;
+        int end = offset + 2 * n;
+        while (i < end) {
+            if (blockRemaining == 0)
+                reserve();
+
+            int run = Math.min(blockRemaining, (end - i) >> 1);
+            int v = value;
+            int s = step;
+            boolean seq = s == 1;
+            for (int stop = i + 2 * run; i < stop; i += 2) {
+                v += s;
+                dest[i]     = generator.counterBits(v, seq);
+                dest[i + 1] = lo;
+            }
+            value = v;
+            blockRemaining -= run;
+            remaining -= run;
+        }
+        return n;
+    }
+
+    /**
+     * Split off the second half of the ids left in this sequence into a new sequence, which takes over any counter
+     * values this sequence has reserved but won't use. The two sequences can then be used from different threads.
+     * @return The new sequence, or null if fewer than two ids are left.
+     */
+    public UUIDSequence trySplit() {
+        if (remaining < 2)
+            return null;
+
+        long keep = remaining - remaining / 2;
+        UUIDSequence split = new UUIDSequence(generator, remaining / 2);
+        remaining = keep;
+
+        if (blockRemaining > keep) {
+            split.value = value + (int) keep * step;
+            split.blockRemaining = blockRemaining - (int) keep;
+            split.mode = mode;
+            split.step = step;
+            blockRemaining = (int) keep;
+        }
+        return split;
+    }
+
+    /**
+     * Reserve a new block of counter values from the generator in its current mode, dropping any left in this one.
+     */
+    private void reserve() {
+        int m = generator.currentMode();
+        int size = (int) Math.min(remaining, BLOCK_SIZE);
+
+        value = generator.reserveBlock(m, size);
+        blockRemaining = size;
+        mode = m;
+        step = UUIDGenerator.counterStep(m);
+    }
+}
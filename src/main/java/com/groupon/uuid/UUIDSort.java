@@ -0,0 +1,445 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Radix sort for UUIDs held in long arrays as their most significant half followed by their least significant half,
+ * as written by UUID.generate(long[], int, int). Sorting takes one auxiliary array the size of the input and doesn't
+ * create any objects per id, so tens of millions of ids can be sorted in a fraction of the time and memory a
+ * comparison sort over UUID objects would need.
+ *
+ * The sort first finds the most significant byte at which the ids differ and distributes them into 256 buckets by
+ * that byte, then sorts each bucket least significant byte first. Bytes that are the same for every id in a bucket are
+ * skipped, which for vB ids means the pid, MAC fragment and upper timestamp bytes cost a counting pass but no data
+ * movement. In parallel sorts the counting and distribution are split across threads by range and the buckets are
+ * shared out between them.
+ */
+public final class UUIDSort {
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * The order to sort ids in.
+     */
+    public enum Order {
+        /** Unsigned byte order, which is the natural order of UUID objects. */
+        BYTES,
+        /** Embedded timestamp order, as with UUID.TIMESTAMP_ORDER. */
+        TIMESTAMP
+    }
+
+    private UUIDSort() {}
+
+    /**
+     * Sort a run of ids into unsigned byte order on the current thread.
+     * @param ids Array holding the ids, each as two longs.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to sort.
+     */
+    public static void sort(long[] ids, int offset, int count) {
+        sort(ids, offset, count, Order.BYTES, 1);
+    }
+
+    /**
+     * Sort a run of ids on the current thread.
+     * @param ids Array holding the ids, each as two longs.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to sort.
+     * @param order Order to sort the ids into.
+     */
+    public static void sort(long[] ids, int offset, int count, Order order) {
+        sort(ids, offset, count, order, 1);
+    }
+
+    /**
+     * Sort a run of ids using one thread per available processor, including the current thread.
+     * @param ids Array holding the ids, each as two longs.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to sort.
+     * @param order Order to sort the ids into.
+     */
+    public static void parallelSort(long[] ids, int offset, int count, Order order) {
+        sort(ids, offset, count, order, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sort a run of ids using up to the given number of threads, including the current thread. Runs too small to
+     * benefit from more threads are sorted on the current thread only. The call returns when the ids are sorted.
+     * @param ids Array holding the ids, each as two longs.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to sort.
+     * @param order Order to sort the ids into.
+     * @param threads Maximum number of threads to use, at least 1.
+     */
+    public static void sort(long[] ids, int offset, int count, Order order, int threads) {
+        UUIDTable.checkIds(ids, offset, count);
+        if (order == null)
+            throw new IllegalArgumentException("order must not be null");
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+
+        boolean rotate = order == Order.TIMESTAMP;
+        if (count <= INSERTION_SORT_THRESHOLD) {
+            if (rotate)
+                rotate(ids, offset, count);
+            insertionSort(ids, offset, count);
+            if (rotate)
+                unrotate(ids, offset, count);
+            return;
+        }
+
+        new RadixSort(ids, offset, count, rotate, Math.min(threads, Math.max(1, count / PARALLEL_THRESHOLD))).run();
+    }
+
+    /**
+     * State of one sort, shared between the threads working on it.
+     */
+    private static final class RadixSort {
+        private final long[] ids;
+        private final int offset;
+        private final int count;
+        private final boolean rotate;
+        private final int threads;
+        private final long[] aux;
+
+        private final long[] diffHi;
+        private final long[] diffLo;
+        private final int[][] counts;
+        private int msd;
+        private final int[] bucketStart = new int[257];
+
+        RadixSort(long[] ids, int offset, int count, boolean rotate, int threads) {
+            this.ids = ids;
+            this.offset = offset;
+            this.count = count;
+            this.rotate = rotate;
+            this.threads = threads;
+            this.aux = new long[2 * count];
+            this.diffHi = new long[threads];
+            this.diffLo = new long[threads];
+            this.counts = new int[threads][256];
+        }
+
+        void run() {
+            // rotate into timestamp order if needed and find which bits differ from the first id
+            final long firstHi = rotate ? UUID.timeOrderHi(ids[offset], ids[offset + 1]) : ids[offset];
+            final long firstLo = rotate ? UUID.timeOrderLo(ids[offset], ids[offset + 1]) : ids[offset + 1];
+            forEachThread(threads, new Task() {
+                public void run(int thread) {
+                    int start = chunkStart(thread);
+                    int n = chunkStart(thread + 1) - start;
+                    if (rotate)
+                        rotate(ids, offset + 2 * start, n);
+
+                    long hi = 0;
+                    long lo = 0;
+                    for (int i = offset + 2 * start, end = i + 2 * n; i < end; i += 2) {
+                        hi |= ids[i] ^ firstHi;
+                        lo |= ids[i + 1] ^ firstLo;
+                    }
+                    diffHi[thread] = hi;
+                    diffLo[thread] = lo;
+                }
+            });
+
+            long hi = 0;
+            long lo = 0;
+            for (int t = 0; t < threads; t++) {
+                hi |= diffHi[t];
+                lo |= diffLo[t];
+            }
+            if ((hi | lo) == 0) {
+                // every id is the same
+                if (rotate)
+                    unrotate(ids, offset, count);
+                return;
+            }
+            msd = hi != 0 ? 8 + (63 - Long.numberOfLeadingZeros(hi)) / 8 : (63 - Long.numberOfLeadingZeros(lo)) / 8;
+
+            // count each thread's range by the most significant differing byte, then distribute into aux
+            forEachThread(threads, new Task() {
+                public void run(int thread) {
+                    int[] c = counts[thread];
+                    for (int i = offset + 2 * chunkStart(thread), end = offset + 2 * chunkStart(thread + 1); i < end;
+                            i += 2)
+                        c[digit(ids[i], ids[i + 1], msd)]++;
+                }
+            });
+
+            int position = 0;
+            for (int b = 0; b < 256; b++) {
+                bucketStart[b] = position;
+                for (int t = 0; t < threads; t++) {
+                    int n = counts[t][b];
+                    counts[t][b] = position;
+                    position += n;
+                }
+            }
+            bucketStart[256] = count;
+
+            forEachThread(threads, new Task() {
+                public void run(int thread) {
+                    int[] next = counts[thread];
+                    for (int i = offset + 2 * chunkStart(thread), end = offset + 2 * chunkStart(thread + 1); i < end;
+                            i += 2) {
+                        long h = ids[i];
+                        long l = ids[i + 1];
+                        int to = 2 * next[digit(h, l, msd)]++;
+                        aux[to] = h;
+                        aux[to + 1] = l;
+                    }
+                }
+            });
+
+            // sort the buckets back into ids, largest first so the threads finish at about the same time
+            final int[] buckets = bucketsBySize();
+            final AtomicInteger nextBucket = new AtomicInteger();
+            forEachThread(threads, new Task() {
+                public void run(int thread) {
+                    int[][] histograms = new int[msd][256];
+                    int b;
+                    while ((b = nextBucket.getAndIncrement()) < buckets.length) {
+                        int start = bucketStart[buckets[b]];
+                        int n = bucketStart[buckets[b] + 1] - start;
+                        sortBucket(aux, 2 * start, ids, offset + 2 * start, n, msd, histograms);
+                        if (rotate)
+                            unrotate(ids, offset + 2 * start, n);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Get the index of the first id in a thread's range, with the ranges splitting the ids evenly.
+         */
+        private int chunkStart(int thread) {
+            return (int) ((long) count * thread / threads);
+        }
+
+        /**
+         * Get the non-empty buckets in decreasing order of size.
+         */
+        private int[] bucketsBySize() {
+            int n = 0;
+            long[] keys = new long[256];
+            for (int b = 0; b < 256; b++) {
+                int size = bucketStart[b + 1] - bucketStart[b];
+                if (size > 0)
+                    keys[n++] = ((long) -size << 8) | b;
+            }
+            Arrays.sort(keys, 0, n);
+
+            int[] buckets = new int[n];
+            for (int i = 0; i < n; i++)
+                buckets[i] = (int) (keys[i] & 0xFF);
+            return buckets;
+        }
+    }
+
+    /**
+     * Sort one bucket least significant byte first, moving it from its place in one array to its place in the other.
+     * @param src Array holding the bucket.
+     * @param srcOffset Index of the bucket's first long in src.
+     * @param dest Array to leave the sorted bucket in.
+     * @param destOffset Index of the bucket's first long in dest, which is also used as scratch space.
+     * @param n Number of ids in the bucket.
+     * @param digits Number of bytes to sort by, counting from the least significant byte of the second half.
+     * @param histograms Scratch space of at least digits rows of 256 counts.
+     */
+    private static void sortBucket(long[] src, int srcOffset, long[] dest, int destOffset, int n, int digits,
+                                   int[][] histograms) {
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            System.arraycopy(src, srcOffset, dest, destOffset, 2 * n);
+            insertionSort(dest, destOffset, n);
+            return;
+        }
+
+        // count every digit in one pass over the data
+        for (int d = 0; d < digits; d++)
+            Arrays.fill(histograms[d], 0);
+        for (int i = srcOffset, end = srcOffset + 2 * n; i < end; i += 2) {
+            long hi = src[i];
+            long lo = src[i + 1];
+            for (int d = 0; d < digits; d++)
+                histograms[d][digit(hi, lo, d)]++;
+        }
+
+        long[] from = src;
+        int fromOffset = srcOffset;
+        long[] to = dest;
+        int toOffset = destOffset;
+        for (int d = 0; d < digits; d++) {
+            int[] histogram = histograms[d];
+            if (histogram[digit(from[fromOffset], from[fromOffset + 1], d)] == n)
+                continue;
+
+            int position = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = histogram[b];
+                histogram[b] = position;
+                position += c;
+            }
+
+            for (int i = fromOffset, end = fromOffset + 2 * n; i < end; i += 2) {
+                long hi = from[i];
+                long lo = from[i + 1];
+                int j = toOffset + 2 * histogram[digit(hi, lo, d)]++;
+                to[j] = hi;
+                to[j + 1] = lo;
+            }
+
+            long[] swap = from;
+            from = to;
+            to = swap;
+            int swapOffset = fromOffset;
+            fromOffset = toOffset;
+            toOffset = swapOffset;
+        }
+
+        if (from != dest)
+            System.arraycopy(from, fromOffset, dest, destOffset, 2 * n);
+    }
+
+    /**
+     * Get one byte of an id, numbered from 0 for the least significant byte of the second half to 15 for the most
+     * significant byte of the first half.
+     */
+    private static int digit(long hi, long lo, int d) {
+        return (int) (d < 8 ? lo >>> (d << 3) : hi >>> ((d - 8) << 3)) & 0xFF;
+    }
+
+    private static void insertionSort(long[] ids, int offset, int count) {
+        for (int i = offset + 2, end = offset + 2 * count; i < end; i += 2) {
+            long hi = ids[i];
+            long lo = ids[i + 1];
+            int j = i - 2;
+            while (j >= offset && UUID.compare(ids[j], ids[j + 1], hi, lo) > 0) {
+                ids[j + 2] = ids[j];
+                ids[j + 3] = ids[j + 1];
+                j -= 2;
+            }
+            ids[j + 2] = hi;
+            ids[j + 3] = lo;
+        }
+    }
+
+    /**
+     * Rotate ids in place so that their unsigned byte order is their timestamp order.
+     */
+    private static void rotate(long[] ids, int offset, int count) {
+        for (int i = offset, end = offset + 2 * count; i < end; i += 2) {
+            long hi = ids[i];
+            long lo = ids[i + 1];
+            ids[i] = UUID.timeOrderHi(hi, lo);
+            ids[i + 1] = UUID.timeOrderLo(hi, lo);
+        }
+    }
+
+    /**
+     * Undo rotate(long[], int, int).
+     */
+    private static void unrotate(long[] ids, int offset, int count) {
+        for (int i = offset, end = offset + 2 * count; i < end; i += 2) {
+            long a = ids[i];
+            long b = ids[i + 1];
+            ids[i] = (a << 48) | (b >>> 16);
+            ids[i + 1] = (b << 48) | (a >>> 16);
+        }
+    }
+
+    /**
+     * Work done by each thread of a parallel sort.
+     */
+    private interface Task {
+        void run(int thread);
+    }
+
+    /**
+     * Run a task on the given number of threads, numbered from 0, with thread 0 being the current thread, and wait
+     * for all of them to finish. A failure on any thread is rethrown on the current thread.
+     */
+    private static void forEachThread(int threads, final Task task) {
+        if (threads == 1) {
+            task.run(0);
+            return;
+        }
+
+        final Throwable[] failure = new Throwable[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 1; t < threads; t++) {
+            final int thread = t;
+            workers[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        task.run(thread);
+                    } catch (Throwable e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    }
+                }
+            }, "locality-uuid-sort-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+
+        boolean interrupted = false;
+        try {
+            task.run(0);
+        } finally {
+            // the workers are writing into the caller's array, so they have to finish before this returns
+            for (int t = 1; t < threads; t++) {
+                while (true) {
+                    try {
+                        workers[t].join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        synchronized (failure) {
+            if (failure[0] instanceof RuntimeException)
+                throw (RuntimeException) failure[0];
+            if (failure[0] instanceof Error)
+                throw (Error) failure[0];
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table storing UUIDs inline as pairs of longs, shared by UUIDHashSet and UUIDHashMap. Slot i
+ * holds its id in keys[2i] and keys[2i + 1] and, in a map, its value in values[i]. Collisions are resolved by linear
+ * probing, which keeps lookups within one or two cache lines, and removal shifts later entries back into the gap
+ * rather than leaving tombstones, so the table never slows down under churn.
+ *
+ * The all-zero id marks an empty slot, so when it's a member it is tracked with a flag instead and its value (if any)
+ * is kept in the extra slot at values[capacity].
+ *
+ * Ids are hashed with UUID.hash(long, long), which mixes every bit of both halves. Hashing the byte array as
+ * Arrays.hashCode does clusters badly on vB ids, since bytes 4 - 9 are the same for every id from one process.
+ */
+abstract class UUIDTable {
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    long[] keys;
+    Object[] values;
+    int mask;
+    int size;
+    boolean hasZero;
+    private int resizeAt;
+    private final boolean mapped;
+
+    /**
+     * Create a table sized to hold the given number of ids without resizing.
+     * @param expectedSize Number of ids expected, must not be negative.
+     * @param mapped Whether a value is stored with each id.
+     */
+    UUIDTable(int expectedSize, boolean mapped) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expected size must not be negative: " + expectedSize);
+
+        this.mapped = mapped;
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Get the number of ids in the table.
+     * @return Number of ids.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the table is empty.
+     * @return True if there are no ids in the table.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove every id, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        if (values != null)
+            Arrays.fill(values, null);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * Copy every id in the table into a long array, each as its most significant half followed by its least
+     * significant half, in no particular order. Throws an IndexOutOfBoundsException, without writing anything, if
+     * there isn't room for 2 * size() longs after the offset.
+     * @param dest Array to write into.
+     * @param offset Index in the array of the first long.
+     * @return The number of ids written.
+     */
+    public int copyTo(long[] dest, int offset) {
+        if (offset < 0 || offset > dest.length - 2 * size)
+            throw new IndexOutOfBoundsException("need " + 2 * size + " longs at offset " + offset +
+                    " of array length " + dest.length);
+
+        int out = offset;
+        if (hasZero) {
+            dest[out++] = 0;
+            dest[out++] = 0;
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            long hi = keys[i];
+            long lo = keys[i + 1];
+            if ((hi | lo) != 0) {
+                dest[out++] = hi;
+                dest[out++] = lo;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Check a run of ids from a long array for membership.
+     * @param ids Array to read from, each id as its most significant half followed by its least significant half.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to check.
+     * @param found Array to record the result for each id in, or null to only count them.
+     * @param foundOffset Index in the found array of the result for the first id.
+     * @return The number of ids that are in the table.
+     */
+    public int containsAll(long[] ids, int offset, int count, boolean[] found, int foundOffset) {
+        checkIds(ids, offset, count);
+        if (found != null)
+            checkRun(found.length, foundOffset, count, "results");
+
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            boolean member = indexOf(ids[offset + 2 * i], ids[offset + 2 * i + 1]) >= 0;
+            if (member)
+                hits++;
+            if (found != null)
+                found[foundOffset + i] = member;
+        }
+        return hits;
+    }
+
+    /**
+     * Insert a run of ids from a long array, storing the value at the same position of src with each id in a map.
+     * @param ids Array to read from, each id as its most significant half followed by its least significant half.
+     * @param offset Index in the array of the first long.
+     * @param count Number of ids to insert.
+     * @param src Array holding the value for each id, or null in a set.
+     * @param srcOffset Index in the value array of the value for the first id.
+     * @return The number of ids that weren't already in the table.
+     */
+    final int insertAll(long[] ids, int offset, int count, Object[] src, int srcOffset) {
+        checkIds(ids, offset, count);
+        if (src != null)
+            checkRun(src.length, srcOffset, count, "values");
+
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = insert(ids[offset + 2 * i], ids[offset + 2 * i + 1]);
+            if (slot < 0)
+                added++;
+            if (src != null)
+                values[slot < 0 ? ~slot : slot] = src[srcOffset + i];
+        }
+        return added;
+    }
+
+    /**
+     * Insert a run of ids in their 16-byte raw form from the buffer's current position, advancing it past them, as
+     * insertAll(long[], int, int, Object[], int) does. Throws a BufferUnderflowException, without inserting anything,
+     * if fewer than 16 * count bytes remain.
+     */
+    final int insertAll(ByteBuffer ids, int count, Object[] src, int srcOffset) {
+        if (count < 0)
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        if (src != null)
+            checkRun(src.length, srcOffset, count, "values");
+        if (ids.remaining() < 16L * count)
+            throw new BufferUnderflowException();
+
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            long hi = UUID.getLong(ids);
+            long lo = UUID.getLong(ids);
+            int slot = insert(hi, lo);
+            if (slot < 0)
+                added++;
+            if (src != null)
+                values[slot < 0 ? ~slot : slot] = src[srcOffset + i];
+        }
+        return added;
+    }
+
+    /**
+     * Find the slot holding an id.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The slot index, the capacity for the zero id, or -1 if the id isn't in the table.
+     */
+    final int indexOf(long hi, long lo) {
+        if ((hi | lo) == 0)
+            return hasZero ? mask + 1 : -1;
+
+        long[] keys = this.keys;
+        int i = UUID.hash(hi, lo) & mask;
+        while (true) {
+            long h = keys[2 * i];
+            long l = keys[2 * i + 1];
+            if (h == hi && l == lo)
+                return i;
+            if ((h | l) == 0)
+                return -1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Find the slot holding an id, adding it if it isn't in the table.
+     * @param hi Long value representing the first half of the UUID.
+     * @param lo Long value representing the second half of the UUID.
+     * @return The slot index (the capacity for the zero id) if the id was already in the table, or the bitwise
+     *         complement of the slot index if it was added.
+     */
+    final int insert(long hi, long lo) {
+        if ((hi | lo) == 0) {
+            if (hasZero)
+                return mask + 1;
+            hasZero = true;
+            size++;
+            return ~(mask + 1);
+        }
+
+        long[] keys = this.keys;
+        int i = UUID.hash(hi, lo) & mask;
+        while (true) {
+            long h = keys[2 * i];
+            long l = keys[2 * i + 1];
+            if (h == hi && l == lo)
+                return i;
+            if ((h | l) == 0)
+                break;
+            i = (i + 1) & mask;
+        }
+
+        if (size >= resizeAt) {
+            // the id moves when the table grows, so find its new slot
+            rehash(2 * (mask + 1));
+            i = freeSlot(hi, lo);
+        }
+
+        this.keys[2 * i] = hi;
+        this.keys[2 * i + 1] = lo;
+        size++;
+        return ~i;
+    }
+
+    /**
+     * Remove the id in a slot, shifting back any later entries in its probe run so that no gap is left for lookups to
+     * stop at.
+     * @param slot Slot index from indexOf(), which may be the capacity for the zero id.
+     */
+    final void removeAt(int slot) {
+        size--;
+        if (slot == mask + 1) {
+            hasZero = false;
+            if (values != null)
+                values[slot] = null;
+            return;
+        }
+
+        long[] keys = this.keys;
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long hi = keys[2 * i];
+            long lo = keys[2 * i + 1];
+            if ((hi | lo) == 0)
+                break;
+
+            // an entry may fill the gap only if the gap lies between its home slot and where it is now
+            int home = UUID.hash(hi, lo) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[2 * gap] = hi;
+                keys[2 * gap + 1] = lo;
+                if (values != null)
+                    values[gap] = values[i];
+                gap = i;
+            }
+        }
+
+        keys[2 * gap] = 0;
+        keys[2 * gap + 1] = 0;
+        if (values != null)
+            values[gap] = null;
+    }
+
+    /**
+     * Find the first empty slot in the probe run of an id known not to be in the table.
+     */
+    private int freeSlot(long hi, long lo) {
+        int i = UUID.hash(hi, lo) & mask;
+        while ((keys[2 * i] | keys[2 * i + 1]) != 0)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[2 * capacity];
+        if (mapped)
+            values = new Object[capacity + 1];
+        mask = capacity - 1;
+        resizeAt = capacity == MAX_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    private void rehash(int capacity) {
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalStateException("table is full at " + size + " ids");
+
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldCapacity = mask + 1;
+        allocate(capacity);
+
+        for (int j = 0; j < oldCapacity; j++) {
+            long hi = oldKeys[2 * j];
+            long lo = oldKeys[2 * j + 1];
+            if ((hi | lo) != 0) {
+                int i = freeSlot(hi, lo);
+                keys[2 * i] = hi;
+                keys[2 * i + 1] = lo;
+                if (values != null)
+                    values[i] = oldValues[j];
+            }
+        }
+        if (values != null)
+            values[capacity] = oldValues[oldCapacity];
+    }
+
+    /**
+     * Get the smallest power of two capacity that holds the given number of ids below the maximum load factor of 3/4.
+     */
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize >= MAX_CAPACITY / 4 * 3)
+            return MAX_CAPACITY;
+
+        int capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 <= expectedSize)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Check that a region of an array holds the given number of ids, each as two longs.
+     */
+    static void checkIds(long[] ids, int offset, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        if (offset < 0 || offset > ids.length - 2L * count)
+            throw new IndexOutOfBoundsException("need " + 2 * count + " longs at offset " + offset +
+                    " of array length " + ids.length);
+    }
+
+    /**
+     * Check that a region of an array of the given length has room for one element per id.
+     */
+    static void checkRun(int length, int offset, int count, String what) {
+        if (offset < 0 || offset > length - count)
+            throw new IndexOutOfBoundsException("need " + count + " " + what + " at offset " + offset +
+                    " of array length " + length);
+    }
+}
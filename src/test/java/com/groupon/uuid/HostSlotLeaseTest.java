@@ -0,0 +1,169 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import static org.junit.Assert.*;
+
+public class HostSlotLeaseTest {
+
+    /**
+     * Entry point for the child JVMs started by testSeparateProcesses(): prints the process id of the default
+     * generator, which the slots property makes a leased slot, and holds it until stdin is closed.
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println(UUID.PID);
+        System.out.flush();
+        while (System.in.read() >= 0) {
+            // wait for the parent
+        }
+    }
+
+    /**
+     * Test that leases from the same file get different slots, starting from this process's pid, that closed slots
+     * can be leased again, and that leasing fails once every slot is held.
+     */
+    @Test
+    public void testLease() throws Exception {
+        File file = File.createTempFile("slots", ".lock");
+        try {
+            int start = Math.max(NodeIdentity.detectProcessId(), 0) % 3;
+            HostSlotLease a = HostSlotLease.acquire(file, 3);
+            HostSlotLease b = HostSlotLease.acquire(file, 3);
+            HostSlotLease c = HostSlotLease.acquire(file, 3);
+            assertEquals(start, a.getSlot());
+            assertEquals((start + 1) % 3, b.getSlot());
+            assertEquals((start + 2) % 3, c.getSlot());
+            assertTrue(b.isValid());
+            assertEquals(file, b.getFile());
+
+            try {
+                HostSlotLease.acquire(file, 3);
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+
+            b.close();
+            assertFalse(b.isValid());
+            b.close();
+            HostSlotLease d = HostSlotLease.acquire(file, 3);
+            assertEquals((start + 1) % 3, d.getSlot());
+
+            // slots are usable as the process id of a generator
+            assertEquals(d.getSlot(), new UUIDGenerator(d.getSlot(), UUID.MAC).generate().getProcessId());
+
+            a.close();
+            c.close();
+            d.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that JVMs configured with the same slots file get different process ids, which they hold until they exit.
+     */
+    @Test
+    public void testSeparateProcesses() throws Exception {
+        File file = File.createTempFile("slots", ".lock");
+        Process[] children = new Process[3];
+        try {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            int[] pids = new int[children.length];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        "-D" + NodeIdentity.SLOTS_PROPERTY + "=" + file.getPath(), HostSlotLeaseTest.class.getName())
+                        .redirectErrorStream(true).start();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(children[i].getInputStream()));
+                pids[i] = Integer.parseInt(reader.readLine());
+                for (int j = 0; j < i; j++)
+                    assertTrue(pids[i] != pids[j]);
+            }
+
+            // slots stay locked while their JVM runs, and are released when it exits
+            children[0].getOutputStream().close();
+            children[0].waitFor();
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                assertNull(channel.tryLock(pids[1], 1, false));
+                FileLock lock = channel.tryLock(pids[0], 1, false);
+                assertNotNull(lock);
+                lock.release();
+            } finally {
+                raf.close();
+            }
+        } finally {
+            for (Process child : children) {
+                if (child != null)
+                    child.destroy();
+            }
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that invalid arguments are rejected.
+     */
+    @Test
+    public void testInvalid() throws Exception {
+        try {
+            HostSlotLease.acquire(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        File file = File.createTempFile("slots", ".lock");
+        try {
+            for (int slots : new int[] {0, -1, HostSlotLease.MAX_SLOTS + 1}) {
+                try {
+                    HostSlotLease.acquire(file, slots);
+                    fail("Expected IllegalArgumentException");
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
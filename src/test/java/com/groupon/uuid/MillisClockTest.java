@@ -0,0 +1,109 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MillisClockTest {
+
+    /**
+     * Test that a manual clock only moves when told to, and that moving it backwards is counted and held.
+     */
+    @Test
+    public void testManualClock() {
+        ManualMillisClock clock = new ManualMillisClock(1000);
+        assertEquals(1000, clock.currentTimeMillis());
+
+        clock.advance(5);
+        assertEquals(1005, clock.currentTimeMillis());
+        assertEquals(0, clock.getRegressionCount());
+
+        // a step backwards is counted once and the clock holds until real time passes it again
+        clock.set(900);
+        assertEquals(1005, clock.currentTimeMillis());
+        clock.set(950);
+        assertEquals(1005, clock.currentTimeMillis());
+        assertEquals(1, clock.getRegressionCount());
+
+        clock.set(1010);
+        assertEquals(1010, clock.currentTimeMillis());
+        clock.advance(-1);
+        assertEquals(1010, clock.currentTimeMillis());
+        assertEquals(2, clock.getRegressionCount());
+    }
+
+    /**
+     * Test that the cached clock keeps close to the system clock and stops ticking when stopped.
+     */
+    @Test
+    public void testCachedClock() throws Exception {
+        CachedMillisClock clock = new CachedMillisClock();
+        try {
+            Thread.sleep(50);
+            assertTrue(Math.abs(clock.currentTimeMillis() - System.currentTimeMillis()) < 100);
+
+            long before = clock.currentTimeMillis();
+            Thread.sleep(50);
+            assertTrue(clock.currentTimeMillis() > before);
+            assertEquals(0, clock.getRegressionCount());
+        } finally {
+            clock.stop();
+        }
+
+        Thread.sleep(20);
+        long stopped = clock.currentTimeMillis();
+        Thread.sleep(50);
+        assertEquals(stopped, clock.currentTimeMillis());
+    }
+
+    /**
+     * Test that generated UUIDs take their timestamp from the configured clock.
+     */
+    @Test
+    public void testGenerationUsesClock() {
+        ManualMillisClock clock = new ManualMillisClock(1350327498450L);
+        UUID.useClock(clock);
+        try {
+            assertEquals(1350327498450L, new UUID().getTimestamp().getTime());
+
+            long[] longs = new long[2];
+            clock.advance(1);
+            UUID.generate(longs, 0);
+            assertEquals(1350327498451L, new UUID(longs[0], longs[1]).getTimestamp().getTime());
+        } finally {
+            UUID.useClock(new SystemMillisClock());
+        }
+    }
+}
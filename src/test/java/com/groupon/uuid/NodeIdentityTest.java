@@ -0,0 +1,215 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NodeIdentityTest {
+
+    /**
+     * Test that the detected local identity matches the JMX process id and is the one published in UUID.PID and
+     * UUID.MAC and used by the default generator.
+     */
+    @Test
+    public void testLocal() {
+        NodeIdentity local = NodeIdentity.local();
+        String jvmName = ManagementFactory.getRuntimeMXBean().getName();
+        int jmxPid = Integer.parseInt(jvmName.substring(0, jvmName.indexOf('@'))) % 65536;
+
+        assertEquals(jmxPid, local.getProcessId());
+        assertEquals(UUID.PID, local.getProcessId());
+        assertArrayEquals(UUID.MAC, local.getMacAddress());
+        assertEquals(local.getProcessId(), UUIDGenerator.getDefault().getProcessId());
+        assertArrayEquals(local.getMacAddress(), UUIDGenerator.getDefault().getMacAddress());
+        assertSame(local, NodeIdentity.local());
+
+        // the same identity can be set again, but a different one can't once resolved
+        NodeIdentity.setLocal(new NodeIdentity(local.getProcessId(), local.getMacAddress()));
+        try {
+            NodeIdentity.setLocal(new NodeIdentity((local.getProcessId() + 1) % 65536, local.getMacAddress()));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test, on a fresh copy of the library's classes, that parsing ids and creating generators with their own identity
+     * leave the local identity unresolved, so that it can still be set before the default generator is used.
+     */
+    @Test
+    public void testParsingLeavesIdentityUnresolved() throws Exception {
+        ClassLoader loader = isolatedLoader();
+        Class<?> uuid = loader.loadClass(UUID.class.getName());
+        Class<?> identity = loader.loadClass(NodeIdentity.class.getName());
+        Class<?> generator = loader.loadClass(UUIDGenerator.class.getName());
+
+        String text = "f516677e-7a7f-bd53-7a50-013e4e2afc26";
+        assertTrue((Boolean) uuid.getMethod("isValidUUID", String.class).invoke(null, text));
+        assertEquals(text, uuid.getConstructor(String.class).newInstance(text).toString());
+        generator.getConstructor(int.class, byte[].class).newInstance(7, new byte[6]);
+
+        byte[] mac = {0x02, (byte) 0xfc, 0x00, 0x1a, (byte) 0xbc, 0x3d};
+        Object pinned = identity.getConstructor(int.class, byte[].class).newInstance(4321, mac);
+        identity.getMethod("setLocal", identity).invoke(null, pinned);
+
+        Field pid = uuid.getField("PID");
+        pid.setAccessible(true);
+        assertEquals(4321, pid.getInt(null));
+        assertEquals(4321, uuid.getMethod("getProcessId").invoke(uuid.getConstructor().newInstance()));
+    }
+
+    /**
+     * Test, on a fresh copy of the library's classes, that a slot file that can't be leased from makes generation fail
+     * with an IllegalStateException each time it is tried, without breaking parsing, and that generation works once
+     * the setting is fixed.
+     */
+    @Test
+    public void testFailedLease() throws Exception {
+        ClassLoader loader = isolatedLoader();
+        Class<?> uuid = loader.loadClass(UUID.class.getName());
+        File directory = File.createTempFile("slots", ".dir");
+        assertTrue(directory.delete() && directory.mkdir());
+
+        System.setProperty(NodeIdentity.SLOTS_PROPERTY, directory.getPath());
+        try {
+            String text = "f516677e-7a7f-bd53-7a50-013e4e2afc26";
+            assertEquals(text, uuid.getConstructor(String.class).newInstance(text).toString());
+
+            for (int i = 0; i < 2; i++) {
+                try {
+                    uuid.getConstructor().newInstance();
+                    fail("Expected IllegalStateException");
+                } catch (InvocationTargetException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        } finally {
+            System.clearProperty(NodeIdentity.SLOTS_PROPERTY);
+            directory.delete();
+        }
+
+        assertEquals(NodeIdentity.local().getProcessId(),
+                uuid.getMethod("getProcessId").invoke(uuid.getConstructor().newInstance()));
+    }
+
+    /**
+     * Load the library's classes again, without a parent that already has them, so that their static state is fresh.
+     */
+    static ClassLoader isolatedLoader() {
+        URL classes = UUID.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[] {classes}, null);
+    }
+
+    /**
+     * Test that configured settings are parsed and override detection for their half of the identity only.
+     */
+    @Test
+    public void testResolveSettings() {
+        byte[] mac = {0x02, (byte) 0xfc, 0x00, 0x1a, (byte) 0xbc, 0x3d};
+        NodeIdentity configured = NodeIdentity.resolve(" 70000 ", "02:FC:00:1a:bc:3d");
+        assertEquals(70000 % 65536, configured.getProcessId());
+        assertArrayEquals(mac, configured.getMacAddress());
+        assertEquals("4464@02:fc:00:1a:bc:3d", configured.toString());
+
+        assertArrayEquals(mac, NodeIdentity.parseMac("02-fc-00-1a-bc-3d"));
+        assertArrayEquals(mac, NodeIdentity.parseMac("02fc001abc3d"));
+
+        NodeIdentity pidOnly = NodeIdentity.resolve("42", null);
+        assertEquals(42, pidOnly.getProcessId());
+        assertArrayEquals(UUID.MAC, pidOnly.getMacAddress());
+
+        NodeIdentity macOnly = NodeIdentity.resolve(null, "02fc001abc3d");
+        assertEquals(UUID.PID, macOnly.getProcessId());
+
+        UUIDGenerator generator = new UUIDGenerator(configured);
+        UUID id = generator.generate();
+        assertEquals(configured.getProcessId(), id.getProcessId());
+        assertArrayEquals(Arrays.copyOfRange(mac, 2, 6), Arrays.copyOfRange(id.getMacFragment(), 2, 6));
+    }
+
+    /**
+     * Test that malformed settings and identities are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        for (String pid : new String[] {"", "-1", "12a", "99999999999"}) {
+            try {
+                NodeIdentity.parseProcessId(pid);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        for (String mac : new String[] {"", "02fc001abc3", "02:fc:00:1a:bc-3d", "02.fc.00.1a.bc.3d", "02fc001abcxd",
+                "02:fc:00:1a:bc:3d:00"}) {
+            try {
+                NodeIdentity.parseMac(mac);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        try {
+            new NodeIdentity(1, new byte[5]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            new NodeIdentity(-1, new byte[6]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            NodeIdentity.setLocal(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.security.Permission;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of Platform. These run against the Java 6 classes during the test phase, and again against the packaged
+ * multi-release jar during the integration-test phase when built on Java 9 or later, so both versions must pass.
+ */
+public class PlatformTest {
+
+    /**
+     * Test that longs are written and read back in big-endian order at any offset, and that out of range offsets are
+     * rejected.
+     */
+    @Test
+    public void testGetPutLong() {
+        byte[] b = new byte[19];
+        Platform.putLong(b, 3, 0x0102030405060708L);
+        assertEquals(0, b[2]);
+        for (int i = 0; i < 8; i++)
+            assertEquals(i + 1, b[3 + i]);
+        assertEquals(0, b[11]);
+        assertEquals(0x0102030405060708L, Platform.getLong(b, 3));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            long value = random.nextLong();
+            int offset = random.nextInt(12);
+            Platform.putLong(b, offset, value);
+            assertEquals(value, Platform.getLong(b, offset));
+            assertEquals(value >>> 56, b[offset] & 0xFF);
+        }
+
+        try {
+            Platform.getLong(b, 12);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            Platform.putLong(b, -1, 0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test unsigned comparison against BigInteger, including values either side of the sign bit.
+     */
+    @Test
+    public void testCompareUnsigned() {
+        long[] values = {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1, 0x7FFFFFFFFFFFFFFEL, 42, -42};
+        for (long a : values) {
+            for (long b : values) {
+                int expected = unsigned(a).compareTo(unsigned(b));
+                assertEquals(a + " vs " + b, Integer.signum(expected), Platform.compareUnsigned(a, b));
+            }
+        }
+    }
+
+    /**
+     * Test that the process id, where it can be found, agrees with the RuntimeMXBean.
+     */
+    @Test
+    public void testProcessId() {
+        long pid = Platform.processId();
+        if (pid < 0)
+            return;
+
+        String jvmName = ManagementFactory.getRuntimeMXBean().getName();
+        assertEquals(Long.parseLong(jvmName.substring(0, jvmName.indexOf('@'))), pid);
+    }
+
+    /**
+     * Test that the process id falls back to -1, rather than throwing, when a security manager denies access to the
+     * current process. Skipped on JVMs that no longer allow a security manager to be installed.
+     */
+    @Test
+    public void testProcessIdDenied() {
+        SecurityManager previous = System.getSecurityManager();
+        try {
+            System.setSecurityManager(new SecurityManager() {
+                @Override
+                public void checkPermission(Permission perm) {
+                    if ("manageProcess".equals(perm.getName()))
+                        throw new SecurityException("denied");
+                }
+            });
+        } catch (UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+        }
+
+        try {
+            assertEquals(-1, Platform.processId());
+        } finally {
+            System.setSecurityManager(previous);
+        }
+    }
+
+    private static BigInteger unsigned(long value) {
+        return BigInteger.valueOf(value).add(value < 0 ? BigInteger.ONE.shiftLeft(64) : BigInteger.ZERO);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ShardRouterTest {
+
+    /**
+     * Test that ids are routed to the region whose range holds them, with an id equal to a split key starting the
+     * next region, and that the raw byte forms route the same as the longs.
+     */
+    @Test
+    public void testRangeRouting() {
+        RangeShardRouter router = new RangeShardRouter(new byte[] {0x40}, new byte[] {(byte) 0x80},
+                new byte[] {(byte) 0xC0});
+        assertEquals(4, router.getShardCount());
+        assertEquals(0, router.route(0, 0));
+        assertEquals(0, router.route(0x3FFFFFFFFFFFFFFFL, -1));
+        assertEquals(1, router.route(0x4000000000000000L, 0));
+        assertEquals(2, router.route(Long.MIN_VALUE, 0));
+        assertEquals(3, router.route(-1, -1));
+
+        RangeShardRouter uniform = RangeShardRouter.uniform(4);
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            int region = router.route(id);
+            assertEquals(region, uniform.route(id));
+            assertEquals((id.getBytes()[0] & 0xFF) / 64, region);
+            assertEquals(region, router.route(id.getBytes(), 0));
+
+            ByteBuffer buffer = ByteBuffer.allocate(17).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(1);
+            buffer.put(id.getBytes());
+            buffer.position(1);
+            assertEquals(region, router.route(buffer));
+            assertEquals(1, buffer.position());
+        }
+
+        assertEquals(1, RangeShardRouter.uniform(1).getShardCount());
+        assertEquals(0, RangeShardRouter.uniform(1).route(-1, -1));
+    }
+
+    /**
+     * Test split keys longer than an id, which an id equal to their first 16 bytes sorts before, and bad split keys.
+     */
+    @Test
+    public void testRangeSplitKeys() {
+        byte[] key = new byte[18];
+        key[0] = 0x10;
+        byte[] max = new byte[17];
+        java.util.Arrays.fill(max, (byte) 0xFF);
+        RangeShardRouter router = new RangeShardRouter(key, max);
+
+        assertEquals(3, router.getShardCount());
+        assertEquals(0, router.route(0x1000000000000000L, 0));
+        assertEquals(1, router.route(0x1000000000000000L, 1));
+        assertEquals(1, router.route(-1, -1));
+
+        try {
+            new RangeShardRouter(new byte[] {2}, new byte[] {1});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            new RangeShardRouter(new byte[] {1, 0}, new byte[] {1});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            new RangeShardRouter(new byte[0]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that modulo routing uses the unsigned value of the prefix, including full 8 byte prefixes.
+     */
+    @Test
+    public void testModuloRouting() {
+        Random random = new Random(8);
+        ModuloShardRouter counter = new ModuloShardRouter(7);
+        ModuloShardRouter wide = new ModuloShardRouter(7, 8);
+        ModuloShardRouter narrow = new ModuloShardRouter(7, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            long hi = random.nextLong();
+            assertEquals((hi >>> 32) % 7, counter.route(hi, 0));
+            assertEquals(new BigInteger(Long.toHexString(hi), 16).mod(BigInteger.valueOf(7)).intValue(),
+                    wide.route(hi, 0));
+            assertEquals((hi >>> 56) % 7, narrow.route(hi, 0));
+        }
+
+        try {
+            new ModuloShardRouter(7, 9);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            new ModuloShardRouter(0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that jump hash routing spreads ids evenly and that adding a shard only moves ids onto the new shard.
+     */
+    @Test
+    public void testJumpHashRouting() {
+        JumpHashShardRouter ten = new JumpHashShardRouter(10);
+        JumpHashShardRouter eleven = new JumpHashShardRouter(11);
+        int[] counts = new int[10];
+        int moved = 0;
+
+        for (long counter = 0; counter < 100000; counter++) {
+            long hi = counter << 32;
+            int before = ten.route(hi, 0);
+            int after = eleven.route(hi, 0);
+            counts[before]++;
+            if (before != after) {
+                assertEquals(10, after);
+                moved++;
+            }
+        }
+
+        for (int count : counts)
+            assertTrue(count > 9000 && count < 11000);
+        assertTrue(moved > 8000 && moved < 10200);
+    }
+
+    /**
+     * Test grouping a batch by shard, which keeps each shard's ids in their original order.
+     */
+    @Test
+    public void testPartition() {
+        ShardRouter router = new ModuloShardRouter(3);
+        long[] ids = new long[2 * 10];
+        for (int i = 0; i < 10; i++) {
+            ids[2 * i] = (long) i << 32;
+            ids[2 * i + 1] = i;
+        }
+
+        int[] shards = new int[11];
+        router.route(ids, 0, 10, shards, 1);
+        for (int i = 0; i < 10; i++)
+            assertEquals(i % 3, shards[i + 1]);
+
+        long[] grouped = new long[2 + 2 * 10];
+        int[] starts = router.partition(ids, 0, 10, grouped, 2);
+        assertArrayEquals(new int[] {0, 4, 7, 10}, starts);
+
+        long[] expected = {0, 3, 6, 9, 1, 4, 7, 2, 5, 8};
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected[i] << 32, grouped[2 + 2 * i]);
+            assertEquals(expected[i], grouped[3 + 2 * i]);
+        }
+
+        try {
+            router.partition(ids, 0, 10, grouped, 4);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
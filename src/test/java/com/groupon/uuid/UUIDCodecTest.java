@@ -0,0 +1,218 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UUIDCodecTest {
+
+    /**
+     * Test writing and reading single ids and runs longer than one chunk through data streams, in the same form as
+     * getBytes().
+     */
+    @Test
+    public void testStreams() throws Exception {
+        UUID id = new UUID("20be0ffc-314a-bd53-7a50-013a65ca76d2");
+        long[] ids = new long[2 * 10001];
+        UUID.generate(ids, 2, 10000);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        UUIDCodec.write(id, out);
+        UUIDCodec.write(ids, 2, 10000, out);
+        out.flush();
+
+        byte[] written = bytes.toByteArray();
+        assertEquals(16 * 10001, written.length);
+        for (int i = 0; i < 16; i++)
+            assertEquals(id.getBytes()[i], written[i]);
+        byte[] second = new UUID(ids[2], ids[3]).getBytes();
+        for (int i = 0; i < 16; i++)
+            assertEquals(second[i], written[16 + i]);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(written));
+        assertEquals(id, UUIDCodec.read(in));
+        long[] read = new long[2 * 10001];
+        UUIDCodec.read(in, read, 2, 10000);
+        assertArrayEquals(ids, read);
+
+        try {
+            UUIDCodec.read(new DataInputStream(new ByteArrayInputStream(written, 0, 40)), read, 0, 3);
+            fail("Expected EOFException");
+        } catch (EOFException e) {
+            // expected
+        }
+
+        try {
+            UUIDCodec.write(ids, 4, 10000, out);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that buffers are written in big-endian order whatever their byte order, and are left alone when a write or
+     * read doesn't fit.
+     */
+    @Test
+    public void testBuffers() {
+        UUID id = new UUID("20be0ffc-314a-bd53-7a50-013a65ca76d2");
+        long[] ids = new long[6];
+        UUID.generate(ids, 0, 3);
+
+        ByteBuffer buffer = ByteBuffer.allocate(70).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(1);
+        UUIDCodec.write(id, buffer);
+        UUIDCodec.write(ids, 0, 3, buffer);
+        assertEquals(65, buffer.position());
+        assertEquals(0x20, buffer.get(1));
+        assertEquals((byte) 0xd2, buffer.get(16));
+
+        try {
+            UUIDCodec.write(id, buffer);
+            fail("Expected BufferOverflowException");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+        assertEquals(65, buffer.position());
+
+        buffer.flip();
+        buffer.position(1);
+        assertEquals(id, UUIDCodec.read(buffer));
+        long[] read = new long[8];
+
+        try {
+            UUIDCodec.read(buffer, read, 0, 4);
+            fail("Expected BufferUnderflowException");
+        } catch (BufferUnderflowException e) {
+            // expected
+        }
+        assertEquals(17, buffer.position());
+
+        UUIDCodec.read(buffer, read, 2, 3);
+        assertEquals(ids[0], read[2]);
+        assertEquals(ids[5], read[7]);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    /**
+     * Test moving runs of ids through a file channel, which takes gathering writes and scattering reads, and through a
+     * plain stream channel, which doesn't.
+     */
+    @Test
+    public void testChannels() throws Exception {
+        int count = 100000;
+        long[] ids = new long[2 * count];
+        UUID.generate(ids, 0, count);
+        long[] read = new long[2 * count];
+
+        File file = File.createTempFile("uuids", ".bin");
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                UUIDCodec.write(ids, 0, count, channel);
+                assertEquals(16L * count, channel.size());
+
+                channel.position(0);
+                UUIDCodec.read(channel, read, 0, count);
+                assertArrayEquals(ids, read);
+
+                channel.position(16);
+                try {
+                    UUIDCodec.read(channel, read, 0, count);
+                    fail("Expected EOFException");
+                } catch (EOFException e) {
+                    // expected
+                }
+            } finally {
+                raf.close();
+            }
+        } finally {
+            file.delete();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UUIDCodec.write(ids, 2, 5000, Channels.newChannel(bytes));
+        assertEquals(16 * 5000, bytes.size());
+
+        read = new long[2 * 5000];
+        UUIDCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), read, 0, 5000);
+        for (int i = 0; i < read.length; i++)
+            assertEquals(ids[i + 2], read[i]);
+    }
+
+    /**
+     * Test that UUIDs survive Java serialization, taking 16 bytes each plus the stream framing.
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        List<UUID> ids = new ArrayList<UUID>();
+        for (int i = 0; i < 1000; i++)
+            ids.add(new UUID());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(ids);
+        out.writeObject(ids.get(0));
+        out.close();
+        assertTrue(bytes.size() < 1000 * 25 + 200);
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(ids, in.readObject());
+        UUID first = (UUID) in.readObject();
+        assertEquals(ids.get(0), first);
+        assertEquals(UUID.class, first.getClass());
+    }
+}
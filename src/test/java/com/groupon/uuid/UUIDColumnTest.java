@@ -0,0 +1,185 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UUIDColumnTest {
+
+    /**
+     * Test that columns in both orders decode to the sorted ids, singly, in runs and through a cursor, and that
+     * lookups find every id and no others, for ids from several nodes mixed with random and duplicate ids.
+     */
+    @Test
+    public void testAgainstSortedIds() {
+        Random random = new Random(24);
+        int[] sizes = {0, 1, 63, 64, 65, 5000};
+        for (int count : sizes) {
+            long[] ids = new long[2 * count + 4];
+            for (int i = 0; i < count; i++) {
+                int kind = random.nextInt(10);
+                if (kind < 8) {
+                    UUIDGenerator generator = new UUIDGenerator(kind, UUID.MAC);
+                    generator.generate(ids, 2 + 2 * i, 1);
+                } else if (kind == 8 || i == 0) {
+                    ids[2 + 2 * i] = random.nextLong();
+                    ids[3 + 2 * i] = random.nextLong();
+                } else {
+                    ids[2 + 2 * i] = ids[2 * i];
+                    ids[3 + 2 * i] = ids[1 + 2 * i];
+                }
+            }
+
+            for (UUIDSort.Order order : UUIDSort.Order.values()) {
+                long[] sorted = Arrays.copyOfRange(ids, 2, 2 + 2 * count);
+                UUIDSort.sort(sorted, 0, count, order);
+                UUIDColumn column = UUIDColumn.of(ids, 2, count, order);
+                assertEquals(count, column.size());
+                assertEquals(order, column.getOrder());
+
+                long[] decoded = new long[2 * count + 2];
+                column.get(0, count, decoded, 1);
+                assertArrayEquals(sorted, Arrays.copyOfRange(decoded, 1, 1 + 2 * count));
+
+                UUIDColumn.Cursor cursor = column.cursor();
+                assertEquals(-1, cursor.index());
+                for (int i = 0; i < count; i++) {
+                    assertTrue(cursor.next());
+                    assertEquals(i, cursor.index());
+                    assertEquals(sorted[2 * i], cursor.getMostSignificantBits());
+                    assertEquals(sorted[2 * i + 1], cursor.getLeastSignificantBits());
+                    assertEquals(new UUID(sorted[2 * i], sorted[2 * i + 1]), column.get(i));
+                    assertEquals(sorted[2 * i], column.getMostSignificantBits(i));
+                    assertEquals(sorted[2 * i + 1], column.getLeastSignificantBits(i));
+
+                    int index = column.indexOf(sorted[2 * i], sorted[2 * i + 1]);
+                    assertEquals(sorted[2 * i], column.getMostSignificantBits(index));
+                    assertEquals(sorted[2 * i + 1], column.getLeastSignificantBits(index));
+                }
+                assertFalse(cursor.next());
+                assertFalse(cursor.next());
+                assertEquals(count, cursor.index());
+
+                for (int i = 0; i < 100; i++) {
+                    UUID absent = new UUIDGenerator(9, UUID.MAC).generate();
+                    assertFalse(column.contains(absent));
+                    int insertion = -column.indexOf(absent.getMostSignificantBits(), absent.getLeastSignificantBits())
+                            - 1;
+                    UUID previous = insertion > 0 ? column.get(insertion - 1) : null;
+                    UUID next = insertion < count ? column.get(insertion) : null;
+                    if (order == UUIDSort.Order.BYTES) {
+                        assertTrue(previous == null || previous.compareTo(absent) < 0);
+                        assertTrue(next == null || next.compareTo(absent) > 0);
+                    } else {
+                        assertTrue(previous == null || UUID.TIMESTAMP_ORDER.compare(previous, absent) < 0);
+                        assertTrue(next == null || UUID.TIMESTAMP_ORDER.compare(next, absent) > 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that ids from one producer generated over an hour take a few bytes each in either order.
+     */
+    @Test
+    public void testCompression() {
+        int count = 1000000;
+        long[] ids = new long[2 * count];
+        ManualMillisClock clock = new ManualMillisClock(1400000000000L);
+        UUIDGenerator generator = new UUIDGenerator(1234, UUID.MAC);
+        generator.useClock(clock);
+        for (int i = 0; i < count; i += 1000) {
+            generator.generate(ids, 2 * i, 1000);
+            clock.advance(3600);
+        }
+
+        for (UUIDSort.Order order : UUIDSort.Order.values()) {
+            UUIDColumn column = UUIDColumn.of(ids, 0, count, order);
+            assertTrue(order + ": " + column.sizeInBytes(), column.sizeInBytes() < 6L * count);
+            assertTrue(column.contains(ids[2 * 777], ids[2 * 777 + 1]));
+        }
+    }
+
+    /**
+     * Test that invalid arguments and indexes are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        long[] ids = new long[20];
+        UUID.generate(ids, 0, 10);
+        UUIDColumn column = UUIDColumn.of(ids, 0, 10);
+
+        for (int index : new int[] {-1, 10}) {
+            try {
+                column.get(index);
+                fail("Expected IndexOutOfBoundsException");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+
+        try {
+            column.get(5, 6, new long[12], 0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            UUIDColumn.of(ids, 2, 10);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            UUIDColumn.of(ids, 0, 10, null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            column.cursor().getMostSignificantBits();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UUIDEncodingTest {
+    private static final UUID ID = new UUID("20be0ffc-314a-bd53-7a50-013a65ca76d2");
+
+    /**
+     * Test each encoding of a known id against values from other implementations.
+     */
+    @Test
+    public void testKnownValues() {
+        assertEquals("IL4P_DFKvVN6UAE6Zcp20g", UUIDEncoding.BASE64_URL.encode(ID));
+        assertEquals("7AsEz249jKCuJ-3uORdqoV", UUIDEncoding.BASE64_ORDERED.encode(ID));
+        assertEquals("10QR7ZRCAAQN9QMM0179JWMXPJ", UUIDEncoding.CROCKFORD_BASE32.encode(ID));
+        assertEquals(22, UUIDEncoding.BASE64_URL.length());
+        assertEquals(26, UUIDEncoding.CROCKFORD_BASE32.length());
+
+        assertEquals(ID, UUIDEncoding.BASE64_URL.parse("IL4P_DFKvVN6UAE6Zcp20g"));
+        assertEquals(ID, UUIDEncoding.BASE64_ORDERED.parse("7AsEz249jKCuJ-3uORdqoV"));
+        assertEquals(ID, UUIDEncoding.CROCKFORD_BASE32.parse("10QR7ZRCAAQN9QMM0179JWMXPJ"));
+
+        // crockford base 32 reads lower case and the look-alike characters
+        assertEquals(ID, UUIDEncoding.CROCKFORD_BASE32.parse("lOqr7zrcaaqn9qmmo179jwmxpj"));
+
+        assertEquals("00000000000000000000000000", UUIDEncoding.CROCKFORD_BASE32.encode(0, 0));
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", UUIDEncoding.CROCKFORD_BASE32.encode(-1, -1));
+        assertEquals("_____________________w", UUIDEncoding.BASE64_URL.encode(-1, -1));
+    }
+
+    /**
+     * Test that every form of writing and reading agrees for random ids, and that the ordered encodings sort as
+     * strings in the same order as the ids.
+     */
+    @Test
+    public void testRoundTripAndOrder() {
+        Random random = new Random(42);
+        long[] dest = new long[4];
+
+        for (UUIDEncoding encoding : UUIDEncoding.values()) {
+            UUID previous = null;
+            String previousText = null;
+
+            for (int i = 0; i < 10000; i++) {
+                long hi = random.nextLong();
+                long lo = random.nextLong();
+                UUID id = new UUID(hi, lo);
+                String text = encoding.encode(id);
+                assertEquals(encoding.length(), text.length());
+                assertTrue(encoding.isValid(text));
+
+                String padded = "x" + text + "y";
+                assertEquals(id, encoding.parse(padded, 1));
+                encoding.parse(padded, 1, dest, 2);
+                assertEquals(hi, dest[2]);
+                assertEquals(lo, dest[3]);
+
+                byte[] ascii = new byte[encoding.length() + 3];
+                encoding.writeAscii(hi, lo, ascii, 2);
+                assertEquals(text, new String(ascii, 2, encoding.length()));
+                assertTrue(encoding.isValid(ascii, 2));
+                assertEquals(id, encoding.parse(ascii, 2));
+                assertEquals("<" + text, encoding.appendTo(hi, lo, new StringBuilder("<")).toString());
+
+                if (previous != null && encoding != UUIDEncoding.BASE64_URL)
+                    assertEquals(Integer.signum(previous.compareTo(id)), Integer.signum(previousText.compareTo(text)));
+                previous = id;
+                previousText = text;
+            }
+        }
+    }
+
+    /**
+     * Test that anything other than the one encoding of an id is rejected.
+     */
+    @Test
+    public void testInvalid() throws Exception {
+        UUIDEncoding base64 = UUIDEncoding.BASE64_URL;
+        UUIDEncoding base32 = UUIDEncoding.CROCKFORD_BASE32;
+
+        assertFalse(base64.isValid("IL4P_DFKvVN6UAE6Zcp20"));
+        assertFalse(base64.isValid("IL4P_DFKvVN6UAE6Zcp20gg"));
+        assertFalse(base64.isValid("IL4P_DFKvVN6UAE6Zcp+0g"));
+        assertFalse(base64.isValid("IL4P_DFKvVN6UAE6Zcp20h"));
+        assertFalse(base64.isValid((CharSequence) null));
+        assertFalse(base64.isValid("IL4P_DFKvVN6UAE6Zcp20g", 1));
+        assertFalse(base64.isValid("IL4P_DFKvVN6UAE6Zcp20\u00e9".getBytes("ISO-8859-1"), 0));
+        assertFalse(base32.isValid("80QR7ZRCAAQN9QMM0179JWMXPJ"));
+        assertFalse(base32.isValid("10QR7ZRCAAQN9QMM0179JWMXPU"));
+        assertTrue(base32.isValid("10qr7zrcaaqn9qmm0179jwmxpj".getBytes("US-ASCII"), 0));
+
+        String[] malformed = {"IL4P_DFKvVN6UAE6Zcp20h", "IL4P_DFKvVN6UAE6Zcp+0g", "IL4P DFKvVN6UAE6Zcp20g"};
+        for (String s : malformed) {
+            try {
+                base64.parse(s);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+
+            try {
+                base64.parse(s.getBytes("US-ASCII"), 0);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        try {
+            base32.parse("80QR7ZRCAAQN9QMM0179JWMXPJ");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            base64.parse("IL4P_DFKvVN6UAE6Zcp20gx");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            base64.parse("IL4P_DFKvVN6UAE6Zcp20g", 1);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            base32.writeAscii(0, 0, new byte[30], 5);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
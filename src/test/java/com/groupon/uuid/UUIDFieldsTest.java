@@ -0,0 +1,163 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class UUIDFieldsTest {
+
+    /**
+     * Test that fields read from longs, singly and in runs, match the UUID getters for vB and other ids.
+     */
+    @Test
+    public void testFromLongs() {
+        long[] ids = new long[2 * 5];
+        UUID.generate(ids, 2, 3);
+        java.util.UUID v4 = java.util.UUID.randomUUID();
+        ids[8] = v4.getMostSignificantBits();
+        ids[9] = v4.getLeastSignificantBits();
+
+        int[] pids = new int[6];
+        long[] timestamps = new long[6];
+        int[] macs = new int[6];
+        UUIDFields.processId(ids, 2, 4, pids, 2);
+        UUIDFields.timestampMillis(ids, 2, 4, timestamps, 2);
+        UUIDFields.macFragment(ids, 2, 4, macs, 2);
+
+        for (int i = 0; i < 4; i++) {
+            long hi = ids[2 + 2 * i];
+            long lo = ids[3 + 2 * i];
+            UUID id = new UUID(hi, lo);
+
+            assertEquals(id.getVersion(), UUIDFields.version(hi, lo));
+            assertEquals(id.getProcessId(), UUIDFields.processId(hi, lo));
+            assertEquals(id.getProcessId(), pids[2 + i]);
+
+            if (i < 3) {
+                assertEquals(id.getTimestamp().getTime(), UUIDFields.timestampMillis(hi, lo));
+                byte[] mac = id.getMacFragment();
+                int fragment = (mac[2] & 0xF) << 24 | (mac[3] & 0xFF) << 16 | (mac[4] & 0xFF) << 8 | mac[5] & 0xFF;
+                assertEquals(fragment, UUIDFields.macFragment(hi, lo));
+            }
+            else {
+                assertEquals('4', UUIDFields.version(hi, lo));
+                assertEquals(-1, UUIDFields.timestampMillis(hi, lo));
+                assertEquals(-1, UUIDFields.macFragment(hi, lo));
+            }
+            assertEquals(UUIDFields.timestampMillis(hi, lo), timestamps[2 + i]);
+            assertEquals(UUIDFields.macFragment(hi, lo), macs[2 + i]);
+        }
+
+        try {
+            UUIDFields.timestampMillis(ids, 2, 4, timestamps, 3);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            UUIDFields.processId(ids, 4, 4, pids, 0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test reading fields from the text form in strings, byte arrays and buffers, reading only the characters needed.
+     */
+    @Test
+    public void testFromText() {
+        String id = "20be0ffc-314a-bd53-7a50-013a65ca76d2";
+        String text = "id=" + id.toUpperCase() + ";";
+        byte[] ascii = text.getBytes();
+        ByteBuffer buffer = ByteBuffer.wrap(ascii);
+        buffer.position(3);
+
+        assertEquals('b', UUIDFields.version(text, 3));
+        assertEquals('b', UUIDFields.version(ascii, 3));
+        assertEquals('b', UUIDFields.version(buffer));
+        assertEquals(0x314a, UUIDFields.processId(text, 3));
+        assertEquals(0x314a, UUIDFields.processId(ascii, 3));
+        assertEquals(0x314a, UUIDFields.processId(buffer));
+        assertEquals(1350327498450L, UUIDFields.timestampMillis(text, 3));
+        assertEquals(1350327498450L, UUIDFields.timestampMillis(ascii, 3));
+        assertEquals(1350327498450L, UUIDFields.timestampMillis(buffer));
+        assertEquals(0xd537a50, UUIDFields.macFragment(text, 3));
+        assertEquals(0xd537a50, UUIDFields.macFragment(ascii, 3));
+        assertEquals(0xd537a50, UUIDFields.macFragment(buffer));
+        assertEquals(3, buffer.position());
+
+        String v4 = "f81d4fae-7dec-41d0-a765-00a0c91e6bf6";
+        assertEquals('4', UUIDFields.version(v4, 0));
+        assertEquals(-1, UUIDFields.processId(v4, 0));
+        assertEquals(-1, UUIDFields.timestampMillis(v4.getBytes(), 0));
+        assertEquals(-1, UUIDFields.macFragment(ByteBuffer.wrap(v4.getBytes())));
+
+        // only the characters of the version and the field are read
+        String badCounter = "zzzzzzzz-314a-bd53-7a50-013a65ca76d2";
+        assertEquals(1350327498450L, UUIDFields.timestampMillis(badCounter, 0));
+
+        try {
+            UUIDFields.timestampMillis("20be0ffc-314a-bd53-7a50-013a65ca76dz", 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            UUIDFields.processId("20be0ffc-314a-zd53-7a50-013a65ca76d2".getBytes(), 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            UUIDFields.macFragment(ByteBuffer.wrap("20be0ffc-314a-bd53-7a5g-013a65ca76d2".getBytes()));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            UUIDFields.timestampMillis(text, 5);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
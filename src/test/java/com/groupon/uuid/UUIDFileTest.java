@@ -0,0 +1,280 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UUIDFileTest {
+
+    /**
+     * Test that files built in both orders from unsorted ids with duplicates, in memory and through run files, hold
+     * the sorted distinct ids, and that lookups find every id and no others.
+     */
+    @Test
+    public void testBuildAndLookup() throws Exception {
+        Random random = new Random(25);
+        int count = 20000;
+        long[] ids = new long[2 * count];
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 8) {
+                new UUIDGenerator(kind, UUID.MAC).generate(ids, 2 * i, 1);
+            } else if (kind == 8 || i == 0) {
+                ids[2 * i] = random.nextLong();
+                ids[2 * i + 1] = random.nextLong();
+            } else {
+                int j = random.nextInt(i);
+                ids[2 * i] = ids[2 * j];
+                ids[2 * i + 1] = ids[2 * j + 1];
+            }
+        }
+
+        File dir = tempDir();
+        try {
+            for (UUIDSort.Order order : UUIDSort.Order.values()) {
+                long[] expected = distinctSorted(ids, count, order);
+                int distinct = expected.length / 2;
+
+                for (int bufferIds : new int[] {count, 999}) {
+                    File file = new File(dir, "ids-" + order + "-" + bufferIds);
+                    UUIDFile.Builder builder = new UUIDFile.Builder(file, order, bufferIds);
+                    builder.add(ids, 0, count / 2);
+                    for (int i = count / 2; i < count; i++)
+                        builder.add(ids[2 * i], ids[2 * i + 1]);
+                    UUIDFile uuids = builder.build();
+                    assertEquals(1, dir.list().length);
+                    assertEquals(distinct, uuids.size());
+                    assertEquals(order, uuids.getOrder());
+
+                    long[] read = new long[2 * distinct];
+                    uuids.get(0, distinct, read, 0);
+                    assertArrayEquals(expected, read);
+
+                    UUIDFile.Cursor cursor = UUIDFile.open(file).cursor();
+                    for (int i = 0; i < distinct; i++) {
+                        assertTrue(cursor.next());
+                        assertEquals(i, cursor.index());
+                        assertEquals(expected[2 * i], cursor.getMostSignificantBits());
+                        assertEquals(expected[2 * i + 1], cursor.getLeastSignificantBits());
+                        assertEquals(i, uuids.indexOf(expected[2 * i], expected[2 * i + 1]));
+                    }
+                    assertFalse(cursor.next());
+
+                    for (int i = 0; i < 100; i++) {
+                        UUID absent = new UUIDGenerator(9, UUID.MAC).generate();
+                        assertFalse(uuids.contains(absent));
+                        long insertion = -uuids.indexOf(absent.getMostSignificantBits(),
+                                absent.getLeastSignificantBits()) - 1;
+                        Integer c = insertion > 0 ? compare(order, uuids.get(insertion - 1), absent) : null;
+                        assertTrue(c == null || c < 0);
+                        c = insertion < distinct ? compare(order, uuids.get(insertion), absent) : null;
+                        assertTrue(c == null || c > 0);
+                    }
+                    assertTrue(file.delete());
+                }
+            }
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Test that timestamp range cursors return the vB ids in the range, in either order, including empty files and
+     * ranges.
+     */
+    @Test
+    public void testRange() throws Exception {
+        int count = 5000;
+        long[] ids = new long[2 * (count + 1)];
+        ManualMillisClock clock = new ManualMillisClock(1400000000000L);
+        UUIDGenerator generator = new UUIDGenerator(4321, UUID.MAC);
+        generator.useClock(clock);
+        for (int i = 0; i < count; i += 10) {
+            generator.generate(ids, 2 * i, 10);
+            clock.advance(7);
+        }
+        // a non-vB id whose bytes 10 - 15 fall inside every range
+        ids[2 * count] = 0;
+        ids[2 * count + 1] = 1400000001000L;
+
+        File dir = tempDir();
+        try {
+            for (UUIDSort.Order order : UUIDSort.Order.values()) {
+                File file = new File(dir, "ids-" + order);
+                UUIDFile.Builder builder = new UUIDFile.Builder(file, order, 1000);
+                builder.add(ids, 0, count + 1);
+                UUIDFile uuids = builder.build();
+
+                long[][] ranges = {{0, Long.MAX_VALUE}, {1400000000700L, 1400000001400L},
+                        {1400000000003L, 1400000000004L}, {1400000001000L, 1400000000000L}, {Long.MIN_VALUE, 0}};
+                for (long[] range : ranges) {
+                    int expected = 0;
+                    for (int i = 0; i < count; i++) {
+                        long timestamp = UUIDFields.timestampMillis(ids[2 * i], ids[2 * i + 1]);
+                        if (timestamp >= range[0] && timestamp < range[1])
+                            expected++;
+                    }
+
+                    UUIDFile.Cursor cursor = uuids.range(range[0], range[1]);
+                    int found = 0;
+                    long last = Long.MIN_VALUE;
+                    while (cursor.next()) {
+                        long timestamp = UUIDFields.timestampMillis(cursor.getMostSignificantBits(),
+                                cursor.getLeastSignificantBits());
+                        assertTrue(timestamp >= range[0] && timestamp < range[1]);
+                        if (order == UUIDSort.Order.TIMESTAMP)
+                            assertTrue(timestamp >= last);
+                        last = timestamp;
+                        found++;
+                    }
+                    assertEquals(order + " " + Arrays.toString(range), expected, found);
+                }
+            }
+
+            UUIDFile empty = new UUIDFile.Builder(new File(dir, "empty")).build();
+            assertEquals(0, empty.size());
+            assertFalse(empty.cursor().next());
+            assertFalse(empty.range(0, Long.MAX_VALUE).next());
+            assertEquals(-1, empty.indexOf(1, 2));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Test that incomplete files, invalid arguments and reuse of a builder are rejected, and that closing a builder
+     * removes its run files.
+     */
+    @Test
+    public void testInvalid() throws Exception {
+        File dir = tempDir();
+        try {
+            File file = new File(dir, "ids");
+            UUIDFile.Builder builder = new UUIDFile.Builder(file, UUIDSort.Order.BYTES, 10);
+            long[] ids = new long[2 * 100];
+            UUID.generate(ids, 0, 100);
+            builder.add(ids, 0, 100);
+            UUIDFile uuids = builder.build();
+
+            try {
+                builder.add(1, 2);
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+
+            try {
+                uuids.get(100);
+                fail("Expected IndexOutOfBoundsException");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+
+            try {
+                uuids.cursor().getLeastSignificantBits();
+                fail("Expected NoSuchElementException");
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.setLength(raf.length() - 1);
+            raf.close();
+            try {
+                UUIDFile.open(file);
+                fail("Expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+
+            try {
+                new UUIDFile.Builder(file, UUIDSort.Order.BYTES, 0);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+
+            assertTrue(file.delete());
+            builder = new UUIDFile.Builder(file, UUIDSort.Order.TIMESTAMP, 10);
+            builder.add(ids, 0, 100);
+            assertEquals(9, dir.list().length);
+            builder.close();
+            assertEquals(0, dir.list().length);
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    private static Integer compare(UUIDSort.Order order, UUID a, UUID b) {
+        return order == UUIDSort.Order.BYTES ? a.compareTo(b) : UUID.TIMESTAMP_ORDER.compare(a, b);
+    }
+
+    private static long[] distinctSorted(long[] ids, int count, UUIDSort.Order order) {
+        long[] sorted = Arrays.copyOf(ids, 2 * count);
+        UUIDSort.sort(sorted, 0, count, order);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            boolean repeat = distinct > 0 && sorted[2 * i] == sorted[2 * distinct - 2]
+                    && sorted[2 * i + 1] == sorted[2 * distinct - 1];
+            if (!repeat) {
+                sorted[2 * distinct] = sorted[2 * i];
+                sorted[2 * distinct + 1] = sorted[2 * i + 1];
+                distinct++;
+            }
+        }
+        return Arrays.copyOf(sorted, 2 * distinct);
+    }
+
+    private static File tempDir() throws IOException {
+        File dir = File.createTempFile("uuidfile", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        return dir;
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files)
+                f.delete();
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,258 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class UUIDGeneratorTest {
+
+    /**
+     * Test that generators keep their own modes, so a sequential generator and a variable generator can be used side
+     * by side without affecting each other or the default generator.
+     */
+    @Test
+    public void testIndependentModes() {
+        boolean defaultMode = UUIDGenerator.getDefault().isSequential();
+        UUIDGenerator sequential = new UUIDGenerator();
+        UUIDGenerator variable = new UUIDGenerator();
+        sequential.useSequentialIds();
+
+        assertTrue(sequential.isSequential());
+        assertFalse(variable.isSequential());
+        assertEquals(defaultMode, UUIDGenerator.getDefault().isSequential());
+
+        for (int i = 0; i < 100; i++) {
+            long a = sequential.generate().getMostSignificantBits() >>> 32;
+            long b = sequential.generate().getMostSignificantBits() >>> 32;
+            assertEquals((a + 1) & 0xFFFFFFFFL, b);
+
+            String c = variable.generate().toString();
+            String d = variable.generate().toString();
+            assertFalse(c.charAt(0) == d.charAt(0));
+        }
+
+        sequential.useStripedCounters();
+        assertTrue(sequential.isStriped());
+        assertFalse(variable.isStriped());
+        sequential.useSharedCounter();
+        sequential.useVariableIds();
+        assertFalse(sequential.isSequential());
+    }
+
+    /**
+     * Test that a generator embeds its own node identity and takes timestamps from its own clock.
+     */
+    @Test
+    public void testNodeIdentityAndClock() {
+        byte[] mac = {1, 2, 3, 4, 5, 6};
+        UUIDGenerator generator = new UUIDGenerator(0x12345, mac);
+        generator.useClock(new ManualMillisClock(1350327498450L));
+        mac[5] = 0;
+
+        UUID id = generator.generate();
+        assertEquals(0x2345, generator.getProcessId());
+        assertEquals(0x2345, id.getProcessId());
+        assertArrayEquals(new byte[] {0, 0, 3, 4, 5, 6}, id.getMacFragment());
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, generator.getMacAddress());
+        assertEquals('b', id.getVersion());
+        assertEquals(1350327498450L, id.getTimestamp().getTime());
+        assertTrue(id.toString().endsWith("-2345-b304-0506-013a65ca76d2"));
+
+        long[] ids = new long[6];
+        generator.generate(ids, 0, 3);
+        for (int i = 0; i < 6; i += 2) {
+            assertEquals(id.getMostSignificantBits() & 0xFFFFFFFFL, ids[i] & 0xFFFFFFFFL);
+            assertEquals(id.getLeastSignificantBits(), ids[i + 1]);
+        }
+
+        // the default generator is unaffected
+        assertEquals(UUID.PID, new UUID().getProcessId());
+
+        try {
+            new UUIDGenerator(1, new byte[5]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            generator.useClock(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that rotating sequential mode re-seeds the counter from the bucket hash once the clock crosses into the
+     * next 10 minute bucket, in both shared and striped counter mode, and that plain sequential mode doesn't.
+     */
+    @Test
+    public void testRotatingSequentialIds() {
+        long bucket = 10 * 60 * 1000;
+        long start = 1350327000000L;
+        int firstSeed = UUIDGenerator.sequentialSeed(new Date(start));
+        int secondSeed = UUIDGenerator.sequentialSeed(new Date(start + bucket));
+        assertEquals(firstSeed, UUIDGenerator.sequentialSeed(new Date(start + bucket - 1)));
+        assertFalse(firstSeed == secondSeed);
+
+        for (int striped = 0; striped < 2; striped++) {
+            ManualMillisClock clock = new ManualMillisClock(start + 5);
+            UUIDGenerator generator = new UUIDGenerator();
+            generator.useClock(clock);
+            if (striped == 1)
+                generator.useStripedCounters();
+            generator.useRotatingSequentialIds();
+            assertTrue(generator.isSequential());
+            assertTrue(generator.isRotating());
+
+            assertEquals(firstSeed + 1, counter(generator.generate()));
+            assertEquals(firstSeed + 2, counter(generator.generate()));
+
+            // the first id past the boundary notices it, the next one is from the new bucket's sequence
+            clock.set(start + bucket);
+            UUID crossing = generator.generate();
+            assertEquals(start + bucket, crossing.getTimestamp().getTime());
+            assertEquals(secondSeed + 1, counter(generator.generate()));
+            assertEquals(secondSeed + 2, counter(generator.generate()));
+
+            // plain sequential mode keeps counting through the next boundary
+            generator.useSequentialIds();
+            assertFalse(generator.isRotating());
+            int before = counter(generator.generate());
+            clock.set(start + 2 * bucket);
+            generator.generate();
+            assertEquals(before + 2, counter(generator.generate()));
+        }
+    }
+
+    /**
+     * Test that switching rotating sequential mode on again, or swapping the clock for one in the same bucket, keeps
+     * the counter going instead of re-seeding it, so that no id from the current bucket is repeated.
+     */
+    @Test
+    public void testRotatingSequentialIdsNotRepeated() {
+        long start = 1350327000000L;
+
+        for (int striped = 0; striped < 2; striped++) {
+            UUIDGenerator generator = new UUIDGenerator();
+            generator.useClock(new ManualMillisClock(start + 5));
+            if (striped == 1)
+                generator.useStripedCounters();
+            generator.useRotatingSequentialIds();
+
+            Set<UUID> ids = new HashSet<UUID>();
+            for (int i = 0; i < 5; i++)
+                ids.add(generator.generate());
+
+            generator.useClock(new ManualMillisClock(start + 5));
+            for (int i = 0; i < 5; i++)
+                ids.add(generator.generate());
+
+            generator.useRotatingSequentialIds();
+            for (int i = 0; i < 5; i++)
+                ids.add(generator.generate());
+
+            generator.useSequentialIds();
+            generator.useRotatingSequentialIds();
+            for (int i = 0; i < 5; i++)
+                ids.add(generator.generate());
+
+            assertEquals(20, ids.size());
+        }
+    }
+
+    /**
+     * Test that sequential mode seeds the counter from the generator's own clock, so that switching on rotation in the
+     * same bucket keeps counting, and switching it on in a later bucket re-seeds.
+     */
+    @Test
+    public void testSequentialSeedFromClock() {
+        long bucket = 10 * 60 * 1000;
+        long start = 1350327000000L;
+        ManualMillisClock clock = new ManualMillisClock(start + 5);
+        UUIDGenerator generator = new UUIDGenerator();
+        generator.useClock(clock);
+
+        generator.useSequentialIds();
+        int seed = UUIDGenerator.sequentialSeed(new Date(start));
+        assertEquals(seed + 1, counter(generator.generate()));
+        generator.useRotatingSequentialIds();
+        assertEquals(seed + 2, counter(generator.generate()));
+
+        generator.useSequentialIds();
+        clock.set(start + bucket);
+        generator.useRotatingSequentialIds();
+        assertEquals(UUIDGenerator.sequentialSeed(new Date(start + bucket)) + 1, counter(generator.generate()));
+    }
+
+    private static int counter(UUID id) {
+        return (int) (id.getMostSignificantBits() >>> 32);
+    }
+
+    /**
+     * Test that one generator shared by several threads in striped mode hands out unique ids.
+     */
+    @Test
+    public void testSharedBetweenThreads() throws InterruptedException {
+        final UUIDGenerator generator = new UUIDGenerator();
+        generator.useStripedCounters();
+        final UUID[][] results = new UUID[4][5000];
+
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final UUID[] out = results[t];
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < out.length; i++)
+                        out[i] = generator.generate();
+                }
+            });
+            threads[t].start();
+        }
+
+        Set<UUID> unique = new HashSet<UUID>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            unique.addAll(Arrays.asList(results[t]));
+        }
+        assertEquals(4 * 5000, unique.size());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UUIDHashMapTest {
+
+    /**
+     * Test single key operations, including the all-zero id and null values.
+     */
+    @Test
+    public void testBasicOperations() {
+        UUIDHashMap<String> map = new UUIDHashMap<String>();
+        UUID id = new UUID();
+
+        assertNull(map.put(id, "a"));
+        assertEquals("a", map.put(id, "b"));
+        assertEquals("b", map.get(new UUID(id.toString())));
+        assertEquals("b", map.putIfAbsent(id.getMostSignificantBits(), id.getLeastSignificantBits(), "c"));
+
+        assertNull(map.put(0, 0, "zero"));
+        assertEquals("zero", map.get(0, 0));
+        assertNull(map.put(1, 1, null));
+        assertTrue(map.containsKey(1, 1));
+        assertNull(map.get(1, 1));
+        assertEquals(3, map.size());
+
+        assertEquals("zero", map.remove(0, 0));
+        assertFalse(map.containsKey(0, 0));
+        assertEquals("b", map.remove(id));
+        assertNull(map.remove(id));
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Test random puts and removes against java.util.HashMap, growing from the smallest table so that values have to
+     * follow their keys through several resizes and backward shifts.
+     */
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(7);
+        UUIDHashMap<Integer> map = new UUIDHashMap<Integer>();
+        Map<java.util.UUID, Integer> expected = new HashMap<java.util.UUID, Integer>();
+
+        for (int i = 0; i < 100000; i++) {
+            long hi = random.nextInt(3000);
+            long lo = random.nextInt(3);
+            java.util.UUID key = new java.util.UUID(hi, lo);
+
+            if (random.nextInt(4) == 0)
+                assertEquals(expected.remove(key), map.remove(hi, lo));
+            else
+                assertEquals(expected.put(key, i), map.put(hi, lo, i));
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<java.util.UUID, Integer> entry : expected.entrySet()) {
+            java.util.UUID key = entry.getKey();
+            assertEquals(entry.getValue(), map.get(key.getMostSignificantBits(), key.getLeastSignificantBits()));
+        }
+    }
+
+    /**
+     * Test looking up a run of keys from a long array.
+     */
+    @Test
+    public void testGetAll() {
+        UUIDHashMap<String> map = new UUIDHashMap<String>(4);
+        map.put(1, 2, "x");
+        map.put(5, 6, "y");
+
+        String[] values = {"stale", "stale", "stale", "stale"};
+        assertEquals(2, map.getAll(new long[] {1, 2, 3, 4, 5, 6}, 0, 3, values, 1));
+        assertEquals("stale", values[0]);
+        assertEquals("x", values[1]);
+        assertNull(values[2]);
+        assertEquals("y", values[3]);
+
+        try {
+            map.getAll(new long[] {1, 2, 3, 4}, 0, 2, values, 3);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test mapping and checking runs of keys from long arrays and buffers.
+     */
+    @Test
+    public void testPutAllAndContainsAll() {
+        UUIDHashMap<String> map = new UUIDHashMap<String>();
+        map.put(3, 4, "old");
+
+        assertEquals(2, map.putAll(new long[] {9, 1, 2, 3, 4, 5, 6}, 1, 3, new String[] {"a", "b", "c"}, 0));
+        assertEquals("a", map.get(1, 2));
+        assertEquals("b", map.get(3, 4));
+        assertEquals("c", map.get(5, 6));
+
+        ByteBuffer raw = ByteBuffer.allocate(40);
+        raw.putLong(0).putLong(0).putLong(5).putLong(6).putLong(7);
+        raw.flip();
+        assertEquals(1, map.putAll(raw, 2, new String[] {"x", "zero", "d"}, 1));
+        assertEquals(8, raw.remaining());
+        assertEquals("zero", map.get(0, 0));
+        assertEquals("d", map.get(5, 6));
+        assertEquals(4, map.size());
+
+        boolean[] found = new boolean[4];
+        assertEquals(2, map.containsAll(new long[] {1, 2, 7, 8, 0, 0}, 0, 3, found, 1));
+        assertFalse(found[0]);
+        assertTrue(found[1]);
+        assertFalse(found[2]);
+        assertTrue(found[3]);
+        assertEquals(1, map.containsAll(new long[] {7, 8, 3, 4}, 0, 2, null, 0));
+
+        try {
+            map.putAll(new long[] {1, 2, 3, 4}, 0, 2, new String[1], 0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            map.putAll(raw, 1, new String[1], 0);
+            fail("Expected BufferUnderflowException");
+        } catch (BufferUnderflowException e) {
+            // expected
+        }
+        assertEquals(8, raw.remaining());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class UUIDHashSetTest {
+
+    /**
+     * Test single id operations, including the all-zero id which is stored outside the table.
+     */
+    @Test
+    public void testBasicOperations() {
+        UUIDHashSet set = new UUIDHashSet();
+        UUID id = new UUID();
+        assertTrue(set.isEmpty());
+
+        assertTrue(set.add(id));
+        assertFalse(set.add(new UUID(id.toString())));
+        assertTrue(set.contains(id));
+        assertFalse(set.contains(new UUID()));
+
+        assertFalse(set.contains(0, 0));
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertEquals(2, set.size());
+
+        long[] copy = new long[4];
+        assertEquals(2, set.copyTo(copy, 0));
+        Set<java.util.UUID> copied = new HashSet<java.util.UUID>();
+        copied.add(new java.util.UUID(copy[0], copy[1]));
+        copied.add(new java.util.UUID(copy[2], copy[3]));
+        assertTrue(copied.contains(new java.util.UUID(0, 0)));
+        assertTrue(copied.contains(id.toJavaUUID()));
+
+        assertTrue(set.remove(0, 0));
+        assertFalse(set.remove(0, 0));
+        assertTrue(set.remove(id));
+        assertTrue(set.isEmpty());
+
+        set.add(id);
+        set.clear();
+        assertFalse(set.contains(id));
+        assertEquals(0, set.size());
+    }
+
+    /**
+     * Test random adds and removes against java.util.HashSet, with ids that share their middle bytes and timestamps
+     * like a real stream does, so that probe runs get long and removal has to shift entries back.
+     */
+    @Test
+    public void testAgainstHashSet() {
+        Random random = new Random(42);
+        UUIDHashSet set = new UUIDHashSet();
+        Set<java.util.UUID> expected = new HashSet<java.util.UUID>();
+        long node = new UUID().getMostSignificantBits() & 0xFFFFFFFFL;
+
+        for (int i = 0; i < 200000; i++) {
+            long hi = ((long) random.nextInt(5000) << 32) | node;
+            long lo = 0xbd537a5000000000L | random.nextInt(4);
+            java.util.UUID key = new java.util.UUID(hi, lo);
+
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key), set.remove(hi, lo));
+            else
+                assertEquals(expected.add(key), set.add(hi, lo));
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (java.util.UUID key : expected)
+            assertTrue(set.contains(key.getMostSignificantBits(), key.getLeastSignificantBits()));
+
+        long[] copy = new long[2 * set.size()];
+        set.copyTo(copy, 0);
+        for (int i = 0; i < copy.length; i += 2)
+            assertTrue(expected.contains(new java.util.UUID(copy[i], copy[i + 1])));
+    }
+
+    /**
+     * Test adding, filtering and checking runs of ids from arrays and buffers.
+     */
+    @Test
+    public void testBulkOperations() {
+        long[] ids = new long[2 + 2 * 100];
+        UUID.generate(ids, 2, 100);
+
+        UUIDHashSet set = new UUIDHashSet(10);
+        assertEquals(50, set.addAll(ids, 2, 50));
+        assertEquals(50, set.addAll(ids, 2, 100));
+        assertEquals(0, set.addAll(ids, 2, 100));
+
+        ByteBuffer buffer = ByteBuffer.allocate(16 * 3);
+        UUID.generate(buffer, 3);
+        buffer.flip();
+        assertEquals(3, set.addAll(buffer, 3));
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        UUID first = new UUID(buffer.getLong(), buffer.getLong());
+        assertTrue(set.contains(first));
+
+        boolean[] found = new boolean[5];
+        long[] probe = {ids[2], ids[3], 1, 2, ids[4], ids[5]};
+        assertEquals(2, set.containsAll(probe, 0, 3, found, 1));
+        assertTrue(found[1]);
+        assertFalse(found[2]);
+        assertTrue(found[3]);
+        assertEquals(2, set.containsAll(probe, 0, 3, null, 0));
+
+        // the new ids are compacted to the front in order, and repeats within the run are dropped too
+        long[] stream = {5, 6, ids[2], ids[3], 7, 8, 5, 6};
+        assertEquals(2, set.retainNew(stream, 0, 4));
+        assertEquals(5, stream[0]);
+        assertEquals(6, stream[1]);
+        assertEquals(7, stream[2]);
+        assertEquals(8, stream[3]);
+
+        try {
+            set.addAll(ids, 4, 100);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            set.addAll(ids, 0, -1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            set.copyTo(new long[2], 0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
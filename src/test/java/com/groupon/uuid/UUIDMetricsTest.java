@@ -0,0 +1,212 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+public class UUIDMetricsTest {
+
+    /**
+     * Test that ids are counted and sampled only while instrumentation is on, in both counter modes.
+     */
+    @Test
+    public void testCounting() {
+        UUIDGenerator generator = new UUIDGenerator();
+        assertNull(generator.getMetrics());
+        UUIDMetrics metrics = generator.enableMetrics();
+        assertSame(metrics, generator.getMetrics());
+
+        for (int i = 0; i < 640; i++)
+            generator.generate();
+        generator.generate(new long[200], 0, 100);
+        generator.useStripedCounters();
+        for (int i = 0; i < 640; i++)
+            generator.generate();
+
+        assertEquals(1380, metrics.getGeneratedIds());
+        assertEquals(0, metrics.getCounterRetries());
+        assertEquals(0, metrics.getCounterWraps());
+        // one in 64 of the 1281 counter and clock reads, depending on where this thread's countdown started
+        assertTrue(Math.abs(sum(metrics.getCounterLatencyHistogram()) - 20) <= 1);
+        assertTrue(Math.abs(sum(metrics.getClockLatencyHistogram()) - 20) <= 1);
+        assertTrue(metrics.getCounterLatencyP50Nanos() > 0);
+        assertTrue(metrics.getCounterLatencyP99Nanos() >= metrics.getCounterLatencyP50Nanos());
+        assertTrue(metrics.getClockLatencyP99Nanos() >= metrics.getClockLatencyP50Nanos());
+        assertTrue(metrics.isStriped());
+        assertFalse(metrics.isSequential());
+
+        generator.disableMetrics();
+        generator.generate();
+        assertEquals(1380, metrics.getGeneratedIds());
+        assertTrue(generator.getClock() instanceof SystemMillisClock);
+
+        metrics.reset();
+        assertEquals(0, metrics.getGeneratedIds());
+        assertEquals(0, metrics.getCounterLatencyP99Nanos());
+        assertSame(metrics, generator.enableMetrics());
+    }
+
+    /**
+     * Test that the counter wrapping from ffffffff to 00000000 is counted in sequential mode, for single ids and
+     * batches.
+     */
+    @Test
+    public void testCounterWraps() throws Exception {
+        UUIDGenerator generator = new UUIDGenerator();
+        generator.useSequentialIds();
+        UUIDMetrics metrics = generator.enableMetrics();
+
+        Field field = UUIDGenerator.class.getDeclaredField("counter");
+        field.setAccessible(true);
+        AtomicInteger counter = (AtomicInteger) field.get(generator);
+
+        counter.set(-2);
+        assertEquals("ffffffff", generator.generate().toString().substring(0, 8));
+        assertEquals(0, metrics.getCounterWraps());
+        assertEquals("00000000", generator.generate().toString().substring(0, 8));
+        assertEquals(1, metrics.getCounterWraps());
+
+        counter.set(-5);
+        generator.generate(new long[20], 0, 10);
+        assertEquals(2, metrics.getCounterWraps());
+        generator.generate(new long[20], 0, 10);
+        assertEquals(2, metrics.getCounterWraps());
+    }
+
+    /**
+     * Test that failures to parse are counted wherever they happen.
+     */
+    @Test
+    public void testParseFailures() {
+        UUIDMetrics metrics = new UUIDGenerator().enableMetrics();
+        long before = metrics.getParseFailures();
+
+        try {
+            new UUID("not a uuid");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            UUID.parse("20be0ffc-314a-bd53-7a50-013a65ca76dx", 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertTrue(metrics.getParseFailures() >= before + 2);
+    }
+
+    /**
+     * Test that slow sampled ids and clock regressions are reported to listeners.
+     */
+    @Test
+    public void testListeners() {
+        final List<String> events = new ArrayList<String>();
+        UUIDEventListener listener = new UUIDEventListener() {
+            public void slowGeneration(UUIDGenerator generator, String stage, long nanos) {
+                synchronized (events) {
+                    events.add(stage);
+                }
+            }
+
+            public void clockRegressed(MillisClock clock, long from, long to) {
+                synchronized (events) {
+                    events.add("regressed " + from + " " + to);
+                }
+            }
+        };
+
+        UUIDMetrics.addListener(listener);
+        try {
+            UUIDGenerator generator = new UUIDGenerator();
+            ManualMillisClock clock = new ManualMillisClock(1000);
+            generator.useClock(clock);
+            generator.enableMetrics().setSlowThresholdNanos(0);
+            assertSame(clock, generator.getClock());
+
+            for (int i = 0; i < UUIDMetrics.SAMPLE_INTERVAL; i++)
+                generator.generate();
+            clock.set(900);
+
+            synchronized (events) {
+                assertTrue(events.contains("counter"));
+                assertTrue(events.contains("clock"));
+                assertTrue(events.contains("regressed 1000 900"));
+            }
+            assertEquals(1, generator.getMetrics().getClockRegressions());
+        } finally {
+            UUIDMetrics.removeListener(listener);
+        }
+    }
+
+    /**
+     * Test that the statistics can be read through the platform MBean server.
+     */
+    @Test
+    public void testJmx() throws Exception {
+        UUIDGenerator generator = new UUIDGenerator();
+        UUIDMetrics metrics = generator.enableMetrics();
+        generator.generate(new long[20], 0, 10);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test");
+        try {
+            assertEquals(10L, server.getAttribute(name, "GeneratedIds"));
+            assertEquals(Boolean.FALSE, server.getAttribute(name, "Sequential"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "GeneratedIds"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values)
+            sum += value;
+        return sum;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.Assert.*;
+
+public class UUIDPoolTest {
+
+    /**
+     * Test that a pool is full when created and hands out unique ids from the pool and from inline generation while
+     * several threads drain it faster than it can be refilled.
+     */
+    @Test
+    public void testTakeFromThreads() throws InterruptedException {
+        final UUIDPool pool = new UUIDPool(new UUIDGenerator(), 100, 60000, null);
+        assertEquals(128, pool.getDepth());
+        assertEquals(128, pool.available());
+
+        final long[][] results = new long[4][20000];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final long[] out = results[t];
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < out.length; i += 2) {
+                        if (i % 4 == 0) {
+                            UUID id = pool.take();
+                            out[i]     = id.getMostSignificantBits();
+                            out[i + 1] = id.getLeastSignificantBits();
+                        }
+                        else {
+                            pool.take(out, i);
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        Set<UUID> unique = new HashSet<UUID>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            for (int i = 0; i < results[t].length; i += 2)
+                unique.add(new UUID(results[t][i], results[t][i + 1]));
+        }
+        assertEquals(4 * 10000, unique.size());
+        assertEquals(0, pool.getDiscardedCount());
+        pool.stop();
+    }
+
+    /**
+     * Test that ids older than the maximum age are never handed out.
+     */
+    @Test
+    public void testMaximumAge() {
+        long start = 1350327498450L;
+        ManualMillisClock clock = new ManualMillisClock(start);
+        UUIDGenerator generator = new UUIDGenerator();
+        generator.useClock(clock);
+        UUIDPool pool = new UUIDPool(generator, 16, 100, null);
+
+        assertEquals(start, pool.take().getTimestamp().getTime());
+        clock.set(start + 50);
+        assertEquals(start, pool.take().getTimestamp().getTime());
+
+        clock.set(start + 101);
+        assertEquals(start + 101, pool.take().getTimestamp().getTime());
+        assertTrue(pool.getDiscardedCount() > 0);
+        pool.stop();
+    }
+
+    /**
+     * Test that the producer thread comes from the given factory, and that a stopped pool hands out what it holds
+     * and then falls back to generating ids inline.
+     */
+    @Test
+    public void testStopAndFallback() throws InterruptedException {
+        final Thread[] created = new Thread[1];
+        ThreadFactory factory = new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                created[0] = new Thread(r, "test-pool");
+                created[0].setDaemon(true);
+                return created[0];
+            }
+        };
+
+        UUIDPool pool = new UUIDPool(new UUIDGenerator(), 4, 1000, factory);
+        assertNotNull(created[0]);
+        pool.stop();
+        created[0].join(10000);
+        assertFalse(created[0].isAlive());
+
+        for (int i = 0; i < 4; i++)
+            pool.take();
+        assertEquals(0, pool.getFallbackCount());
+        assertEquals(0, pool.available());
+
+        long[] ids = new long[3];
+        pool.take(ids, 1);
+        assertEquals('b', new UUID(ids[1], ids[2]).getVersion());
+        assertEquals(1, pool.getFallbackCount());
+
+        try {
+            pool.take(ids, 2);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            new UUIDPool(0, 1000);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            new UUIDPool(16, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
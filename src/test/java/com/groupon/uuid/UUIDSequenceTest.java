@@ -0,0 +1,179 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class UUIDSequenceTest {
+
+    /**
+     * Test that a sequential sequence split in two hands out exactly one contiguous range of counter values between
+     * the two halves, with the first half keeping the start of the range.
+     */
+    @Test
+    public void testSplitting() {
+        UUIDGenerator generator = new UUIDGenerator();
+        generator.useClock(new ManualMillisClock(1350327498450L));
+        generator.useSequentialIds();
+        UUIDSequence first = generator.sequence(100000);
+
+        int start = counter(first.next().getMostSignificantBits()) - 1;
+        for (int i = 1; i < 10; i++)
+            assertEquals(start + i + 1, counter(first.next().getMostSignificantBits()));
+
+        UUIDSequence second = first.trySplit();
+        assertEquals(49995, first.remaining());
+        assertEquals(49995, second.remaining());
+
+        Set<Integer> counters = new HashSet<Integer>();
+        long[] ids = new long[2000];
+        for (UUIDSequence sequence : new UUIDSequence[] {second, first}) {
+            int n;
+            while ((n = sequence.next(ids, 0, 1000)) > 0) {
+                for (int i = 0; i < 2 * n; i += 2) {
+                    assertTrue(counters.add(counter(ids[i])));
+                    assertEquals(1350327498450L, new UUID(ids[i], ids[i + 1]).getTimestamp().getTime());
+                }
+            }
+            assertFalse(sequence.hasNext());
+        }
+
+        assertEquals(99990, counters.size());
+        for (int i = 11; i <= 100000; i++)
+            assertTrue(counters.contains(start + i));
+
+        // the generator carries on after the whole range
+        assertEquals(start + 100001, counter(generator.generate().getMostSignificantBits()));
+    }
+
+    /**
+     * Test that the parts of a sequence split across threads hand out unique ids in variable mode.
+     */
+    @Test
+    public void testThreads() throws InterruptedException {
+        UUIDSequence[] parts = new UUIDSequence[4];
+        parts[0] = new UUIDGenerator().sequence(200001);
+        parts[2] = parts[0].trySplit();
+        parts[1] = parts[0].trySplit();
+        parts[3] = parts[2].trySplit();
+        final long[][] results = new long[parts.length][];
+
+        Thread[] threads = new Thread[parts.length];
+        for (int t = 0; t < threads.length; t++) {
+            final UUIDSequence sequence = parts[t];
+            final int index = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    long[] ids = new long[2 * (int) sequence.remaining()];
+                    int offset = 0;
+                    while (sequence.hasNext()) {
+                        if (offset % 10 == 0) {
+                            UUID id = sequence.next();
+                            ids[offset]     = id.getMostSignificantBits();
+                            ids[offset + 1] = id.getLeastSignificantBits();
+                            offset += 2;
+                        }
+                        else {
+                            offset += 2 * sequence.next(ids, offset, Math.min(777, (ids.length - offset) / 2));
+                        }
+                    }
+                    results[index] = ids;
+                }
+            });
+            threads[t].start();
+        }
+
+        Set<UUID> unique = new HashSet<UUID>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            for (int i = 0; i < results[t].length; i += 2)
+                unique.add(new UUID(results[t][i], results[t][i + 1]));
+        }
+        assertEquals(200001, unique.size());
+    }
+
+    /**
+     * Test that a block reserved before the generator's mode changed is dropped, and the edge cases of taking and
+     * splitting.
+     */
+    @Test
+    public void testModeChangeAndLimits() {
+        UUIDGenerator generator = new UUIDGenerator();
+        generator.useSequentialIds();
+        UUIDSequence sequence = generator.sequence(4);
+        sequence.next();
+
+        generator.useVariableIds();
+        long[] ids = new long[8];
+        assertEquals(3, sequence.next(ids, 0, 4));
+        int last = UUID.reverseNibbles(counter(ids[4]));
+        assertEquals(last + 198491317, UUID.reverseNibbles(counter(generator.generate().getMostSignificantBits())));
+        assertTrue(Arrays.equals(new long[2], Arrays.copyOfRange(ids, 6, 8)));
+
+        assertEquals(0, sequence.next(ids, 0, 4));
+        assertNull(sequence.trySplit());
+        assertNull(generator.sequence(1).trySplit());
+
+        try {
+            sequence.next();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+
+        try {
+            generator.sequence(10).next(ids, 2, 4);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            generator.sequence(-1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static int counter(long mostSignificantBits) {
+        return (int) (mostSignificantBits >>> 32);
+    }
+}
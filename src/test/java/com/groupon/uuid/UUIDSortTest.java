@@ -0,0 +1,135 @@
+/*
+Copyright (c) 2013, Groupon, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+
+Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+Redistributions in binary form must reproduce the above copyright
+notice, this list of conditions and the following disclaimer in the
+documentation and/or other materials provided with the distribution.
+
+Neither the name of GROUPON nor the names of its contributors may be
+used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.uuid;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UUIDSortTest {
+
+    /**
+     * Test sorting in both orders, on one and several threads, against Arrays.sort over UUID objects. Ranges with a
+     * single bucket, all-equal ids and small runs handled by insertion sort are included.
+     */
+    @Test
+    public void testAgainstComparisonSort() {
+        Random random = new Random(11);
+        int[] sizes = {0, 1, 2, 31, 33, 1000, 300000};
+
+        for (int size : sizes) {
+            for (int kind = 0; kind < 4; kind++) {
+                long[] ids = new long[2 * size + 4];
+                for (int i = 0; i < size; i++) {
+                    long hi;
+                    long lo;
+                    if (kind == 0) {
+                        hi = random.nextLong();
+                        lo = random.nextLong();
+                    } else if (kind == 1) {
+                        // same top bytes, so the first distribution happens further down
+                        hi = 0x7FFF000000000000L | random.nextInt(50);
+                        lo = random.nextInt(3) - 1;
+                    } else if (kind == 2) {
+                        hi = 5;
+                        lo = 6;
+                    } else {
+                        hi = ((long) random.nextInt() << 32) | 0x314abd53L;
+                        lo = 0x7a50000000000000L | (1350327498450L + random.nextInt(100));
+                    }
+                    ids[2 + 2 * i] = hi;
+                    ids[3 + 2 * i] = lo;
+                }
+                ids[0] = ids[1] = ids[ids.length - 2] = ids[ids.length - 1] = 42;
+
+                for (UUIDSort.Order order : UUIDSort.Order.values()) {
+                    Comparator<UUID> comparator = order == UUIDSort.Order.TIMESTAMP ? UUID.TIMESTAMP_ORDER : null;
+                    UUID[] expected = toUUIDs(ids, size);
+                    Arrays.sort(expected, comparator);
+
+                    for (int threads = 1; threads <= 4; threads += 3) {
+                        long[] copy = ids.clone();
+                        UUIDSort.sort(copy, 2, size, order, threads);
+                        assertArrayEquals(expected, toUUIDs(copy, size));
+                        assertEquals(42, copy[0]);
+                        assertEquals(42, copy[1]);
+                        assertEquals(42, copy[copy.length - 2]);
+                        assertEquals(42, copy[copy.length - 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test sorting generated ids in both orders, and the argument checks.
+     */
+    @Test
+    public void testGeneratedIds() {
+        long[] ids = new long[2 * 5000];
+        UUID.generate(ids, 0, 5000);
+
+        UUIDSort.parallelSort(ids, 0, 5000, UUIDSort.Order.TIMESTAMP);
+        for (int i = 2; i < ids.length; i += 2)
+            assertTrue(UUID.compareByTimestamp(ids[i - 2], ids[i - 1], ids[i], ids[i + 1]) < 0);
+
+        UUIDSort.sort(ids, 0, 5000);
+        for (int i = 2; i < ids.length; i += 2)
+            assertTrue(UUID.compare(ids[i - 2], ids[i - 1], ids[i], ids[i + 1]) < 0);
+
+        try {
+            UUIDSort.sort(ids, 2, 5000);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            UUIDSort.sort(ids, 0, 10, UUIDSort.Order.BYTES, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static UUID[] toUUIDs(long[] ids, int size) {
+        UUID[] result = new UUID[size];
+        for (int i = 0; i < size; i++)
+            result[i] = new UUID(ids[2 + 2 * i], ids[3 + 2 * i]);
+        return result;
+    }
+}
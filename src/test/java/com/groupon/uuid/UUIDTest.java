@@ -34,12 +34,19 @@ package com.groupon.uuid;
 
 import org.junit.Test;
 
+import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -80,6 +87,181 @@ public class UUIDTest {
         assertEquals("aaa0bbb1-ccc2-ddd3-eee4-fff567891234", id4.toString());
     }
 
+    /**
+     * Test parsing and validation from a region of a CharSequence, an ASCII byte array and a ByteBuffer.
+     */
+    @Test
+    public void testRegionParsing() throws Exception {
+        String str = "aAa0BBb1-CCc2-DDd3-EEe4-FFf567891234";
+        UUID expected = new UUID(str);
+        long[] longs = new long[3];
+
+        StringBuilder sb = new StringBuilder("id=").append(str).append(';');
+        assertTrue(UUID.isValidUUID(sb, 3));
+        assertFalse(UUID.isValidUUID(sb, 2));
+        assertFalse(UUID.isValidUUID(sb, 4));
+        assertEquals(expected, UUID.parse(sb, 3));
+        UUID.parse(sb, 3, longs, 1);
+        assertEquals(expected, new UUID(longs[1], longs[2]));
+
+        byte[] ascii = sb.toString().getBytes("US-ASCII");
+        assertTrue(UUID.isValidUUID(ascii, 3));
+        assertFalse(UUID.isValidUUID(ascii, 4));
+        assertEquals(expected, UUID.parse(ascii, 3));
+        UUID.parse(ascii, 3, longs, 0);
+        assertEquals(expected, new UUID(longs[0], longs[1]));
+
+        ByteBuffer buffer = ByteBuffer.wrap(ascii);
+        buffer.position(3);
+        assertTrue(UUID.isValidUUID(buffer));
+        assertEquals(3, buffer.position());
+        assertEquals(expected, UUID.parse(buffer));
+        assertEquals(39, buffer.position());
+        buffer.position(3);
+        UUID.parse(buffer, longs, 0);
+        assertEquals(expected, new UUID(longs[0], longs[1]));
+        assertEquals(39, buffer.position());
+
+        // halves of all ones are valid and must not be mistaken for a parse failure
+        UUID max = new UUID("ffffffff-ffff-ffff-ffff-ffffffffffff");
+        assertEquals(-1L, max.getMostSignificantBits());
+        assertEquals(-1L, max.getLeastSignificantBits());
+        assertEquals(max, UUID.parse("FFFFFFFF-FFFF-FFFF-FFFF-FFFFFFFFFFFF".getBytes("US-ASCII"), 0));
+
+        String[] malformed = {
+                "ffffffff-ffff-ffff-ffff-fffffffffffg",
+                "gfffffff-ffff-ffff-ffff-ffffffffffff",
+                "ffffffff_ffff-ffff-ffff-ffffffffffff",
+                "ffffffff-ffff-ffff-ffff-ffffffffff٦f",
+                "00000000-0000-0000-0000+000000000000"};
+        for (String bad : malformed) {
+            assertFalse(UUID.isValidUUID(bad));
+            assertFalse(UUID.isValidUUID(bad, 0));
+            try {
+                UUID.parse(bad, 0, longs, 0);
+                fail("Expected IllegalArgumentException for " + bad);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                new UUID(bad);
+                fail("Expected IllegalArgumentException for " + bad);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        buffer.position(4);
+        try {
+            UUID.parse(buffer);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(4, buffer.position());
+        }
+
+        try {
+            UUID.parse(str, 1);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that formatting into builders, appendables, byte arrays and buffers matches toString().
+     */
+    @Test
+    public void testFormatting() throws Exception {
+        UUID[] ids = {new UUID(), new UUID(0, 0), new UUID(-1, -1), new UUID("00112233-4455-6677-8899-aabbccddeeff")};
+
+        for (UUID id : ids) {
+            String expected = id.toString();
+
+            StringBuilder sb = new StringBuilder("[");
+            assertSame(sb, id.appendTo(sb));
+            assertEquals("[" + expected, sb.toString());
+
+            StringWriter writer = new StringWriter();
+            id.appendTo(writer);
+            assertEquals(expected, writer.toString());
+
+            byte[] bytes = new byte[40];
+            id.writeAscii(bytes, 2);
+            assertEquals(expected, new String(bytes, 2, 36, "US-ASCII"));
+            assertEquals(0, bytes[1]);
+            assertEquals(0, bytes[38]);
+
+            ByteBuffer buffer = ByteBuffer.allocate(40);
+            buffer.position(1);
+            id.writeAscii(buffer);
+            assertEquals(37, buffer.position());
+            assertEquals(expected, new String(buffer.array(), 1, 36, "US-ASCII"));
+        }
+
+        try {
+            new UUID().writeAscii(new byte[40], 5);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            new UUID().writeAscii(ByteBuffer.allocate(35));
+            fail("Expected BufferOverflowException");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that the natural order matches the order of the hex strings, which is unsigned byte order, and that the
+     * timestamp order matches the strings with the timestamp segment moved to the front.
+     */
+    @Test
+    public void testOrdering() {
+        Random random = new Random(3);
+        List<UUID> ids = new ArrayList<UUID>();
+        ids.add(new UUID(0, 0));
+        ids.add(new UUID(-1, -1));
+        ids.add(new UUID(Long.MIN_VALUE, 0));
+        ids.add(new UUID(Long.MAX_VALUE, Long.MAX_VALUE));
+        for (int i = 0; i < 500; i++) {
+            // few distinct values per part, so that ties on the leading bytes are common
+            long hi = random.nextInt(4) * 0x4000000000000000L + random.nextInt(3);
+            long lo = random.nextInt(4) * 0x4000000000000000L + random.nextInt(3);
+            ids.add(new UUID(hi, lo));
+        }
+        for (int i = 0; i < 100; i++)
+            ids.add(new UUID());
+
+        List<String> strings = new ArrayList<String>();
+        List<String> rotated = new ArrayList<String>();
+        for (UUID id : ids) {
+            String s = id.toString();
+            strings.add(s);
+            rotated.add(s.substring(24) + s.substring(0, 24));
+        }
+
+        Collections.sort(ids);
+        Collections.sort(strings);
+        for (int i = 0; i < ids.size(); i++)
+            assertEquals(strings.get(i), ids.get(i).toString());
+
+        Collections.sort(ids, UUID.TIMESTAMP_ORDER);
+        Collections.sort(rotated);
+        for (int i = 0; i < ids.size(); i++) {
+            String s = ids.get(i).toString();
+            assertEquals(rotated.get(i), s.substring(24) + s.substring(0, 24));
+        }
+
+        UUID id = new UUID();
+        assertEquals(0, id.compareTo(new UUID(id.toString())));
+        assertEquals(0, UUID.TIMESTAMP_ORDER.compare(id, new UUID(id.toString())));
+        assertTrue(UUID.compare(0, -1, 1, 0) < 0);
+        assertTrue(UUID.compare(-1, 0, 1, 0) > 0);
+        assertTrue(UUID.compareByTimestamp(-1, 1, 0, 2) < 0);
+    }
+
     /**
      * Test that a UUID object can be created using a java.util.UUID.
      */
@@ -100,6 +282,28 @@ public class UUIDTest {
         assertEquals(id1.toString(), id2.toString());
     }
 
+    /**
+     * Test that the byte, long and String representations of a UUID agree with each other and with java.util.UUID.
+     */
+    @Test
+    public void testContentRepresentations() {
+        UUID id = new UUID("00112233-4455-6677-8899-aabbccddeeff");
+        assertEquals(0x0011223344556677L, id.getMostSignificantBits());
+        assertEquals(0x8899aabbccddeeffL, id.getLeastSignificantBits());
+
+        byte[] bytes = id.getBytes();
+        for (int i = 0; i < 16; i++)
+            assertEquals((byte) (i * 0x11), bytes[i]);
+
+        UUID generated = new UUID();
+        UUID fromLongs = new UUID(generated.getMostSignificantBits(), generated.getLeastSignificantBits());
+        assertEquals(generated, fromLongs);
+        assertEquals(generated.hashCode(), fromLongs.hashCode());
+        assertEquals(generated, new UUID(generated.toJavaUUID()));
+        assertEquals(generated, new UUID(generated.getBytes()));
+        assertFalse(generated.equals(new UUID(generated.getMostSignificantBits(), ~generated.getLeastSignificantBits())));
+    }
+
     /**
      * Test basic functionality from the UUID string validator.
      */
@@ -202,6 +406,104 @@ public class UUIDTest {
             assertTrue(ids[i-1].charAt(0) != ids[i].charAt(0));
     }
 
+    /**
+     * Test that ids generated straight into arrays and buffers are well formed vB ids and that they don't collide
+     * with ids from the constructor, since both share the same counter.
+     */
+    @Test
+    public void testGenerateIntoBuffers() {
+        byte[] bytes = new byte[20];
+        UUID.generate(bytes, 4);
+        UUID fromBytes = new UUID(Arrays.copyOfRange(bytes, 4, 20));
+        assertEquals('b', fromBytes.getVersion());
+        assertEquals(UUID.PID, fromBytes.getProcessId());
+
+        ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(16);
+        UUID.generate(buffer);
+        assertEquals(32, buffer.position());
+        byte[] fromBuffer = new byte[16];
+        buffer.position(16);
+        buffer.get(fromBuffer);
+        UUID fromByteBuffer = new UUID(fromBuffer);
+        assertEquals('b', fromByteBuffer.getVersion());
+        assertTrue(Math.abs(fromByteBuffer.getTimestamp().getTime() - new Date().getTime()) < 100);
+
+        long[] longs = new long[4];
+        UUID.generate(longs, 1);
+        assertEquals(0, longs[0]);
+        assertEquals(0, longs[3]);
+        assertEquals('b', new UUID(longs[1], longs[2]).getVersion());
+
+        Set<UUID> ids = new HashSet<UUID>();
+        for (int i = 0; i < 1000; i++) {
+            UUID.generate(longs, 0);
+            assertTrue(ids.add(new UUID(longs[0], longs[1])));
+            assertTrue(ids.add(new UUID()));
+        }
+
+        try {
+            UUID.generate(bytes, 5);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            UUID.generate(ByteBuffer.allocate(15));
+            fail("Expected BufferOverflowException");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that batch generation produces unique ids with the same counter progression as generating one at a time.
+     */
+    @Test
+    public void testBatchGeneration() {
+        final int n = 1000;
+        long[] longs = new long[2 * n + 1];
+        byte[] bytes = new byte[16 * n];
+        ByteBuffer buffer = ByteBuffer.allocate(16 * n);
+        Set<UUID> ids = new HashSet<UUID>();
+
+        UUID.useSequentialIds();
+        UUID.generate(longs, 1, n);
+        assertEquals(0, longs[0]);
+        for (int i = 1; i < n; i++) {
+            long prev = longs[2 * i - 1] >>> 32;
+            long curr = longs[2 * i + 1] >>> 32;
+            assertEquals((prev + 1) & 0xFFFFFFFFL, curr);
+        }
+        for (int i = 0; i < n; i++)
+            assertTrue(ids.add(new UUID(longs[2 * i + 1], longs[2 * i + 2])));
+
+        UUID.useVariableIds();
+        UUID.generate(bytes, 0, n);
+        for (int i = 0; i < n; i++) {
+            UUID id = new UUID(Arrays.copyOfRange(bytes, 16 * i, 16 * i + 16));
+            assertEquals('b', id.getVersion());
+            assertTrue(ids.add(id));
+            assertTrue(ids.add(new UUID()));
+        }
+        for (int i = 1; i < n; i++)
+            assertTrue(bytes[16 * (i - 1)] >> 4 != bytes[16 * i] >> 4);
+
+        UUID.generate(buffer, n);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        while (buffer.hasRemaining())
+            assertTrue(ids.add(new UUID(buffer.getLong(), buffer.getLong())));
+
+        try {
+            UUID.generate(longs, 2, n);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
     /**
      * Check that when we get the byte array with getBytes that changing it doesn't change the UUID.
      */
@@ -373,4 +675,48 @@ public class UUIDTest {
         Collections.addAll(uuidSet, uuids);
         assertEquals(effectiveN, uuidSet.size());
     }
+
+    /**
+     * Same shotgun test as concurrentGeneration() but with per-thread counter stripes, mixing in ids from the shared
+     * counter via batch generation. Also checks that variable mode still changes the first character on every id.
+     */
+    @Test
+    public void concurrentStripedGeneration() throws Exception {
+        int numThreads = 10;
+        Thread[] threads = new Thread[numThreads];
+        int n = 1000000;
+        UUID[] uuids = new UUID[n];
+        Set<UUID> uuidSet = new HashSet<UUID>();
+
+        UUID.useStripedCounters();
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                threads[i] = new Generator(n / numThreads, uuids, i, numThreads);
+                threads[i].start();
+            }
+
+            long[] batch = new long[2 * 1000];
+            for (int i = 0; i < 100; i++) {
+                UUID.generate(batch, 0, 1000);
+                for (int j = 0; j < batch.length; j += 2)
+                    assertTrue(uuidSet.add(new UUID(batch[j], batch[j + 1])));
+            }
+
+            for (int i = 0; i < numThreads; i++)
+                threads[i].join();
+
+            String prev = new UUID().toString();
+            for (int i = 0; i < 5000; i++) {
+                String curr = new UUID().toString();
+                assertTrue(prev.charAt(0) != curr.charAt(0));
+                prev = curr;
+            }
+        } finally {
+            UUID.useSharedCounter();
+        }
+
+        int effectiveN = n / numThreads * numThreads;
+        Collections.addAll(uuidSet, uuids);
+        assertEquals(effectiveN + 100 * 1000, uuidSet.size());
+    }
 }